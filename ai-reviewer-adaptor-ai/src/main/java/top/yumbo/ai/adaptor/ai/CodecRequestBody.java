@@ -0,0 +1,47 @@
+package top.yumbo.ai.adaptor.ai;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import top.yumbo.ai.adaptor.ai.codec.AICodec;
+import top.yumbo.ai.adaptor.ai.codec.AICodecs;
+import top.yumbo.ai.adaptor.ai.codec.CodecRequest;
+
+import java.io.IOException;
+
+/**
+ * Request body written by an {@link AICodec} straight into the HTTP sink
+ * <p>
+ * No formatted prompt, JSON string or UTF-8 byte array of the full payload is held in memory.
+ * The body keeps only references and can be written again when a call is retried.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class CodecRequestBody extends RequestBody {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final AICodec codec;
+    private final CodecRequest request;
+
+    public CodecRequestBody(AICodec codec, CodecRequest request) {
+        this.codec = codec;
+        this.request = request;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        // The sink is left open; OkHttp owns it
+        AICodecs.write(codec, request, sink.outputStream());
+    }
+
+    public CodecRequest getRequest() {
+        return request;
+    }
+}
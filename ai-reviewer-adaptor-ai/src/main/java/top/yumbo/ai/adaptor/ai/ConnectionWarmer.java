@@ -0,0 +1,168 @@
+package top.yumbo.ai.adaptor.ai;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.model.AIConfig;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Pre-establishes connections to an AI endpoint and keeps them warm
+ * <p>
+ * A warm-up sends {@value #WARM_CONNECTIONS_PARAM} probe requests at once, so DNS resolution, the TCP
+ * and TLS handshakes and credential loading happen before the first review instead of during it. Any
+ * HTTP answer counts: the connection is pooled either way. The warm-up is repeated every
+ * {@value #WARM_INTERVAL_SECONDS_PARAM} seconds, by default half the pool's keep-alive, so idle
+ * connections survive between executions. There is one refresh per endpoint and model: warming
+ * the same endpoint again replaces its refresh, and the returned {@link WarmUp} cancels it.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+public final class ConnectionWarmer {
+
+    /**
+     * {@code AIConfig.customParams} key with the number of connections to keep warm (0 = disabled)
+     */
+    public static final String WARM_CONNECTIONS_PARAM = "warmConnections";
+    /**
+     * {@code AIConfig.customParams} key with the interval between warm-ups in seconds (0 = only at startup)
+     */
+    public static final String WARM_INTERVAL_SECONDS_PARAM = "warmIntervalSeconds";
+
+    private static final long WARM_UP_TIMEOUT_SECONDS = 10;
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ai-connection-warmer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final Map<String, ScheduledFuture<?>> REFRESHES = new ConcurrentHashMap<>();
+
+    private ConnectionWarmer() {
+    }
+
+    /**
+     * Get the number of connections to keep warm
+     */
+    public static int getWarmConnections(AIConfig config) {
+        Object value = config.getCustomParams() != null ? config.getCustomParams().get(WARM_CONNECTIONS_PARAM) : null;
+        return value != null ? Math.max(0, Integer.parseInt(value.toString())) : 0;
+    }
+
+    /**
+     * Warm the connections now and schedule the refresh
+     *
+     * @param name             endpoint name for logging
+     * @param keepAliveSeconds idle time after which the client drops a connection
+     * @param probe            sends one probe request; completes normally once the endpoint has answered
+     * @return result of the initial warm-up, cancelling the refresh
+     */
+    public static WarmUp keepWarm(String name, AIConfig config, long keepAliveSeconds,
+                                  Supplier<CompletableFuture<?>> probe) {
+        String key = name + "|" + config.getProvider() + "|" + config.getModel();
+        int connections = getWarmConnections(config);
+        if (connections == 0) {
+            cancel(key, null);
+            return new WarmUp(key, 0, null);
+        }
+        int warmed = warmUp(name, connections, probe);
+        Object value = config.getCustomParams().get(WARM_INTERVAL_SECONDS_PARAM);
+        long intervalSeconds = value != null ? Long.parseLong(value.toString()) : keepAliveSeconds / 2;
+        ScheduledFuture<?> refresh = null;
+        if (intervalSeconds > 0) {
+            refresh = SCHEDULER.scheduleWithFixedDelay(() -> warmUp(name, connections, probe),
+                    intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+            ScheduledFuture<?> replaced = REFRESHES.put(key, refresh);
+            if (replaced != null) {
+                replaced.cancel(false);
+            }
+        } else {
+            cancel(key, null);
+        }
+        return new WarmUp(key, warmed, refresh);
+    }
+
+    /**
+     * Cancel the refresh of a key, or only the given refresh if it is still the current one
+     */
+    private static void cancel(String key, ScheduledFuture<?> refresh) {
+        ScheduledFuture<?> current = REFRESHES.get(key);
+        if (current != null && (refresh == null || current == refresh) && REFRESHES.remove(key, current)) {
+            current.cancel(false);
+        }
+    }
+
+    /**
+     * Send the probes concurrently and wait for them, bounded by {@value #WARM_UP_TIMEOUT_SECONDS} seconds
+     */
+    static int warmUp(String name, int connections, Supplier<CompletableFuture<?>> probe) {
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<?>[] probes = new CompletableFuture<?>[connections];
+        for (int i = 0; i < connections; i++) {
+            try {
+                probes[i] = probe.get();
+            } catch (Exception e) {
+                probes[i] = CompletableFuture.failedFuture(e);
+            }
+        }
+        try {
+            CompletableFuture.allOf(probes).get(WARM_UP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Counted below
+        }
+        int warmed = 0;
+        for (CompletableFuture<?> future : probes) {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                warmed++;
+            }
+        }
+        if (warmed < connections) {
+            log.warn("Warmed {} of {} connections to {} in {} ms", warmed, connections, name,
+                    System.currentTimeMillis() - startTime);
+        } else {
+            log.info("Warmed {} connections to {} in {} ms", warmed, name, System.currentTimeMillis() - startTime);
+        }
+        return warmed;
+    }
+
+    /**
+     * Result of {@link #keepWarm}: the connections warmed and the handle of the refresh
+     */
+    public static final class WarmUp {
+        private final String key;
+        private final int warmed;
+        private final ScheduledFuture<?> refresh;
+
+        private WarmUp(String key, int warmed, ScheduledFuture<?> refresh) {
+            this.key = key;
+            this.warmed = warmed;
+            this.refresh = refresh;
+        }
+
+        /**
+         * Get the number of probes answered by the initial warm-up
+         */
+        public int getWarmed() {
+            return warmed;
+        }
+
+        /**
+         * Stop refreshing the connections; no effect once a later warm-up replaced this refresh
+         */
+        public void cancel() {
+            if (refresh != null) {
+                ConnectionWarmer.cancel(key, refresh);
+            }
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package top.yumbo.ai.adaptor.ai;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.*;
+import okio.BufferedSource;
+import top.yumbo.ai.adaptor.ai.codec.AICodec;
+import top.yumbo.ai.adaptor.ai.codec.AICodecs;
+import top.yumbo.ai.adaptor.ai.codec.CodecRequest;
+import top.yumbo.ai.adaptor.ai.codec.DecodedResponse;
+import top.yumbo.ai.adaptor.ai.codec.PromptTemplate;
+import top.yumbo.ai.adaptor.ai.codec.PromptText;
+import top.yumbo.ai.adaptor.ai.codec.StreamAccumulator;
+import top.yumbo.ai.api.ai.AIStreamListener;
 import top.yumbo.ai.api.ai.IAIService;
 import top.yumbo.ai.api.model.AIConfig;
 import top.yumbo.ai.api.model.AIResponse;
@@ -14,7 +21,10 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * HttpBasedAI service adapter
@@ -22,19 +32,35 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 public class HttpBasedAIAdapter implements IAIService {
     private static final String DEFAULT_ENDPOINT = "https://api.openai.com/v1/chat/completions";
-    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 5;
+    private static final String SSE_DATA_PREFIX = "data:";
+    private static final String SSE_DONE = "[DONE]";
+    /**
+     * Response metadata key for the time to the first streamed chunk in milliseconds (-1 if none)
+     */
+    public static final String TIME_TO_FIRST_TOKEN_KEY = "timeToFirstTokenMs";
+    private final HttpClientPool clientPool;
     private final OkHttpClient httpClient;
-    private final ObjectMapper objectMapper;
+    private final AICodec codec = AICodecs.OPENAI_CHAT;
     private final AIConfig config;
+    /**
+     * User prompt of {@link #config}, compiled once
+     */
+    private final PromptTemplate userPromptTemplate;
 
     public HttpBasedAIAdapter(AIConfig config) {
         this.config = config;
-        this.httpClient = new OkHttpClient.Builder()
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(60, TimeUnit.SECONDS)
-                .writeTimeout(60, TimeUnit.SECONDS)
-                .build();
-        this.objectMapper = new ObjectMapper();
+        this.userPromptTemplate = PromptTemplate.compile(config.getUserPrompt());
+        // Pool, dispatcher limits and timeouts from the configuration, shared with adapters for the same endpoint
+        this.clientPool = HttpClientPool.forConfig(config, DEFAULT_ENDPOINT);
+        this.httpClient = clientPool.getClient();
+    }
+
+    /**
+     * Get the statistics of the connection pool used by this adapter
+     */
+    public Map<String, Object> getConnectionStats() {
+        return clientPool.getStats();
     }
 
     @Override
@@ -42,40 +68,10 @@ public class HttpBasedAIAdapter implements IAIService {
         log.info("Invoking HttpBasedAI with model: {}", config.getModel());
         long startTime = System.currentTimeMillis();
         try {
-            // Build request payload
-            Map<String, Object> requestBody = buildRequestBody(data, config);
-            String jsonBody = objectMapper.writeValueAsString(requestBody);
-            // Build HTTP request
-            Request request = new Request.Builder()
-                    .url(config.getEndpoint() != null ? config.getEndpoint() : DEFAULT_ENDPOINT)
-                    .header("Authorization", "Bearer " + config.getApiKey())
-                    .header("Content-Type", "application/json")
-                    .post(RequestBody.create(jsonBody, JSON))
-                    .build();
+            Request request = buildHttpRequest(data, config);
             // Execute request
-            try (Response response = httpClient.newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    throw new AIServiceException("AI API call failed: " + response.code() + " - " + response.message());
-                }
-                String responseBody = response.body().string();
-                JsonNode jsonResponse = objectMapper.readTree(responseBody);
-                // Parse response
-                String content = jsonResponse.get("choices").get(0).get("message").get("content").asText();
-                JsonNode usage = jsonResponse.get("usage");
-                AIResponse.TokenUsage tokenUsage = AIResponse.TokenUsage.builder()
-                        .promptTokens(usage.get("prompt_tokens").asInt())
-                        .completionTokens(usage.get("completion_tokens").asInt())
-                        .totalTokens(usage.get("total_tokens").asInt())
-                        .build();
-                long processingTime = System.currentTimeMillis() - startTime;
-                return AIResponse.builder()
-                        .content(content)
-                        .model(config.getModel())
-                        .provider(getProviderName())
-                        .processingTimeMs(processingTime)
-                        .timestamp(LocalDateTime.now())
-                        .tokenUsage(tokenUsage)
-                        .build();
+            try (Response response = executeWithRetry(request, RetryPolicy.from(config), startTime)) {
+                return parseResponse(response, config, startTime);
             }
         } catch (IOException e) {
             log.error("HttpBasedAI API call failed", e);
@@ -83,12 +79,288 @@ public class HttpBasedAIAdapter implements IAIService {
         }
     }
 
+    /**
+     * Invoke through OkHttp's async dispatcher; no thread is held while the request is in flight
+     * or while waiting to retry it
+     */
     @Override
-    public boolean isAvailable() {
-        // Could implement a health check here
+    public CompletableFuture<AIResponse> invokeAsync(PreProcessedData data, AIConfig config) {
+        log.info("Invoking HttpBasedAI asynchronously with model: {}", config.getModel());
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<AIResponse> future = new CompletableFuture<>();
+        Request request;
+        try {
+            request = buildHttpRequest(data, config);
+        } catch (Exception e) {
+            future.completeExceptionally(new AIServiceException("HttpBasedAI invocation error", e));
+            return future;
+        }
+        AtomicReference<Call> currentCall = new AtomicReference<>();
+        enqueueAttempt(request, config, RetryPolicy.from(config), startTime, 1, future, currentCall);
+        // Cancelling the future, or failing it from outside (e.g. a caller's deadline), aborts the HTTP call
+        future.whenComplete((response, error) -> {
+            Call call = currentCall.get();
+            if (error != null && call != null) {
+                call.cancel();
+            }
+        });
+        return future;
+    }
+
+    private void enqueueAttempt(Request request, AIConfig config, RetryPolicy policy, long startTime, int attempt,
+                                CompletableFuture<AIResponse> future, AtomicReference<Call> currentCall) {
+        if (future.isDone()) {
+            return;
+        }
+        Call call = newCall(request, policy, startTime);
+        currentCall.set(call);
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                retryOrFail(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    if (!response.isSuccessful()) {
+                        retryOrFail(httpError(response));
+                        return;
+                    }
+                    future.complete(parseResponse(response, config, startTime));
+                } catch (Exception e) {
+                    future.completeExceptionally(e instanceof AIServiceException
+                            ? e
+                            : new AIServiceException("HttpBasedAI invocation error", e));
+                }
+            }
+
+            private void retryOrFail(Exception e) {
+                long delay = policy.nextDelayMs(attempt, e, startTime);
+                if (delay < 0) {
+                    log.error("HttpBasedAI API call failed after {} attempt(s)", attempt, e);
+                    future.completeExceptionally(e instanceof AIServiceException
+                            ? e
+                            : new AIServiceException("HttpBasedAI invocation error", e));
+                    return;
+                }
+                log.warn("HttpBasedAI API call failed (attempt {}), retrying in {} ms: {}", attempt, delay, e.getMessage());
+                CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() ->
+                        enqueueAttempt(request, config, policy, startTime, attempt + 1, future, currentCall));
+            }
+        });
+    }
+
+    /**
+     * Execute the request until it succeeds, the error is not retryable or the retry policy gives up
+     *
+     * @return successful response, to be closed by the caller
+     */
+    private Response executeWithRetry(Request request, RetryPolicy policy, long startTime)
+            throws IOException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            Exception failure;
+            try {
+                Response response = newCall(request, policy, startTime).execute();
+                if (response.isSuccessful()) {
+                    return response;
+                }
+                try (response) {
+                    failure = httpError(response);
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+            long delay = policy.nextDelayMs(attempt, failure, startTime);
+            if (delay < 0) {
+                if (failure instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw (AIServiceException) failure;
+            }
+            log.warn("HttpBasedAI API call failed (attempt {}), retrying in {} ms: {}", attempt, delay, failure.getMessage());
+            Thread.sleep(delay);
+        }
+    }
+
+    private Call newCall(Request request, RetryPolicy policy, long startTime) {
+        Call call = httpClient.newCall(request);
+        // Per-attempt timeout, cut short by the deadline of the whole call
+        call.timeout().timeout(policy.attemptTimeoutMs(startTime), TimeUnit.MILLISECONDS);
+        return call;
+    }
+
+    private static AIServiceException httpError(Response response) {
+        return new AIServiceException("AI API call failed: " + response.code() + " - " + response.message(),
+                response.code(), RetryPolicy.parseRetryAfter(response.header("Retry-After")));
+    }
+
+    @Override
+    public boolean supportsAsync() {
         return true;
     }
 
+    /**
+     * Invoke with {@code "stream": true} and parse the server-sent events as they arrive
+     * The final response carries usage when the endpoint honours {@code stream_options.include_usage},
+     * and the time to the first content chunk in metadata {@value #TIME_TO_FIRST_TOKEN_KEY}.
+     */
+    @Override
+    public AIResponse invokeStreaming(PreProcessedData data, AIConfig config, AIStreamListener listener) throws Exception {
+        log.info("Invoking HttpBasedAI in streaming mode with model: {}", config.getModel());
+        long startTime = System.currentTimeMillis();
+        try {
+            Request request = buildHttpRequest(data, config, true);
+            // Only establishing the stream is retried: chunks may already have reached the listener later on
+            try (Response response = executeWithRetry(request, RetryPolicy.from(config), startTime)) {
+                AIResponse aiResponse = readEventStream(response.body().source(), config, startTime, listener);
+                listener.onComplete(aiResponse);
+                return aiResponse;
+            }
+        } catch (IOException e) {
+            log.error("HttpBasedAI streaming call failed", e);
+            AIServiceException error = new AIServiceException("HttpBasedAI invocation error", e);
+            listener.onError(error);
+            throw error;
+        } catch (Exception e) {
+            listener.onError(e);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return true;
+    }
+
+    private AIResponse readEventStream(BufferedSource source, AIConfig config, long startTime,
+                                       AIStreamListener listener) throws IOException {
+        StreamAccumulator accumulator = new StreamAccumulator();
+        long firstTokenTime = -1;
+        String line;
+        while ((line = source.readUtf8Line()) != null) {
+            // Events are "data: <json>" lines; comments, ids and blank separators are skipped
+            if (!line.startsWith(SSE_DATA_PREFIX)) {
+                continue;
+            }
+            String payload = line.substring(SSE_DATA_PREFIX.length()).trim();
+            if (SSE_DONE.equals(payload)) {
+                break;
+            }
+            if (payload.isEmpty()) {
+                continue;
+            }
+            // With include_usage the last chunk has empty choices and the usage of the whole call
+            String text = accumulator.accept(AICodecs.decodeStreamEvent(codec, payload));
+            if (text != null) {
+                if (firstTokenTime < 0) {
+                    firstTokenTime = System.currentTimeMillis() - startTime;
+                }
+                listener.onChunk(text);
+            }
+        }
+
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(TIME_TO_FIRST_TOKEN_KEY, firstTokenTime);
+        return AIResponse.builder()
+                .content(accumulator.getContent())
+                .model(config.getModel())
+                .provider(getProviderName())
+                .processingTimeMs(System.currentTimeMillis() - startTime)
+                .timestamp(LocalDateTime.now())
+                .tokenUsage(accumulator.getUsage().toTokenUsage())
+                .stopReason(accumulator.getStopReason())
+                .metadata(metadata)
+                .build();
+    }
+
+    private Request buildHttpRequest(PreProcessedData data, AIConfig config) {
+        return buildHttpRequest(data, config, false);
+    }
+
+    /**
+     * Get the compiled user prompt; only a call configuration with a different prompt is compiled again
+     */
+    private PromptTemplate userPromptTemplate(AIConfig config) {
+        return Objects.equals(config.getUserPrompt(), this.config.getUserPrompt())
+                ? userPromptTemplate
+                : PromptTemplate.compile(config.getUserPrompt());
+    }
+
+    private Request buildHttpRequest(PreProcessedData data, AIConfig config, boolean stream) {
+        // The JSON payload is generated into the connection when the request is sent
+        PromptText userMessage = userPromptTemplate(config).render(data);
+        RequestBody body = new CodecRequestBody(codec, CodecRequest.of(config, config.getSysPrompt(), userMessage, stream));
+        log.debug("Building request for {} with a user message of {} chars",
+                data.getMetadata() != null ? data.getMetadata().getFilePath() : null, userMessage.length());
+        // Build HTTP request
+        Request.Builder builder = new Request.Builder()
+                .url(config.getEndpoint() != null ? config.getEndpoint() : DEFAULT_ENDPOINT)
+                .header("Authorization", "Bearer " + config.getApiKey())
+                .header("Content-Type", "application/json");
+        long promptLength = userMessage.length() + (config.getSysPrompt() != null ? config.getSysPrompt().length() : 0);
+        if (GzipRequestBody.shouldCompress(config, promptLength)) {
+            body = new GzipRequestBody(body, clientPool::recordCompression);
+            builder.header("Content-Encoding", "gzip");
+        }
+        return builder.post(body).build();
+    }
+
+    private AIResponse parseResponse(Response response, AIConfig config, long startTime) throws IOException {
+        if (!response.isSuccessful()) {
+            throw httpError(response);
+        }
+        // Only the needed fields are extracted while reading the body
+        DecodedResponse completion = AICodecs.decode(codec, response.body().byteStream());
+        long processingTime = System.currentTimeMillis() - startTime;
+        return AIResponse.builder()
+                .content(completion.getText())
+                .model(config.getModel())
+                .provider(getProviderName())
+                .processingTimeMs(processingTime)
+                .timestamp(LocalDateTime.now())
+                .tokenUsage(completion.toTokenUsage())
+                .stopReason(completion.getStopReason())
+                .build();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        // Health check: the models listing next to the chat endpoint; any non-5xx answer means reachable
+        Call call = httpClient.newCall(healthCheckRequest());
+        call.timeout().timeout(HEALTH_CHECK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        try (Response response = call.execute()) {
+            return response.code() < 500;
+        } catch (IOException e) {
+            log.warn("Health check for {} failed: {}", getProviderName(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Open {@code customParams.warmConnections} connections with concurrent health check requests and
+     * keep them warm (warming again replaces the refresh); over HTTP/2 the probes share a single connection
+     */
+    @Override
+    public int warmUp() {
+        return ConnectionWarmer.keepWarm(getHealthCheckUrl(), config, clientPool.getKeepAliveSeconds(),
+                () -> clientPool.probe(healthCheckRequest())).getWarmed();
+    }
+
+    private Request healthCheckRequest() {
+        return new Request.Builder()
+                .url(getHealthCheckUrl())
+                .header("Authorization", "Bearer " + config.getApiKey())
+                .get()
+                .build();
+    }
+
+    private String getHealthCheckUrl() {
+        String endpoint = config.getEndpoint() != null ? config.getEndpoint() : DEFAULT_ENDPOINT;
+        int index = endpoint.lastIndexOf("/chat/completions");
+        return index >= 0 ? endpoint.substring(0, index) + "/models" : endpoint;
+    }
+
     @Override
     public String getProviderName() {
         return config.getProvider();
@@ -98,23 +370,4 @@ public class HttpBasedAIAdapter implements IAIService {
     public String[] getSupportedModels() {
         return new String[]{"please refer " + config.getProvider() + " official documentation for supported models"};
     }
-
-    private Map<String, Object> buildRequestBody(PreProcessedData data, AIConfig config) {
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", config.getModel());
-        requestBody.put("temperature", config.getTemperature());
-        requestBody.put("max_tokens", config.getMaxTokens());
-        // Build messages
-        Map<String, String> systemMessage = new HashMap<>();
-        systemMessage.put("role", "system");
-        systemMessage.put("content", config.getSysPrompt());
-        Map<String, String> userMessage = new HashMap<>();
-        userMessage.put("role", "user");
-        System.out.println(data.getMetadata());
-        System.out.println(config.getUserPrompt());
-        System.out.println(data.getContent());
-        userMessage.put("content", String.format(config.getUserPrompt(), data.getContent()));
-        requestBody.put("messages", new Map[]{systemMessage, userMessage});
-        return requestBody;
-    }
 }
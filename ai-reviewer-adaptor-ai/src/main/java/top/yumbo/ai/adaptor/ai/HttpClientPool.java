@@ -0,0 +1,238 @@
+package top.yumbo.ai.adaptor.ai;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Connection;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.common.constants.Constants;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * OkHttp client shared by all adapters calling the same endpoint with the same settings
+ * <p>
+ * OkHttp's defaults (5 requests per host, 5 idle connections) cap the real concurrency to one
+ * provider at five calls however many threads are used. The dispatcher limits, connection pool,
+ * HTTP/2 and timeouts are taken from {@code AIConfig.customParams} instead:
+ * <ul>
+ *     <li>{@value #MAX_REQUESTS_PARAM}, {@value #MAX_REQUESTS_PER_HOST_PARAM}: dispatcher limits (default {@value #DEFAULT_MAX_REQUESTS})</li>
+ *     <li>{@value #MAX_IDLE_CONNECTIONS_PARAM}: idle connections kept (default {@value #DEFAULT_MAX_IDLE_CONNECTIONS})</li>
+ *     <li>{@value #KEEP_ALIVE_SECONDS_PARAM}: how long an idle connection is kept (default {@value #DEFAULT_KEEP_ALIVE_SECONDS})</li>
+ *     <li>{@value #HTTP2_PARAM}: negotiate HTTP/2 over TLS, multiplexing calls on one connection (default true)</li>
+ *     <li>{@value #CONNECT_TIMEOUT_SECONDS_PARAM}: connect timeout (default {@value #DEFAULT_CONNECT_TIMEOUT_SECONDS});
+ *     read and write timeouts follow {@code timeoutSeconds}</li>
+ * </ul>
+ * Connection reuse and pool utilization are tracked per client ({@link #getStats()}).
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+public final class HttpClientPool {
+
+    public static final String MAX_REQUESTS_PARAM = "maxRequests";
+    public static final String MAX_REQUESTS_PER_HOST_PARAM = "maxRequestsPerHost";
+    public static final String MAX_IDLE_CONNECTIONS_PARAM = "maxIdleConnections";
+    public static final String KEEP_ALIVE_SECONDS_PARAM = "keepAliveSeconds";
+    public static final String HTTP2_PARAM = "http2";
+    public static final String CONNECT_TIMEOUT_SECONDS_PARAM = "connectTimeoutSeconds";
+
+    public static final int DEFAULT_MAX_REQUESTS = 256;
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 32;
+    public static final int DEFAULT_KEEP_ALIVE_SECONDS = 300;
+    public static final int DEFAULT_CONNECT_TIMEOUT_SECONDS = 30;
+
+    private static final Map<String, HttpClientPool> POOLS = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final int maxIdleConnections;
+    private final int keepAliveSeconds;
+    private final ConnectionPool connectionPool;
+    private final Dispatcher dispatcher;
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+    private final AtomicLong compressedRequests = new AtomicLong();
+    private final AtomicLong plainBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final OkHttpClient client;
+
+    private HttpClientPool(String name, AIConfig config) {
+        this.name = name;
+        int maxRequests = intParam(config, MAX_REQUESTS_PARAM, DEFAULT_MAX_REQUESTS);
+        int maxRequestsPerHost = intParam(config, MAX_REQUESTS_PER_HOST_PARAM, maxRequests);
+        this.maxIdleConnections = intParam(config, MAX_IDLE_CONNECTIONS_PARAM, DEFAULT_MAX_IDLE_CONNECTIONS);
+        this.keepAliveSeconds = intParam(config, KEEP_ALIVE_SECONDS_PARAM, DEFAULT_KEEP_ALIVE_SECONDS);
+        int connectTimeoutSeconds = intParam(config, CONNECT_TIMEOUT_SECONDS_PARAM, DEFAULT_CONNECT_TIMEOUT_SECONDS);
+        int timeoutSeconds = config.getTimeoutSeconds() != null && config.getTimeoutSeconds() > 0
+                ? config.getTimeoutSeconds()
+                : Constants.DEFAULT_TIMEOUT_SECONDS;
+        this.dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        this.connectionPool = new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS);
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .eventListener(metrics)
+                .connectTimeout(connectTimeoutSeconds, TimeUnit.SECONDS)
+                .readTimeout(timeoutSeconds, TimeUnit.SECONDS)
+                .writeTimeout(timeoutSeconds, TimeUnit.SECONDS);
+        if (!booleanParam(config, HTTP2_PARAM, true)) {
+            builder.protocols(List.of(Protocol.HTTP_1_1));
+        }
+        this.client = builder.build();
+        log.info("Created HTTP client for {}: {} requests ({} per host), {} idle connections kept {} s",
+                name, maxRequests, maxRequestsPerHost, maxIdleConnections, keepAliveSeconds);
+    }
+
+    /**
+     * Get the client for an AI configuration; adapters with the same endpoint origin and settings share it
+     *
+     * @param defaultEndpoint endpoint used when the configuration has none
+     */
+    public static HttpClientPool forConfig(AIConfig config, String defaultEndpoint) {
+        String endpoint = config.getEndpoint() != null ? config.getEndpoint() : defaultEndpoint;
+        HttpUrl url = HttpUrl.parse(endpoint);
+        String origin = url != null ? url.scheme() + "://" + url.host() + ":" + url.port() : endpoint;
+        String key = origin + settingsOf(config);
+        return POOLS.computeIfAbsent(key, k -> new HttpClientPool(origin, config));
+    }
+
+    private static String settingsOf(AIConfig config) {
+        StringBuilder settings = new StringBuilder("|").append(config.getTimeoutSeconds());
+        for (String param : new String[]{MAX_REQUESTS_PARAM, MAX_REQUESTS_PER_HOST_PARAM, MAX_IDLE_CONNECTIONS_PARAM,
+                KEEP_ALIVE_SECONDS_PARAM, HTTP2_PARAM, CONNECT_TIMEOUT_SECONDS_PARAM}) {
+            settings.append('|').append(param(config, param));
+        }
+        return settings.toString();
+    }
+
+    private static Object param(AIConfig config, String name) {
+        return config.getCustomParams() != null ? config.getCustomParams().get(name) : null;
+    }
+
+    private static int intParam(AIConfig config, String name, int defaultValue) {
+        Object value = param(config, name);
+        return value != null ? Integer.parseInt(value.toString()) : defaultValue;
+    }
+
+    private static boolean booleanParam(AIConfig config, String name, boolean defaultValue) {
+        Object value = param(config, name);
+        return value != null ? Boolean.parseBoolean(value.toString()) : defaultValue;
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    public int getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    /**
+     * Send a request without retries, e.g. to open a connection; completes with the status code of any answer
+     */
+    public CompletableFuture<Integer> probe(Request request) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    future.complete(response.code());
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Record the sizes of a request body sent compressed
+     */
+    public void recordCompression(long plain, long compressed) {
+        compressedRequests.incrementAndGet();
+        plainBytes.addAndGet(plain);
+        compressedBytes.addAndGet(compressed);
+    }
+
+    /**
+     * Get connection statistics: pool occupancy and utilization, calls running and queued in the
+     * dispatcher, how many connection acquisitions reused a pooled connection, and the bytes saved
+     * by request compression
+     */
+    public Map<String, Object> getStats() {
+        int connections = connectionPool.connectionCount();
+        int idle = connectionPool.idleConnectionCount();
+        long acquired = metrics.acquired.get();
+        long opened = metrics.opened.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("endpoint", name);
+        stats.put("connections", connections);
+        stats.put("idleConnections", idle);
+        stats.put("activeConnections", connections - idle);
+        stats.put("poolUtilization", Math.min(1.0, (double) (connections - idle) / Math.max(1, maxIdleConnections)));
+        stats.put("runningCalls", dispatcher.runningCallsCount());
+        stats.put("queuedCalls", dispatcher.queuedCallsCount());
+        stats.put("connectionsOpened", opened);
+        stats.put("connectionsAcquired", acquired);
+        stats.put("http2Acquired", metrics.http2Acquired.get());
+        stats.put("reuseRate", acquired > 0 ? Math.max(0.0, 1.0 - (double) opened / acquired) : 0.0);
+        stats.put("compressedRequests", compressedRequests.get());
+        stats.put("uncompressedBytes", plainBytes.get());
+        stats.put("compressedBytes", compressedBytes.get());
+        stats.put("bytesSaved", plainBytes.get() - compressedBytes.get());
+        return stats;
+    }
+
+    /**
+     * Get the statistics of every client created so far
+     */
+    public static Map<String, Map<String, Object>> getAllStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        POOLS.forEach((key, pool) -> stats.put(key, pool.getStats()));
+        return stats;
+    }
+
+    /**
+     * Counts connections opened against connections acquired by calls
+     */
+    private static final class ConnectionMetrics extends EventListener {
+        private final AtomicLong opened = new AtomicLong();
+        private final AtomicLong acquired = new AtomicLong();
+        private final AtomicLong http2Acquired = new AtomicLong();
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            opened.incrementAndGet();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            acquired.incrementAndGet();
+            if (connection.protocol() == Protocol.HTTP_2) {
+                http2Acquired.incrementAndGet();
+            }
+        }
+    }
+}
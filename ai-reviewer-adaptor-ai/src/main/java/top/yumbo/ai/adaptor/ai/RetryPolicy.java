@@ -0,0 +1,185 @@
+package top.yumbo.ai.adaptor.ai;
+
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.common.constants.Constants;
+import top.yumbo.ai.common.exception.AIServiceException;
+import top.yumbo.ai.core.limit.TokenBucketRateLimiter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.UnknownHostException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry policy for AI provider calls
+ * <p>
+ * Retries throttling (429), timeouts (408) and server errors (5xx) as well as I/O failures,
+ * up to {@code maxRetries} times. Delays grow exponentially with full jitter, a provider's
+ * {@code Retry-After} takes precedence, and no retry is started that would end past the call deadline.
+ * <p>
+ * Each attempt may take up to {@code timeoutSeconds}; the whole call, backoff included, is bounded by
+ * {@code customParams.retryDeadlineSeconds} (default {@code timeoutSeconds * (maxRetries + 1)}).
+ * <p>
+ * When the model has a rate limit ({@code requestsPerMinute}/{@code tokensPerMinute}), every retry
+ * reserves a request of the shared {@link TokenBucketRateLimiter} and waits its turn if the quota is
+ * short. Failed attempts are assumed to have used no tokens; the call's own reservation covers those.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class RetryPolicy {
+
+    public static final long DEFAULT_BASE_DELAY_MS = 500;
+    public static final long DEFAULT_MAX_DELAY_MS = 30_000;
+
+    private static final Set<Integer> RETRYABLE_STATUS = Set.of(408, 425, 429, 500, 502, 503, 504);
+
+    private final int maxRetries;
+    private final long attemptTimeoutMs;
+    private final long deadlineMs;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final TokenBucketRateLimiter rateLimiter;
+
+    public RetryPolicy(int maxRetries, long attemptTimeoutMs, long deadlineMs, long baseDelayMs, long maxDelayMs) {
+        this(maxRetries, attemptTimeoutMs, deadlineMs, baseDelayMs, maxDelayMs, null);
+    }
+
+    /**
+     * @param rateLimiter quota that retries are charged to (null = none)
+     */
+    public RetryPolicy(int maxRetries, long attemptTimeoutMs, long deadlineMs, long baseDelayMs, long maxDelayMs,
+                       TokenBucketRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.attemptTimeoutMs = attemptTimeoutMs;
+        this.deadlineMs = deadlineMs;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * Create the policy for an AI configuration
+     */
+    public static RetryPolicy from(AIConfig config) {
+        int maxRetries = config.getMaxRetries() != null ? config.getMaxRetries() : Constants.DEFAULT_MAX_RETRIES;
+        int timeoutSeconds = config.getTimeoutSeconds() != null && config.getTimeoutSeconds() > 0
+                ? config.getTimeoutSeconds()
+                : Constants.DEFAULT_TIMEOUT_SECONDS;
+        long attemptTimeoutMs = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        Map<String, Object> params = config.getCustomParams();
+        Object deadline = params != null ? params.get("retryDeadlineSeconds") : null;
+        long deadlineMs = deadline != null
+                ? TimeUnit.SECONDS.toMillis(Long.parseLong(deadline.toString()))
+                : attemptTimeoutMs * (maxRetries + 1);
+        return new RetryPolicy(maxRetries, attemptTimeoutMs, deadlineMs, DEFAULT_BASE_DELAY_MS, DEFAULT_MAX_DELAY_MS,
+                TokenBucketRateLimiter.forConfig(config));
+    }
+
+    /**
+     * Check if an HTTP status code is worth retrying
+     */
+    public boolean isRetryable(int statusCode) {
+        return RETRYABLE_STATUS.contains(statusCode);
+    }
+
+    /**
+     * Check if a failure is worth retrying
+     */
+    public boolean isRetryable(Throwable error) {
+        if (error instanceof AIServiceException serviceError && serviceError.getStatusCode() > 0) {
+            return isRetryable(serviceError.getStatusCode());
+        }
+        Throwable cause = error instanceof AIServiceException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof UnknownHostException) {
+            return false;
+        }
+        // A cancelled call is not retried, a timed out one is
+        if (cause instanceof InterruptedIOException && "Canceled".equals(cause.getMessage())) {
+            return false;
+        }
+        return cause instanceof IOException;
+    }
+
+    /**
+     * Get the delay before the next attempt, or -1 if the call must not be retried
+     * A retry is charged to the rate limit here, and waits at least as long as the limit requires.
+     *
+     * @param attempt     number of attempts made so far (1 after the first failure)
+     * @param error       failure of the last attempt
+     * @param startTimeMs start of the whole call
+     * @return delay in milliseconds, or -1 to give up
+     */
+    public long nextDelayMs(int attempt, Throwable error, long startTimeMs) {
+        if (attempt > maxRetries || !isRetryable(error)) {
+            return -1;
+        }
+        long delay;
+        long retryAfter = error instanceof AIServiceException serviceError ? serviceError.getRetryAfterMs() : -1;
+        if (retryAfter >= 0) {
+            delay = retryAfter;
+        } else {
+            // Full jitter: uniform in [0, min(max, base * 2^(attempt-1))]
+            long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+            delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        }
+        if (System.currentTimeMillis() + delay >= startTimeMs + deadlineMs) {
+            return -1;
+        }
+        if (rateLimiter != null) {
+            delay = Math.max(delay, TimeUnit.NANOSECONDS.toMillis(rateLimiter.reserve(0)));
+        }
+        return delay;
+    }
+
+    /**
+     * Get the timeout for the next attempt: the attempt timeout, capped by the time left until the deadline
+     *
+     * @return timeout in milliseconds (at least 1)
+     */
+    public long attemptTimeoutMs(long startTimeMs) {
+        long remaining = startTimeMs + deadlineMs - System.currentTimeMillis();
+        return Math.max(1, Math.min(attemptTimeoutMs, remaining));
+    }
+
+    /**
+     * Parse a Retry-After header (delta seconds or HTTP date)
+     *
+     * @return delay in milliseconds, -1 if absent or invalid
+     */
+    public static long parseRetryAfter(String header) {
+        if (header == null || header.isBlank()) {
+            return -1;
+        }
+        String value = header.trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            // Not delta seconds, try an HTTP date
+        }
+        try {
+            long at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getAttemptTimeoutMs() {
+        return attemptTimeoutMs;
+    }
+
+    public long getDeadlineMs() {
+        return deadlineMs;
+    }
+}
@@ -0,0 +1,64 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * AI21 Jurassic-2 text models
+ * <p>
+ * Responses carry the text in {@code completions[0].data.text}.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class AI21Codec extends AbstractCodec {
+
+    public AI21Codec() {
+        super("ai21");
+    }
+
+    @Override
+    public void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException {
+        generator.writeStartObject();
+        writePrompt(generator, "prompt", request.getUserMessage());
+        writeNumber(generator, "maxTokens", request.getMaxTokens());
+        writeNumber(generator, "temperature", request.getTemperature());
+        generator.writeNumberField("topP", 0.9);
+        generator.writeArrayFieldStart("stopSequences");
+        generator.writeEndArray();
+        for (String penalty : new String[]{"countPenalty", "presencePenalty", "frequencyPenalty"}) {
+            generator.writeObjectFieldStart(penalty);
+            generator.writeNumberField("scale", 0);
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    protected boolean responseField(JsonParser parser, String field, JsonToken value,
+                                    DecodedResponse response) throws IOException {
+        if (!"completions".equals(field)) {
+            return false;
+        }
+        return readFirst(parser, (completionField, completionValue) -> switch (completionField) {
+            case "data" -> readObject(parser, (dataField, dataValue) -> {
+                if (!"text".equals(dataField)) {
+                    return false;
+                }
+                response.setText(text(parser, dataValue));
+                return true;
+            });
+            case "finishReason" -> readObject(parser, (reasonField, reasonValue) -> {
+                if (!"reason".equals(reasonField)) {
+                    return false;
+                }
+                response.setStopReason(text(parser, reasonValue));
+                return true;
+            });
+            default -> false;
+        });
+    }
+}
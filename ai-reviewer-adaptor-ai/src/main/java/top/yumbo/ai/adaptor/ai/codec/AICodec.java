@@ -0,0 +1,39 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Request and response codec of one provider API or model family
+ * <p>
+ * Codecs are stateless and shared; they write requests with a streaming generator and read
+ * responses token by token, keeping only the fields the engine needs.
+ * {@link AICodecs} holds the instances and the shared encode/decode entry points.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public interface AICodec {
+
+    /**
+     * Get the codec name
+     */
+    String getName();
+
+    /**
+     * Write the request payload
+     */
+    void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException;
+
+    /**
+     * Read a complete response payload
+     */
+    DecodedResponse readResponse(JsonParser parser) throws IOException;
+
+    /**
+     * Read the payload of one stream event
+     */
+    DecodedResponse readStreamEvent(JsonParser parser) throws IOException;
+}
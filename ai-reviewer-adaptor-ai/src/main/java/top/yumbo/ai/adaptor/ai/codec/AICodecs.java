@@ -0,0 +1,175 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Codec instances and the shared encode/decode entry points
+ * <p>
+ * All adapters go through one {@link JsonFactory}, whose generator and parser buffers are
+ * recycled by Jackson. Requests encoded to a byte array are written into a per-thread buffer that is
+ * reused across calls, so only the final exact-size array is allocated.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public final class AICodecs {
+
+    public static final AICodec OPENAI_CHAT = new OpenAIChatCodec();
+    public static final AICodec ANTHROPIC_MESSAGES = new AnthropicMessagesCodec();
+    public static final AICodec ANTHROPIC_TEXT = new AnthropicTextCodec();
+    public static final AICodec TITAN = new TitanCodec();
+    public static final AICodec NOVA = new NovaCodec();
+    public static final AICodec LLAMA2 = new LlamaCodec(false);
+    public static final AICodec LLAMA3 = new LlamaCodec(true);
+    public static final AICodec MISTRAL = new MistralCodec();
+    public static final AICodec COHERE = new CohereCodec();
+    public static final AICodec AI21 = new AI21Codec();
+    public static final AICodec GENERIC = new GenericCompletionCodec();
+
+    /**
+     * Model ID markers in match order; the first marker contained in the ID selects the codec
+     */
+    private static final Map<String, AICodec> MODEL_FAMILIES = new LinkedHashMap<>();
+    private static final Map<String, AICodec> RESOLVED = new ConcurrentHashMap<>();
+
+    static {
+        // Claude 3 and later use the Messages API, older Claude models the text completions API
+        for (String marker : new String[]{"claude-3", "claude-4", "claude-sonnet", "claude-haiku", "claude-opus"}) {
+            MODEL_FAMILIES.put(marker, ANTHROPIC_MESSAGES);
+        }
+        MODEL_FAMILIES.put("anthropic.claude", ANTHROPIC_TEXT);
+        MODEL_FAMILIES.put("claude-", ANTHROPIC_TEXT);
+        MODEL_FAMILIES.put("amazon.titan", TITAN);
+        MODEL_FAMILIES.put("amazon.nova", NOVA);
+        MODEL_FAMILIES.put("meta.llama3", LLAMA3);
+        MODEL_FAMILIES.put("llama-3", LLAMA3);
+        MODEL_FAMILIES.put("meta.llama", LLAMA2);
+        MODEL_FAMILIES.put("mistral", MISTRAL);
+        MODEL_FAMILIES.put("cohere.command", COHERE);
+        MODEL_FAMILIES.put("ai21.j2", AI21);
+        // Jamba speaks the chat completions format
+        MODEL_FAMILIES.put("ai21.jamba", OPENAI_CHAT);
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    /**
+     * Buffers grown beyond this size by a large prompt are dropped instead of kept per thread
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    private static final ThreadLocal<ReusableBuffer> BUFFERS = ThreadLocal.withInitial(ReusableBuffer::new);
+
+    private AICodecs() {
+    }
+
+    /**
+     * Get the codec for a Bedrock model ID, foundation model ARN or inference profile ARN
+     * <p>
+     * The family is looked up once per model ID; later calls are a map lookup.
+     */
+    public static AICodec forModel(String modelId) {
+        return RESOLVED.computeIfAbsent(modelId, AICodecs::resolve);
+    }
+
+    private static AICodec resolve(String modelId) {
+        String id = modelId;
+        for (String arnPrefix : new String[]{"inference-profile/", "foundation-model/"}) {
+            int index = id.indexOf(arnPrefix);
+            if (index >= 0) {
+                id = id.substring(index + arnPrefix.length());
+            }
+        }
+        for (Map.Entry<String, AICodec> family : MODEL_FAMILIES.entrySet()) {
+            if (id.contains(family.getKey())) {
+                return family.getValue();
+            }
+        }
+        return GENERIC;
+    }
+
+    /**
+     * Write a request into a stream, which is left open
+     */
+    public static void write(AICodec codec, CodecRequest request, OutputStream out) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            codec.writeRequest(generator, request);
+        }
+    }
+
+    /**
+     * Encode a request as UTF-8 JSON
+     */
+    public static byte[] encode(AICodec codec, CodecRequest request) throws IOException {
+        ReusableBuffer buffer = BUFFERS.get();
+        buffer.reset();
+        try {
+            write(codec, request, buffer);
+            return buffer.toByteArray();
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                BUFFERS.remove();
+            }
+        }
+    }
+
+    /**
+     * Decode a complete response
+     */
+    public static DecodedResponse decode(AICodec codec, InputStream body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return codec.readResponse(parser);
+        }
+    }
+
+    /**
+     * Decode a complete response held in memory
+     */
+    public static DecodedResponse decode(AICodec codec, byte[] body) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            return codec.readResponse(parser);
+        }
+    }
+
+    /**
+     * Decode the payload of one stream event
+     */
+    public static DecodedResponse decodeStreamEvent(AICodec codec, byte[] payload) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            return codec.readStreamEvent(parser);
+        }
+    }
+
+    /**
+     * Decode the payload of one server-sent event
+     */
+    public static DecodedResponse decodeStreamEvent(AICodec codec, String payload) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            return codec.readStreamEvent(parser);
+        }
+    }
+
+    /**
+     * Output buffer whose backing array survives {@link #reset()}
+     */
+    private static final class ReusableBuffer extends ByteArrayOutputStream {
+        ReusableBuffer() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Base class of the codecs with the token-walking helpers
+ * <p>
+ * Subclasses handle one top-level field at a time; unhandled values are skipped without being
+ * materialized. Bedrock's {@value #INVOCATION_METRICS} block is decoded for every stream event.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public abstract class AbstractCodec implements AICodec {
+
+    protected static final String INVOCATION_METRICS = "amazon-bedrock-invocationMetrics";
+
+    /**
+     * Handles one field; the parser is positioned on the field's value
+     */
+    @FunctionalInterface
+    protected interface FieldHandler {
+        /**
+         * @return true if the value was consumed, false to skip it
+         */
+        boolean handle(String field, JsonToken value) throws IOException;
+    }
+
+    /**
+     * Handles one array element; the parser is positioned on the element
+     */
+    @FunctionalInterface
+    protected interface ElementHandler {
+        /**
+         * @return true if the element was consumed, false to skip it
+         */
+        boolean handle(int index, JsonToken value) throws IOException;
+    }
+
+    private final String name;
+
+    protected AbstractCodec(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public DecodedResponse readResponse(JsonParser parser) throws IOException {
+        DecodedResponse response = new DecodedResponse();
+        readObject(parser, (field, value) -> responseField(parser, field, value, response));
+        return response;
+    }
+
+    @Override
+    public DecodedResponse readStreamEvent(JsonParser parser) throws IOException {
+        DecodedResponse event = new DecodedResponse();
+        readObject(parser, (field, value) -> INVOCATION_METRICS.equals(field)
+                ? readObject(parser, (metric, count) -> invocationMetric(parser, metric, count, event))
+                : streamField(parser, field, value, event));
+        return event;
+    }
+
+    /**
+     * Decode a top-level field of a complete response
+     */
+    protected abstract boolean responseField(JsonParser parser, String field, JsonToken value,
+                                             DecodedResponse response) throws IOException;
+
+    /**
+     * Decode a top-level field of a stream event; by default events look like responses
+     */
+    protected boolean streamField(JsonParser parser, String field, JsonToken value,
+                                  DecodedResponse event) throws IOException {
+        return responseField(parser, field, value, event);
+    }
+
+    private static boolean invocationMetric(JsonParser parser, String field, JsonToken value,
+                                            DecodedResponse event) throws IOException {
+        switch (field) {
+            case "inputTokenCount" -> event.setInputTokens(intValue(parser, value));
+            case "outputTokenCount" -> event.setOutputTokens(intValue(parser, value));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walk the fields of an object; the parser is positioned on (or before) its start
+     *
+     * @return true once the object has been consumed, or false if the value is not an object
+     */
+    protected static boolean readObject(JsonParser parser, FieldHandler handler) throws IOException {
+        JsonToken current = parser.currentToken();
+        JsonToken token = current != null ? current : parser.nextToken();
+        if (token != JsonToken.START_OBJECT) {
+            // Nested values are always read from their token; no token yet means the payload itself
+            if (current == null) {
+                throw new IOException("Unexpected payload: JSON object expected");
+            }
+            return false;
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!handler.handle(field, value)) {
+                parser.skipChildren();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walk the elements of an array; the parser is positioned on its start
+     *
+     * @return true once the array has been consumed, or false if the value is not an array
+     */
+    protected static boolean readArray(JsonParser parser, ElementHandler handler) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return false;
+        }
+        int index = 0;
+        JsonToken value;
+        while ((value = parser.nextToken()) != JsonToken.END_ARRAY && value != null) {
+            if (!handler.handle(index++, value)) {
+                parser.skipChildren();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walk the first element of an array and skip the others
+     */
+    protected static boolean readFirst(JsonParser parser, FieldHandler handler) throws IOException {
+        return readArray(parser, (index, value) -> index == 0 && readObject(parser, handler));
+    }
+
+    /**
+     * Get a string value, or null for any other token
+     */
+    protected static String text(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+    }
+
+    /**
+     * Get an integer value, or null for any other token
+     */
+    protected static Integer intValue(JsonParser parser, JsonToken value) throws IOException {
+        return value == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : null;
+    }
+
+    protected static void writeNumber(JsonGenerator generator, String field, Integer value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    protected static void writeNumber(JsonGenerator generator, String field, Double value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    /**
+     * Write a field holding the user message
+     */
+    protected static void writePrompt(JsonGenerator generator, String field, PromptText prompt) throws IOException {
+        generator.writeFieldName(field);
+        prompt.writeTo(generator);
+    }
+
+    /**
+     * Write a {@code {"role": role, "content": text}} message
+     */
+    protected static void writeMessage(JsonGenerator generator, String role, PromptText content) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("role", role);
+        writePrompt(generator, "content", content);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Write message content as text blocks: the static prompt prefix in its own block marked with an
+     * ephemeral {@code cache_control} breakpoint, then the file content and the rest of the template
+     */
+    protected static void writeCacheableContent(JsonGenerator generator, String field, PromptText prompt)
+            throws IOException {
+        PromptText prefix = prompt.staticPrefix();
+        PromptText rest = prompt.dynamicPart();
+        generator.writeArrayFieldStart(field);
+        if (prefix.length() > 0) {
+            writeTextBlock(generator, prefix, true);
+        }
+        // Empty text blocks are rejected
+        if (rest.length() > 0 || prefix.length() == 0) {
+            writeTextBlock(generator, rest, false);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Write a {@code {"type": "text", "text": text}} block, optionally with a cache breakpoint
+     */
+    protected static void writeTextBlock(JsonGenerator generator, PromptText text, boolean cacheable)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "text");
+        writePrompt(generator, "text", text);
+        if (cacheable) {
+            generator.writeObjectFieldStart("cache_control");
+            generator.writeStringField("type", "ephemeral");
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+}
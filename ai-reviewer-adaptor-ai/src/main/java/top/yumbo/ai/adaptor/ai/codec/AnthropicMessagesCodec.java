@@ -0,0 +1,119 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Anthropic Messages API as served by Bedrock (Claude 3 and later)
+ * <p>
+ * Responses join the {@code text} of all content blocks; stream events carry text in
+ * {@code delta.text}, the input usage in {@code message_start} and the output usage and stop reason
+ * in {@code message_delta}.
+ * <p>
+ * With prompt caching the system prompt and the static prefix of the user message get cache
+ * breakpoints, and the file content is sent last; cache reads and writes are reported in the usage.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class AnthropicMessagesCodec extends AbstractCodec {
+
+    public static final String BEDROCK_ANTHROPIC_VERSION = "bedrock-2023-05-31";
+
+    public AnthropicMessagesCodec() {
+        super("anthropic-messages");
+    }
+
+    @Override
+    public void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("anthropic_version", BEDROCK_ANTHROPIC_VERSION);
+        writeNumber(generator, "max_tokens", request.getMaxTokens());
+        writeNumber(generator, "temperature", request.getTemperature());
+        if (request.getSystemPrompt() != null) {
+            if (request.isPromptCaching()) {
+                generator.writeArrayFieldStart("system");
+                writeTextBlock(generator, PromptText.ofStatic(request.getSystemPrompt()), true);
+                generator.writeEndArray();
+            } else {
+                generator.writeStringField("system", request.getSystemPrompt());
+            }
+        }
+        generator.writeArrayFieldStart("messages");
+        if (request.isPromptCaching()) {
+            generator.writeStartObject();
+            generator.writeStringField("role", "user");
+            writeCacheableContent(generator, "content", request.getUserMessage());
+            generator.writeEndObject();
+        } else {
+            writeMessage(generator, "user", request.getUserMessage());
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    @Override
+    protected boolean responseField(JsonParser parser, String field, JsonToken value,
+                                    DecodedResponse response) throws IOException {
+        switch (field) {
+            case "content":
+                return readArray(parser, (index, block) -> readObject(parser, (blockField, blockValue) -> {
+                    if (!"text".equals(blockField)) {
+                        return false;
+                    }
+                    response.appendText(text(parser, blockValue));
+                    return true;
+                }));
+            case "stop_reason":
+                response.setStopReason(text(parser, value));
+                return true;
+            case "usage":
+                return readUsage(parser, response);
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    protected boolean streamField(JsonParser parser, String field, JsonToken value,
+                                  DecodedResponse event) throws IOException {
+        switch (field) {
+            case "delta":
+                return readObject(parser, (deltaField, deltaValue) -> {
+                    switch (deltaField) {
+                        case "text" -> event.setText(text(parser, deltaValue));
+                        case "stop_reason" -> event.setStopReason(text(parser, deltaValue));
+                        default -> {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            case "message":
+                return readObject(parser, (messageField, messageValue) ->
+                        "usage".equals(messageField) && readUsage(parser, event));
+            case "usage":
+                return readUsage(parser, event);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean readUsage(JsonParser parser, DecodedResponse response) throws IOException {
+        return readObject(parser, (field, count) -> {
+            switch (field) {
+                case "input_tokens" -> response.setInputTokens(intValue(parser, count));
+                case "output_tokens" -> response.setOutputTokens(intValue(parser, count));
+                case "cache_creation_input_tokens" -> response.setCacheCreationInputTokens(intValue(parser, count));
+                case "cache_read_input_tokens" -> response.setCacheReadInputTokens(intValue(parser, count));
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
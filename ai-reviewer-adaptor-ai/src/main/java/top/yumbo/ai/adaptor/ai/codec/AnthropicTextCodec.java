@@ -0,0 +1,50 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Anthropic text completions API (Claude 2 and earlier on Bedrock)
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class AnthropicTextCodec extends AbstractCodec {
+
+    private static final String HUMAN_TURN = "\n\nHuman: ";
+    private static final String ASSISTANT_TURN = "\n\nAssistant:";
+    private static final String STOP_SEQUENCE = "\n\nHuman:";
+
+    public AnthropicTextCodec() {
+        super("anthropic-text");
+    }
+
+    @Override
+    public void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException {
+        generator.writeStartObject();
+        writePrompt(generator, "prompt", request.getUserMessage().wrap(HUMAN_TURN, ASSISTANT_TURN));
+        writeNumber(generator, "max_tokens_to_sample", request.getMaxTokens());
+        writeNumber(generator, "temperature", request.getTemperature());
+        generator.writeNumberField("top_p", 0.9);
+        generator.writeArrayFieldStart("stop_sequences");
+        generator.writeString(STOP_SEQUENCE);
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    @Override
+    protected boolean responseField(JsonParser parser, String field, JsonToken value,
+                                    DecodedResponse response) throws IOException {
+        switch (field) {
+            case "completion" -> response.setText(text(parser, value));
+            case "stop_reason" -> response.setStopReason(text(parser, value));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,69 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import lombok.Builder;
+import lombok.Data;
+import top.yumbo.ai.api.model.AIConfig;
+
+/**
+ * Provider-neutral request written by an {@link AICodec}
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Data
+@Builder
+public class CodecRequest {
+
+    /**
+     * {@code AIConfig.customParams} key enabling prompt caching hints
+     */
+    public static final String PROMPT_CACHING_PARAM = "promptCaching";
+
+    private String model;
+
+    private Double temperature;
+
+    private Integer maxTokens;
+
+    /**
+     * System prompt, null if the request has none
+     */
+    private String systemPrompt;
+
+    private PromptText userMessage;
+
+    /**
+     * Request a streamed response
+     */
+    private boolean stream;
+
+    /**
+     * Mark the system prompt and the static prompt prefix as cacheable
+     */
+    private boolean promptCaching;
+
+    /**
+     * Build a request from an AI configuration
+     */
+    public static CodecRequest of(AIConfig config, String systemPrompt, PromptText userMessage, boolean stream) {
+        return CodecRequest.builder()
+                .model(config.getModel())
+                .temperature(config.getTemperature())
+                .maxTokens(config.getMaxTokens())
+                .systemPrompt(systemPrompt)
+                .userMessage(userMessage)
+                .stream(stream)
+                .promptCaching(isPromptCaching(config, false))
+                .build();
+    }
+
+    /**
+     * Check whether prompt caching is enabled by {@value #PROMPT_CACHING_PARAM}
+     *
+     * @param defaultValue value when the parameter is not set
+     */
+    public static boolean isPromptCaching(AIConfig config, boolean defaultValue) {
+        Object value = config.getCustomParams() != null ? config.getCustomParams().get(PROMPT_CACHING_PARAM) : null;
+        return value != null ? Boolean.parseBoolean(value.toString()) : defaultValue;
+    }
+}
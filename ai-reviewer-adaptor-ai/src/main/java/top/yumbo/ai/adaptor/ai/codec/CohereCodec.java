@@ -0,0 +1,63 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Cohere Command text models
+ * <p>
+ * Responses carry the text in {@code generations[0]}; stream events carry {@code text} and
+ * {@code finish_reason} at the top level. Streaming must be requested in the body.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class CohereCodec extends AbstractCodec {
+
+    public CohereCodec() {
+        super("cohere");
+    }
+
+    @Override
+    public void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException {
+        generator.writeStartObject();
+        writePrompt(generator, "prompt", request.getUserMessage());
+        writeNumber(generator, "max_tokens", request.getMaxTokens());
+        writeNumber(generator, "temperature", request.getTemperature());
+        generator.writeNumberField("p", 0.9);
+        generator.writeNumberField("k", 0);
+        generator.writeStringField("return_likelihoods", "NONE");
+        if (request.isStream()) {
+            generator.writeBooleanField("stream", true);
+        }
+        generator.writeEndObject();
+    }
+
+    @Override
+    protected boolean responseField(JsonParser parser, String field, JsonToken value,
+                                    DecodedResponse response) throws IOException {
+        if (!"generations".equals(field)) {
+            return false;
+        }
+        return readFirst(parser, (generationField, generationValue) -> streamField(parser, generationField, generationValue, response));
+    }
+
+    @Override
+    protected boolean streamField(JsonParser parser, String field, JsonToken value,
+                                  DecodedResponse event) throws IOException {
+        switch (field) {
+            case "text" -> event.setText(text(parser, value));
+            case "finish_reason" -> event.setStopReason(text(parser, value));
+            case "generations" -> {
+                return responseField(parser, field, value, event);
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+}
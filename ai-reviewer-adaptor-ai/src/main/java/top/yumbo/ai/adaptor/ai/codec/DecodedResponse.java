@@ -0,0 +1,81 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import lombok.Data;
+import top.yumbo.ai.api.model.AIResponse;
+
+/**
+ * Fields decoded from a provider response or from one stream event
+ * <p>
+ * Every field is null when the payload does not carry it.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Data
+public class DecodedResponse {
+
+    /**
+     * Generated text, or the text delta of a stream event
+     */
+    private String text;
+
+    private String stopReason;
+
+    private Integer promptTokens;
+
+    private Integer completionTokens;
+
+    private Integer totalTokens;
+
+    private Integer inputTokens;
+
+    private Integer outputTokens;
+
+    private Integer cacheCreationInputTokens;
+
+    private Integer cacheReadInputTokens;
+
+    /**
+     * Append text of a further content block, separated by a newline
+     */
+    public void appendText(String more) {
+        if (more == null) {
+            return;
+        }
+        text = text == null ? more : text + "\n" + more;
+    }
+
+    /**
+     * Take over the token counts this payload carries
+     */
+    public void mergeUsage(DecodedResponse other) {
+        promptTokens = other.promptTokens != null ? other.promptTokens : promptTokens;
+        completionTokens = other.completionTokens != null ? other.completionTokens : completionTokens;
+        totalTokens = other.totalTokens != null ? other.totalTokens : totalTokens;
+        inputTokens = other.inputTokens != null ? other.inputTokens : inputTokens;
+        outputTokens = other.outputTokens != null ? other.outputTokens : outputTokens;
+        cacheCreationInputTokens = other.cacheCreationInputTokens != null
+                ? other.cacheCreationInputTokens : cacheCreationInputTokens;
+        cacheReadInputTokens = other.cacheReadInputTokens != null ? other.cacheReadInputTokens : cacheReadInputTokens;
+    }
+
+    /**
+     * Get the token usage, or null if no count was decoded
+     */
+    public AIResponse.TokenUsage toTokenUsage() {
+        if (promptTokens == null && completionTokens == null && totalTokens == null
+                && inputTokens == null && outputTokens == null
+                && cacheCreationInputTokens == null && cacheReadInputTokens == null) {
+            return null;
+        }
+        return AIResponse.TokenUsage.builder()
+                .promptTokens(promptTokens)
+                .completionTokens(completionTokens)
+                .totalTokens(totalTokens)
+                .inputTokens(inputTokens)
+                .outputTokens(outputTokens)
+                .cacheCreationInputTokens(cacheCreationInputTokens)
+                .cacheRInputTokens(cacheReadInputTokens)
+                .build();
+    }
+}
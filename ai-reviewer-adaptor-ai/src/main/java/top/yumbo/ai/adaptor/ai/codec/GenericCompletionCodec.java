@@ -0,0 +1,48 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Fallback for unknown models: a plain prompt request, and the text taken from whichever of the
+ * common completion fields the response has
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class GenericCompletionCodec extends AbstractCodec {
+
+    public GenericCompletionCodec() {
+        super("generic");
+    }
+
+    @Override
+    public void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException {
+        generator.writeStartObject();
+        writePrompt(generator, "prompt", request.getUserMessage());
+        writeNumber(generator, "max_tokens", request.getMaxTokens());
+        writeNumber(generator, "temperature", request.getTemperature());
+        generator.writeNumberField("top_p", 0.9);
+        generator.writeEndObject();
+    }
+
+    @Override
+    protected boolean responseField(JsonParser parser, String field, JsonToken value,
+                                    DecodedResponse response) throws IOException {
+        switch (field) {
+            case "completion", "generation", "outputText", "text" -> response.setText(text(parser, value));
+            case "stop_reason", "stopReason", "finish_reason", "completionReason" ->
+                    response.setStopReason(text(parser, value));
+            case "outputs", "generations", "results" -> {
+                return readFirst(parser, (itemField, itemValue) -> responseField(parser, itemField, itemValue, response));
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,59 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Meta Llama models
+ * <p>
+ * Llama 3 and later get the prompt wrapped in their chat template; responses and stream events
+ * carry {@code generation} and the token counts at the top level.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class LlamaCodec extends AbstractCodec {
+
+    private static final String LLAMA3_USER_TURN = "<|begin_of_text|><|start_header_id|>user<|end_header_id|>\n\n";
+    private static final String LLAMA3_ASSISTANT_TURN = "<|eot_id|><|start_header_id|>assistant<|end_header_id|>\n\n";
+
+    private final boolean chatTemplate;
+
+    /**
+     * @param chatTemplate wrap the prompt in the Llama 3 chat template
+     */
+    public LlamaCodec(boolean chatTemplate) {
+        super(chatTemplate ? "llama3" : "llama2");
+        this.chatTemplate = chatTemplate;
+    }
+
+    @Override
+    public void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException {
+        generator.writeStartObject();
+        writePrompt(generator, "prompt", chatTemplate
+                ? request.getUserMessage().wrap(LLAMA3_USER_TURN, LLAMA3_ASSISTANT_TURN)
+                : request.getUserMessage());
+        writeNumber(generator, "max_gen_len", request.getMaxTokens());
+        writeNumber(generator, "temperature", request.getTemperature());
+        generator.writeNumberField("top_p", 0.9);
+        generator.writeEndObject();
+    }
+
+    @Override
+    protected boolean responseField(JsonParser parser, String field, JsonToken value,
+                                    DecodedResponse response) throws IOException {
+        switch (field) {
+            case "generation" -> response.setText(text(parser, value));
+            case "stop_reason" -> response.setStopReason(text(parser, value));
+            case "prompt_token_count" -> response.setInputTokens(intValue(parser, value));
+            case "generation_token_count" -> response.setOutputTokens(intValue(parser, value));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Mistral AI text models
+ * <p>
+ * Responses and stream events carry the text in {@code outputs[0]}.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class MistralCodec extends AbstractCodec {
+
+    public MistralCodec() {
+        super("mistral");
+    }
+
+    @Override
+    public void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException {
+        generator.writeStartObject();
+        writePrompt(generator, "prompt", request.getUserMessage().wrap("<s>[INST] ", " [/INST]"));
+        writeNumber(generator, "max_tokens", request.getMaxTokens());
+        writeNumber(generator, "temperature", request.getTemperature());
+        generator.writeNumberField("top_p", 0.9);
+        generator.writeNumberField("top_k", 50);
+        generator.writeEndObject();
+    }
+
+    @Override
+    protected boolean responseField(JsonParser parser, String field, JsonToken value,
+                                    DecodedResponse response) throws IOException {
+        if (!"outputs".equals(field)) {
+            return false;
+        }
+        return readFirst(parser, (outputField, outputValue) -> {
+            switch (outputField) {
+                case "text" -> response.setText(text(parser, outputValue));
+                case "stop_reason" -> response.setStopReason(text(parser, outputValue));
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
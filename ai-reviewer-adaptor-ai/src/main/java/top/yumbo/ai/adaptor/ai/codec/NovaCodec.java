@@ -0,0 +1,121 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Amazon Nova models (messages-v1 schema)
+ * <p>
+ * Responses carry the text in {@code output.message.content}; stream events carry
+ * {@code contentBlockDelta}, {@code messageStop} and {@code metadata.usage}.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class NovaCodec extends AbstractCodec {
+
+    public NovaCodec() {
+        super("nova");
+    }
+
+    @Override
+    public void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("schemaVersion", "messages-v1");
+        if (request.getSystemPrompt() != null) {
+            generator.writeArrayFieldStart("system");
+            generator.writeStartObject();
+            generator.writeStringField("text", request.getSystemPrompt());
+            generator.writeEndObject();
+            generator.writeEndArray();
+        }
+        generator.writeArrayFieldStart("messages");
+        generator.writeStartObject();
+        generator.writeStringField("role", "user");
+        generator.writeArrayFieldStart("content");
+        generator.writeStartObject();
+        writePrompt(generator, "text", request.getUserMessage());
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeObjectFieldStart("inferenceConfig");
+        writeNumber(generator, "max_new_tokens", request.getMaxTokens());
+        writeNumber(generator, "temperature", request.getTemperature());
+        generator.writeNumberField("top_p", 0.9);
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    @Override
+    protected boolean responseField(JsonParser parser, String field, JsonToken value,
+                                    DecodedResponse response) throws IOException {
+        switch (field) {
+            case "output":
+                return readObject(parser, (outputField, outputValue) -> "message".equals(outputField)
+                        && readObject(parser, (messageField, messageValue) -> "content".equals(messageField)
+                        && readArray(parser, (index, block) -> readObject(parser, (blockField, blockValue) -> {
+                    if (!"text".equals(blockField)) {
+                        return false;
+                    }
+                    response.appendText(text(parser, blockValue));
+                    return true;
+                }))));
+            case "stopReason":
+                response.setStopReason(text(parser, value));
+                return true;
+            case "usage":
+                return readUsage(parser, response);
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    protected boolean streamField(JsonParser parser, String field, JsonToken value,
+                                  DecodedResponse event) throws IOException {
+        switch (field) {
+            case "contentBlockDelta":
+                return readObject(parser, (blockField, blockValue) -> "delta".equals(blockField)
+                        && readObject(parser, (deltaField, deltaValue) -> {
+                    if (!"text".equals(deltaField)) {
+                        return false;
+                    }
+                    event.setText(text(parser, deltaValue));
+                    return true;
+                }));
+            case "messageStop":
+                return readObject(parser, (stopField, stopValue) -> {
+                    if (!"stopReason".equals(stopField)) {
+                        return false;
+                    }
+                    event.setStopReason(text(parser, stopValue));
+                    return true;
+                });
+            case "metadata":
+                return readObject(parser, (metadataField, metadataValue) ->
+                        "usage".equals(metadataField) && readUsage(parser, event));
+            default:
+                return false;
+        }
+    }
+
+    private static boolean readUsage(JsonParser parser, DecodedResponse response) throws IOException {
+        return readObject(parser, (field, count) -> {
+            switch (field) {
+                case "inputTokens" -> response.setInputTokens(intValue(parser, count));
+                case "outputTokens" -> response.setOutputTokens(intValue(parser, count));
+                case "totalTokens" -> response.setTotalTokens(intValue(parser, count));
+                case "cacheWriteInputTokenCount" -> response.setCacheCreationInputTokens(intValue(parser, count));
+                case "cacheReadInputTokenCount" -> response.setCacheReadInputTokens(intValue(parser, count));
+                default -> {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+}
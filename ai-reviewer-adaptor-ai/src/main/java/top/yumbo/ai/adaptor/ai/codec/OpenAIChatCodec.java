@@ -0,0 +1,114 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * OpenAI chat completions API, also spoken by most OpenAI-compatible providers and gateways
+ * <p>
+ * Only the first choice is decoded; stream events carry it as {@code delta}, and with
+ * {@code stream_options.include_usage} the last event carries the usage of the whole call.
+ * <p>
+ * OpenAI caches long prompt prefixes automatically and reports hits in
+ * {@code usage.prompt_tokens_details.cached_tokens}. With prompt caching enabled the system prompt and
+ * the static prefix of the user message are also sent as content parts with {@code cache_control}
+ * breakpoints, for gateways that forward to providers needing explicit hints.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class OpenAIChatCodec extends AbstractCodec {
+
+    public OpenAIChatCodec() {
+        super("openai-chat");
+    }
+
+    @Override
+    public void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException {
+        generator.writeStartObject();
+        if (request.getModel() != null) {
+            generator.writeStringField("model", request.getModel());
+        }
+        writeNumber(generator, "temperature", request.getTemperature());
+        writeNumber(generator, "max_tokens", request.getMaxTokens());
+        if (request.isStream()) {
+            generator.writeBooleanField("stream", true);
+            generator.writeObjectFieldStart("stream_options");
+            generator.writeBooleanField("include_usage", true);
+            generator.writeEndObject();
+        }
+        generator.writeArrayFieldStart("messages");
+        if (request.isPromptCaching()) {
+            if (request.getSystemPrompt() != null) {
+                generator.writeStartObject();
+                generator.writeStringField("role", "system");
+                generator.writeArrayFieldStart("content");
+                writeTextBlock(generator, PromptText.ofStatic(request.getSystemPrompt()), true);
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+            generator.writeStartObject();
+            generator.writeStringField("role", "user");
+            writeCacheableContent(generator, "content", request.getUserMessage());
+            generator.writeEndObject();
+        } else {
+            if (request.getSystemPrompt() != null) {
+                writeMessage(generator, "system", PromptText.of(request.getSystemPrompt()));
+            }
+            writeMessage(generator, "user", request.getUserMessage());
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    @Override
+    protected boolean responseField(JsonParser parser, String field, JsonToken value,
+                                    DecodedResponse response) throws IOException {
+        switch (field) {
+            case "choices":
+                return readFirst(parser, (choiceField, choiceValue) -> switch (choiceField) {
+                    case "message", "delta" -> readObject(parser, (messageField, messageValue) -> {
+                        if (!"content".equals(messageField)) {
+                            return false;
+                        }
+                        response.setText(text(parser, messageValue));
+                        return true;
+                    });
+                    case "finish_reason" -> {
+                        response.setStopReason(text(parser, choiceValue));
+                        yield true;
+                    }
+                    default -> false;
+                });
+            case "usage":
+                return readObject(parser, (usageField, count) -> {
+                    switch (usageField) {
+                        case "prompt_tokens" -> response.setPromptTokens(intValue(parser, count));
+                        case "completion_tokens" -> response.setCompletionTokens(intValue(parser, count));
+                        case "total_tokens" -> response.setTotalTokens(intValue(parser, count));
+                        case "prompt_tokens_details" -> {
+                            return readObject(parser, (detailField, detailCount) -> {
+                                if (!"cached_tokens".equals(detailField)) {
+                                    return false;
+                                }
+                                response.setCacheReadInputTokens(intValue(parser, detailCount));
+                                return true;
+                            });
+                        }
+                        // Reported by gateways in front of Anthropic models
+                        case "cache_read_input_tokens" -> response.setCacheReadInputTokens(intValue(parser, count));
+                        case "cache_creation_input_tokens" -> response.setCacheCreationInputTokens(intValue(parser, count));
+                        default -> {
+                            return false;
+                        }
+                    }
+                    return true;
+                });
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import top.yumbo.ai.api.model.FileMetadata;
+import top.yumbo.ai.api.model.PreProcessedData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * User prompt template compiled once into literal and placeholder segments
+ * <p>
+ * Templates name their placeholders as {@code {{name}}}:
+ * <ul>
+ *     <li>{@code {{content}}}: the file content</li>
+ *     <li>{@code {{path}}}: the file path</li>
+ *     <li>{@code {{language}}}: the language set by the parser, else the file type</li>
+ *     <li>{@code {{astInfo}}}: one {@code key: value} line per entry of the parser's AST information</li>
+ *     <li>any other name: the {@code PreProcessedData.context} entry of that name, empty if missing</li>
+ * </ul>
+ * Templates without named placeholders keep the {@link String#format} convention: the first {@code %s}
+ * is the content, {@code %%} and {@code %n} are unescaped at compile time, and templates using other
+ * format specifiers are still formatted on every call.
+ * <p>
+ * Rendering only resolves the placeholder values; the segments become the parts of a {@link PromptText},
+ * which streams them into the request writer. The literals before the first placeholder form the
+ * cacheable static prefix, so per-file placeholders are best placed after the shared instructions.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public final class PromptTemplate {
+
+    public static final String CONTENT = "content";
+    public static final String PATH = "path";
+    public static final String LANGUAGE = "language";
+    public static final String AST_INFO = "astInfo";
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+    private static final PromptTemplate CONTENT_ONLY = new PromptTemplate(new String[]{null}, new String[]{CONTENT}, null);
+
+    /**
+     * Literal text per segment, null for placeholders
+     */
+    private final String[] literals;
+    /**
+     * Placeholder name per segment, null for literals
+     */
+    private final String[] placeholders;
+    /**
+     * Template that needs {@link String#format} on every call, null if compiled into segments
+     */
+    private final String formatTemplate;
+
+    private PromptTemplate(String[] literals, String[] placeholders, String formatTemplate) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.formatTemplate = formatTemplate;
+    }
+
+    /**
+     * Compile a template; callers keep the result, typically per adapter configuration
+     * A null template renders the content alone.
+     */
+    public static PromptTemplate compile(String template) {
+        if (template == null) {
+            return CONTENT_ONLY;
+        }
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        if (template.contains(OPEN)) {
+            int from = 0;
+            int open;
+            while ((open = template.indexOf(OPEN, from)) >= 0) {
+                int close = template.indexOf(CLOSE, open + OPEN.length());
+                if (close < 0) {
+                    break;
+                }
+                addLiteral(literals, placeholders, template.substring(from, open));
+                literals.add(null);
+                placeholders.add(template.substring(open + OPEN.length(), close).trim());
+                from = close + CLOSE.length();
+            }
+            addLiteral(literals, placeholders, template.substring(from));
+        } else {
+            int split = findFormatPlaceholder(template);
+            if (split == -2) {
+                return new PromptTemplate(null, null, template);
+            }
+            if (split < 0) {
+                addLiteral(literals, placeholders, unescape(template));
+            } else {
+                addLiteral(literals, placeholders, unescape(template.substring(0, split)));
+                literals.add(null);
+                placeholders.add(CONTENT);
+                addLiteral(literals, placeholders, unescape(template.substring(split + 2)));
+            }
+        }
+        return new PromptTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]), null);
+    }
+
+    private static void addLiteral(List<String> literals, List<String> placeholders, String text) {
+        if (!text.isEmpty()) {
+            literals.add(text);
+            placeholders.add(null);
+        }
+    }
+
+    /**
+     * Render the prompt for a file
+     */
+    public PromptText render(PreProcessedData data) {
+        if (formatTemplate != null) {
+            return PromptText.of(String.format(formatTemplate, content(data)));
+        }
+        String[] parts = new String[literals.length];
+        int dynamicFrom = parts.length;
+        for (int i = 0; i < parts.length; i++) {
+            if (literals[i] != null) {
+                parts[i] = literals[i];
+            } else {
+                parts[i] = resolve(placeholders[i], data);
+                dynamicFrom = Math.min(dynamicFrom, i);
+            }
+        }
+        return PromptText.ofParts(dynamicFrom, parts);
+    }
+
+    private static String resolve(String name, PreProcessedData data) {
+        Map<String, Object> context = data.getContext();
+        FileMetadata metadata = data.getMetadata();
+        return switch (name) {
+            case CONTENT -> content(data);
+            case PATH -> metadata == null ? ""
+                    : metadata.getFilePath() != null ? metadata.getFilePath().toString()
+                    : metadata.getFileName() != null ? metadata.getFileName() : "";
+            case LANGUAGE -> context != null && context.get(LANGUAGE) != null ? context.get(LANGUAGE).toString()
+                    : metadata != null && metadata.getFileType() != null ? metadata.getFileType() : "";
+            case AST_INFO -> context != null ? summarize(context.get(AST_INFO)) : "";
+            default -> context != null && context.get(name) != null ? context.get(name).toString() : "";
+        };
+    }
+
+    private static String content(PreProcessedData data) {
+        return data.getContent() != null ? data.getContent() : "";
+    }
+
+    /**
+     * Summarize AST information as {@code key: value} lines, collections as comma-separated items
+     */
+    private static String summarize(Object astInfo) {
+        if (!(astInfo instanceof Map<?, ?> entries)) {
+            return astInfo != null ? astInfo.toString() : "";
+        }
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<?, ?> entry : entries.entrySet()) {
+            if (summary.length() > 0) {
+                summary.append('\n');
+            }
+            summary.append(entry.getKey()).append(": ");
+            if (entry.getValue() instanceof Collection<?> items) {
+                int index = 0;
+                for (Object item : items) {
+                    summary.append(index++ > 0 ? ", " : "").append(item);
+                }
+            } else {
+                summary.append(entry.getValue());
+            }
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Find the first {@code %s} of a format template
+     *
+     * @return index of the placeholder, -1 if there is none, -2 if the template needs {@link String#format}
+     */
+    private static int findFormatPlaceholder(String template) {
+        int placeholder = -1;
+        for (int i = template.indexOf('%'); i >= 0; i = template.indexOf('%', i + 2)) {
+            char next = i + 1 < template.length() ? template.charAt(i + 1) : 0;
+            if (next == 's') {
+                if (placeholder >= 0) {
+                    return -2;
+                }
+                placeholder = i;
+            } else if (next != '%' && next != 'n') {
+                return -2;
+            }
+        }
+        return placeholder;
+    }
+
+    private static String unescape(String templatePart) {
+        if (templatePart.indexOf('%') < 0) {
+            return templatePart;
+        }
+        return templatePart.replace("%n", System.lineSeparator()).replace("%%", "%");
+    }
+}
@@ -0,0 +1,142 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * Prompt text made of several parts that are never concatenated
+ * <p>
+ * The parts (template text, file content, model-specific wrappers) are written as one JSON string
+ * through a {@link Reader}, so the full prompt only ever exists as escaped UTF-8 in the output.
+ * <p>
+ * The parts before the file content are static: they are the same for every file, so codecs can
+ * send them as a separate, cacheable block ({@link #staticPrefix()}, {@link #dynamicPart()}).
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public final class PromptText {
+
+    private final String[] parts;
+    /**
+     * Index of the first part that varies per file
+     */
+    private final int dynamicFrom;
+
+    private PromptText(int dynamicFrom, String... parts) {
+        this.parts = parts;
+        this.dynamicFrom = dynamicFrom;
+    }
+
+    /**
+     * Text of a single string, treated as varying per file
+     */
+    public static PromptText of(String text) {
+        return new PromptText(0, text != null ? text : "");
+    }
+
+    /**
+     * Text of a single string that is the same for every file
+     */
+    public static PromptText ofStatic(String text) {
+        return new PromptText(1, text != null ? text : "");
+    }
+
+    /**
+     * Text of several parts, of which those from {@code dynamicFrom} on vary per file
+     */
+    static PromptText ofParts(int dynamicFrom, String... parts) {
+        return new PromptText(dynamicFrom, parts);
+    }
+
+    /**
+     * Surround the text, e.g. with a model's instruction markers
+     */
+    public PromptText wrap(String before, String after) {
+        String[] wrapped = new String[parts.length + 2];
+        wrapped[0] = before;
+        System.arraycopy(parts, 0, wrapped, 1, parts.length);
+        wrapped[wrapped.length - 1] = after;
+        return new PromptText(dynamicFrom < parts.length ? dynamicFrom + 1 : wrapped.length, wrapped);
+    }
+
+    /**
+     * Get the leading parts that are the same for every file
+     */
+    public PromptText staticPrefix() {
+        return new PromptText(dynamicFrom, Arrays.copyOfRange(parts, 0, dynamicFrom));
+    }
+
+    /**
+     * Get the parts from the file content on
+     */
+    public PromptText dynamicPart() {
+        return new PromptText(0, Arrays.copyOfRange(parts, dynamicFrom, parts.length));
+    }
+
+    /**
+     * Write the text as a JSON string value, escaped and encoded chunk by chunk
+     */
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeString(reader(), -1);
+    }
+
+    /**
+     * Get a reader over all parts in order
+     */
+    public Reader reader() {
+        return new SplicingReader(parts);
+    }
+
+    /**
+     * Get the length in characters
+     */
+    public long length() {
+        long length = 0;
+        for (String part : parts) {
+            length += part.length();
+        }
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return String.join("", Arrays.asList(parts));
+    }
+
+    /**
+     * Reader over several strings in sequence, without concatenating them
+     */
+    private static final class SplicingReader extends Reader {
+        private final Reader[] parts;
+        private int current;
+
+        SplicingReader(String... parts) {
+            this.parts = new Reader[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                this.parts[i] = new StringReader(parts[i]);
+            }
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            while (current < parts.length) {
+                int read = parts[current].read(buffer, offset, length);
+                if (read > 0) {
+                    return read;
+                }
+                current++;
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release
+        }
+    }
+}
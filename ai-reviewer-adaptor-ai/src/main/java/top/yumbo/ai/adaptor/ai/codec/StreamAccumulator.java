@@ -0,0 +1,47 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+/**
+ * Collects the decoded events of a streamed response
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class StreamAccumulator {
+
+    private final StringBuilder content = new StringBuilder();
+    private final DecodedResponse usage = new DecodedResponse();
+    private String stopReason;
+
+    /**
+     * Add one decoded event
+     *
+     * @return the event's text delta, or null if it carries none
+     */
+    public String accept(DecodedResponse event) {
+        if (event.getStopReason() != null) {
+            stopReason = event.getStopReason();
+        }
+        usage.mergeUsage(event);
+        String text = event.getText();
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        content.append(text);
+        return text;
+    }
+
+    public String getContent() {
+        return content.toString();
+    }
+
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * Get the usage reported across all events
+     */
+    public DecodedResponse getUsage() {
+        return usage;
+    }
+}
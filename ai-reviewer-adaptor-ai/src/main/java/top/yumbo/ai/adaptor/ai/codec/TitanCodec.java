@@ -0,0 +1,64 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Amazon Titan text models
+ * <p>
+ * Responses carry the text in {@code results[0]}; stream events carry {@code outputText} and the
+ * token counts at the top level.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class TitanCodec extends AbstractCodec {
+
+    public TitanCodec() {
+        super("titan");
+    }
+
+    @Override
+    public void writeRequest(JsonGenerator generator, CodecRequest request) throws IOException {
+        generator.writeStartObject();
+        writePrompt(generator, "inputText", request.getUserMessage());
+        generator.writeObjectFieldStart("textGenerationConfig");
+        writeNumber(generator, "maxTokenCount", request.getMaxTokens());
+        writeNumber(generator, "temperature", request.getTemperature());
+        generator.writeNumberField("topP", 0.9);
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+
+    @Override
+    protected boolean responseField(JsonParser parser, String field, JsonToken value,
+                                    DecodedResponse response) throws IOException {
+        switch (field) {
+            case "inputTextTokenCount":
+                response.setInputTokens(intValue(parser, value));
+                return true;
+            case "results":
+                return readFirst(parser, (resultField, resultValue) -> streamField(parser, resultField, resultValue, response));
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    protected boolean streamField(JsonParser parser, String field, JsonToken value,
+                                  DecodedResponse event) throws IOException {
+        switch (field) {
+            case "outputText" -> event.setText(text(parser, value));
+            case "completionReason" -> event.setStopReason(text(parser, value));
+            case "tokenCount", "totalOutputTextTokenCount" -> event.setOutputTokens(intValue(parser, value));
+            case "inputTextTokenCount" -> event.setInputTokens(intValue(parser, value));
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,120 @@
+package top.yumbo.ai.adaptor.ai;
+
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.common.exception.AIServiceException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Retry decisions, backoff and {@code Retry-After} parsing of {@link RetryPolicy}
+ */
+class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(3, 1_000, 60_000, 100, 1_000);
+
+    @Test
+    void parsesDeltaSeconds() {
+        assertEquals(5_000, RetryPolicy.parseRetryAfter("5"));
+        assertEquals(2_000, RetryPolicy.parseRetryAfter(" 2 "));
+        assertEquals(0, RetryPolicy.parseRetryAfter("-3"));
+    }
+
+    @Test
+    void parsesHttpDate() {
+        String in30Seconds = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(30));
+        long delay = RetryPolicy.parseRetryAfter(in30Seconds);
+        assertTrue(delay > 28_000 && delay <= 30_000, "delay " + delay);
+
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+        assertEquals(0, RetryPolicy.parseRetryAfter(past));
+    }
+
+    @Test
+    void ignoresMissingOrInvalidHeader() {
+        assertEquals(-1, RetryPolicy.parseRetryAfter(null));
+        assertEquals(-1, RetryPolicy.parseRetryAfter(" "));
+        assertEquals(-1, RetryPolicy.parseRetryAfter("soon"));
+    }
+
+    @Test
+    void retriesThrottlingServerErrorsAndIoFailures() {
+        assertTrue(policy.isRetryable(new AIServiceException("throttled", 429, -1)));
+        assertTrue(policy.isRetryable(new AIServiceException("unavailable", 503, -1)));
+        assertTrue(policy.isRetryable(new SocketTimeoutException("timeout")));
+        assertTrue(policy.isRetryable(new AIServiceException("network", new IOException("reset"))));
+    }
+
+    @Test
+    void doesNotRetryClientErrorsOrUnknownHosts() {
+        assertFalse(policy.isRetryable(new AIServiceException("bad request", 400, -1)));
+        assertFalse(policy.isRetryable(new AIServiceException("unauthorized", 401, -1)));
+        assertFalse(policy.isRetryable(new UnknownHostException("api.example.com")));
+        assertFalse(policy.isRetryable(new IllegalStateException("bug")));
+    }
+
+    @Test
+    void backoffStaysWithinTheJitterCeiling() {
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(policy.nextDelayMs(1, new IOException("reset"), start) <= 100);
+            assertTrue(policy.nextDelayMs(2, new IOException("reset"), start) <= 200);
+            long third = policy.nextDelayMs(3, new IOException("reset"), start);
+            assertTrue(third >= 0 && third <= 400, "delay " + third);
+        }
+    }
+
+    @Test
+    void backoffIsCappedAtTheMaximumDelay() {
+        RetryPolicy manyRetries = new RetryPolicy(30, 1_000, 600_000, 100, 1_000);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(manyRetries.nextDelayMs(25, new IOException("reset"), start) <= 1_000);
+        }
+    }
+
+    @Test
+    void retryAfterTakesPrecedence() {
+        AIServiceException throttled = new AIServiceException("throttled", 429, 7_000);
+
+        assertEquals(7_000, policy.nextDelayMs(1, throttled, System.currentTimeMillis()));
+    }
+
+    @Test
+    void givesUpAfterMaxRetries() {
+        assertEquals(-1, policy.nextDelayMs(4, new IOException("reset"), System.currentTimeMillis()));
+    }
+
+    @Test
+    void givesUpOnNonRetryableErrors() {
+        AIServiceException badRequest = new AIServiceException("bad request", 400, -1);
+
+        assertEquals(-1, policy.nextDelayMs(1, badRequest, System.currentTimeMillis()));
+    }
+
+    @Test
+    void givesUpWhenTheRetryWouldEndPastTheDeadline() {
+        AIServiceException throttled = new AIServiceException("throttled", 429, 30_000);
+        long start = System.currentTimeMillis() - 40_000;
+
+        assertEquals(-1, policy.nextDelayMs(1, throttled, start));
+    }
+
+    @Test
+    void attemptTimeoutIsCappedByTheDeadline() {
+        long start = System.currentTimeMillis();
+        assertEquals(1_000, policy.attemptTimeoutMs(start));
+
+        long almostOver = policy.attemptTimeoutMs(start - 59_800);
+        assertTrue(almostOver > 0 && almostOver <= 200, "timeout " + almostOver);
+        assertEquals(1, policy.attemptTimeoutMs(start - 120_000));
+    }
+}
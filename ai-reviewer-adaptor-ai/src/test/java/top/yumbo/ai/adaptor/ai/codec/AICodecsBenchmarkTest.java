@@ -0,0 +1,210 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.api.model.PreProcessedData;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Throughput and allocations of the {@link AICodecs} paths against the ones they replaced
+ * <p>
+ * Baselines:
+ * <ul>
+ *     <li>Tree: the removed Bedrock path, which formatted the prompt, built a {@code JSONObject}, serialized
+ *     it to a String and copied it to bytes, and parsed responses into objects. fastjson2 is not a dependency
+ *     of this module, so a Jackson tree stands in for it; the copies it makes are the same.</li>
+ *     <li>ChatRequestBody: the removed OpenAI request body, a streaming generator writing the content through
+ *     a Reader into a fresh buffer.</li>
+ * </ul>
+ * Throughput is printed for comparison only; the assertions cover allocations, which do not depend on the
+ * machine the tests run on.
+ */
+class AICodecsBenchmarkTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON_FACTORY = MAPPER.getFactory();
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 500;
+    private static final String TEMPLATE = "Review the following code:\n%s\nAnswer in Markdown.";
+    private static final String CONTENT = source(64 * 1024);
+    private static final byte[] ANTHROPIC_RESPONSE = anthropicResponse(16 * 1024);
+    private static final PromptTemplate PROMPT = PromptTemplate.compile(TEMPLATE);
+    private static final PreProcessedData DATA = PreProcessedData.builder().content(CONTENT).build();
+
+    private final CodecRequest request = request();
+
+    @Test
+    void encodeAllocatesLessThanTheTreePath() throws IOException {
+        assertEquals(MAPPER.readTree(encodeTree()),
+                MAPPER.readTree(AICodecs.encode(AICodecs.ANTHROPIC_MESSAGES, request())));
+
+        Result codec = measure("encode codec", () -> AICodecs.encode(AICodecs.ANTHROPIC_MESSAGES, request()).length);
+        Result tree = measure("encode tree", () -> encodeTree().length);
+
+        assertLess(codec, tree);
+    }
+
+    @Test
+    void encodeAllocatesNoMoreThanChatRequestBody() throws IOException {
+        assertEquals(MAPPER.readTree(encodeChatRequestBody()),
+                MAPPER.readTree(AICodecs.encode(AICodecs.OPENAI_CHAT, request())));
+
+        Result codec = measure("encode codec (OpenAI)", () -> AICodecs.encode(AICodecs.OPENAI_CHAT, request()).length);
+        Result legacy = measure("encode ChatRequestBody", () -> encodeChatRequestBody().length);
+
+        assertLess(codec, legacy);
+    }
+
+    @Test
+    void decodeAllocatesLessThanTheTreePath() throws IOException {
+        DecodedResponse decoded = AICodecs.decode(AICodecs.ANTHROPIC_MESSAGES, ANTHROPIC_RESPONSE);
+        assertEquals(decodeTree(), decoded.getText());
+        assertEquals(120, decoded.getOutputTokens());
+
+        Result codec = measure("decode codec", () -> AICodecs.decode(AICodecs.ANTHROPIC_MESSAGES, ANTHROPIC_RESPONSE)
+                .getText().length());
+        Result tree = measure("decode tree", () -> decodeTree().length());
+
+        assertLess(codec, tree);
+    }
+
+    /**
+     * Request as the adapters build it per call: the compiled template rendered over the content
+     */
+    private static CodecRequest request() {
+        return CodecRequest.builder()
+                .model("anthropic.claude-3-5-sonnet-20240620-v1:0")
+                .temperature(0.2)
+                .maxTokens(4096)
+                .systemPrompt("You review code.")
+                .userMessage(PROMPT.render(DATA))
+                .build();
+    }
+
+    /**
+     * Removed Bedrock request path: formatted prompt, object tree, JSON String, UTF-8 copy
+     */
+    private byte[] encodeTree() throws IOException {
+        ObjectNode body = MAPPER.createObjectNode();
+        body.put("anthropic_version", AnthropicMessagesCodec.BEDROCK_ANTHROPIC_VERSION);
+        body.put("max_tokens", request.getMaxTokens());
+        body.put("temperature", request.getTemperature());
+        body.put("system", request.getSystemPrompt());
+        ObjectNode message = body.putArray("messages").addObject();
+        message.put("role", "user");
+        message.put("content", String.format(TEMPLATE, CONTENT));
+        return MAPPER.writeValueAsString(body).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Removed ChatRequestBody: streaming generator into a buffer allocated per call
+     */
+    private byte[] encodeChatRequestBody() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeStringField("model", request.getModel());
+            generator.writeNumberField("temperature", request.getTemperature());
+            generator.writeNumberField("max_tokens", request.getMaxTokens());
+            generator.writeArrayFieldStart("messages");
+            generator.writeStartObject();
+            generator.writeStringField("role", "system");
+            generator.writeStringField("content", request.getSystemPrompt());
+            generator.writeEndObject();
+            generator.writeStartObject();
+            generator.writeStringField("role", "user");
+            generator.writeFieldName("content");
+            generator.writeString(new StringReader(String.format(TEMPLATE, CONTENT)), -1);
+            generator.writeEndObject();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Removed response path: the whole response parsed into objects, then navigated
+     */
+    private static String decodeTree() throws IOException {
+        JsonNode root = MAPPER.readTree(ANTHROPIC_RESPONSE);
+        StringBuilder text = new StringBuilder();
+        for (JsonNode block : root.path("content")) {
+            if (text.length() > 0) {
+                text.append('\n');
+            }
+            text.append(block.path("text").asText());
+        }
+        return text.toString();
+    }
+
+    private static Result measure(String name, Operation operation) throws IOException {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink += operation.run();
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        boolean counted = threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += operation.run();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+        Result result = new Result(name, counted ? allocated / ITERATIONS : -1,
+                ITERATIONS * 1_000_000_000.0 / elapsedNanos);
+        System.out.printf("%-24s %10.0f ops/s %12d bytes/op (%d)%n", name, result.opsPerSecond,
+                result.bytesPerOp, sink);
+        return result;
+    }
+
+    private static void assertLess(Result codec, Result baseline) {
+        if (codec.bytesPerOp < 0 || baseline.bytesPerOp < 0) {
+            // Allocation counting is not supported by this JVM
+            return;
+        }
+        assertTrue(codec.bytesPerOp < baseline.bytesPerOp, codec.name + " allocated " + codec.bytesPerOp
+                + " bytes/op, " + baseline.name + " " + baseline.bytesPerOp);
+    }
+
+    private static String source(int length) {
+        StringBuilder source = new StringBuilder(length + 64);
+        for (int line = 0; source.length() < length; line++) {
+            source.append("    String s").append(line).append(" = \"value \\\"").append(line).append("\\\"\";\n");
+        }
+        return source.toString();
+    }
+
+    private static byte[] anthropicResponse(int textLength) {
+        StringBuilder text = new StringBuilder(textLength + 64);
+        while (text.length() < textLength) {
+            text.append("- Line ").append(text.length()).append(": consider a \\\"final\\\" field.\\n");
+        }
+        return ("{\"id\":\"msg_01\",\"type\":\"message\",\"role\":\"assistant\",\"model\":\"claude-3-5-sonnet\","
+                + "\"content\":[{\"type\":\"text\",\"text\":\"" + text + "\"}],"
+                + "\"stop_reason\":\"end_turn\",\"stop_sequence\":null,"
+                + "\"usage\":{\"input_tokens\":4000,\"output_tokens\":120}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        long run() throws IOException;
+    }
+
+    private record Result(String name, long bytesPerOp, double opsPerSecond) {
+    }
+}
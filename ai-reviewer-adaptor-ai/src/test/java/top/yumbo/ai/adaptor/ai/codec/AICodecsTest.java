@@ -0,0 +1,309 @@
+package top.yumbo.ai.adaptor.ai.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.api.model.PreProcessedData;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Request encoding and response decoding of the {@link AICodecs} codecs
+ */
+class AICodecsTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String CODE = "class A {\n  String s = \"quoted\\n\";\n}";
+
+    private final CodecRequest request = CodecRequest.builder()
+            .model("test-model")
+            .temperature(0.2)
+            .maxTokens(512)
+            .systemPrompt("You review code.")
+            .userMessage(PromptText.of(CODE))
+            .build();
+
+    @Test
+    void resolvesCodecsFromModelIds() {
+        assertSame(AICodecs.ANTHROPIC_MESSAGES, AICodecs.forModel("anthropic.claude-3-5-sonnet-20240620-v1:0"));
+        assertSame(AICodecs.ANTHROPIC_MESSAGES,
+                AICodecs.forModel("arn:aws:bedrock:us-east-1:123:inference-profile/us.anthropic.claude-sonnet-4-20250514-v1:0"));
+        assertSame(AICodecs.ANTHROPIC_TEXT, AICodecs.forModel("anthropic.claude-v2:1"));
+        assertSame(AICodecs.TITAN, AICodecs.forModel("amazon.titan-text-express-v1"));
+        assertSame(AICodecs.NOVA, AICodecs.forModel("amazon.nova-pro-v1:0"));
+        assertSame(AICodecs.LLAMA3, AICodecs.forModel("meta.llama3-70b-instruct-v1:0"));
+        assertSame(AICodecs.LLAMA2, AICodecs.forModel("meta.llama2-13b-chat-v1"));
+        assertSame(AICodecs.MISTRAL, AICodecs.forModel("mistral.mistral-large-2402-v1:0"));
+        assertSame(AICodecs.COHERE, AICodecs.forModel("cohere.command-text-v14"));
+        assertSame(AICodecs.AI21, AICodecs.forModel("ai21.j2-ultra-v1"));
+        assertSame(AICodecs.OPENAI_CHAT, AICodecs.forModel("ai21.jamba-1-5-large-v1:0"));
+        assertSame(AICodecs.GENERIC, AICodecs.forModel("unknown.model-v1"));
+    }
+
+    @Test
+    void encodesOpenAIChatRequest() throws IOException {
+        JsonNode json = encode(AICodecs.OPENAI_CHAT, request);
+
+        assertEquals("test-model", json.path("model").asText());
+        assertEquals(0.2, json.path("temperature").asDouble());
+        assertEquals(512, json.path("max_tokens").asInt());
+        assertFalse(json.has("stream"));
+        assertEquals("system", json.path("messages").path(0).path("role").asText());
+        assertEquals("You review code.", json.path("messages").path(0).path("content").asText());
+        assertEquals("user", json.path("messages").path(1).path("role").asText());
+        assertEquals(CODE, json.path("messages").path(1).path("content").asText());
+    }
+
+    @Test
+    void encodesStreamingOpenAIChatRequest() throws IOException {
+        request.setStream(true);
+
+        JsonNode json = encode(AICodecs.OPENAI_CHAT, request);
+
+        assertTrue(json.path("stream").asBoolean());
+        assertTrue(json.path("stream_options").path("include_usage").asBoolean());
+    }
+
+    @Test
+    void encodesAnthropicMessagesRequest() throws IOException {
+        JsonNode json = encode(AICodecs.ANTHROPIC_MESSAGES, request);
+
+        assertEquals(AnthropicMessagesCodec.BEDROCK_ANTHROPIC_VERSION, json.path("anthropic_version").asText());
+        assertEquals(512, json.path("max_tokens").asInt());
+        assertEquals("You review code.", json.path("system").asText());
+        assertEquals(CODE, json.path("messages").path(0).path("content").asText());
+        assertFalse(json.has("model"));
+    }
+
+    @Test
+    void marksTheStaticPrefixCacheable() throws IOException {
+        request.setPromptCaching(true);
+        request.setUserMessage(PromptTemplate.compile("Review this file:\n%s")
+                .render(PreProcessedData.builder().content(CODE).build()));
+
+        JsonNode json = encode(AICodecs.ANTHROPIC_MESSAGES, request);
+
+        JsonNode system = json.path("system").path(0);
+        assertEquals("You review code.", system.path("text").asText());
+        assertEquals("ephemeral", system.path("cache_control").path("type").asText());
+        JsonNode content = json.path("messages").path(0).path("content");
+        assertEquals(2, content.size());
+        assertEquals("Review this file:\n", content.path(0).path("text").asText());
+        assertEquals("ephemeral", content.path(0).path("cache_control").path("type").asText());
+        assertEquals(CODE, content.path(1).path("text").asText());
+        assertFalse(content.path(1).has("cache_control"));
+    }
+
+    @Test
+    void encodesCompletionStyleRequests() throws IOException {
+        JsonNode text = encode(AICodecs.ANTHROPIC_TEXT, request);
+        assertEquals("\n\nHuman: " + CODE + "\n\nAssistant:", text.path("prompt").asText());
+        assertEquals(512, text.path("max_tokens_to_sample").asInt());
+
+        JsonNode titan = encode(AICodecs.TITAN, request);
+        assertEquals(CODE, titan.path("inputText").asText());
+        assertEquals(512, titan.path("textGenerationConfig").path("maxTokenCount").asInt());
+
+        JsonNode llama2 = encode(AICodecs.LLAMA2, request);
+        assertEquals(CODE, llama2.path("prompt").asText());
+        assertEquals(512, llama2.path("max_gen_len").asInt());
+
+        JsonNode llama3 = encode(AICodecs.LLAMA3, request);
+        assertTrue(llama3.path("prompt").asText().startsWith("<|begin_of_text|><|start_header_id|>user<|end_header_id|>\n\n" + CODE));
+        assertTrue(llama3.path("prompt").asText().endsWith("<|start_header_id|>assistant<|end_header_id|>\n\n"));
+
+        JsonNode mistral = encode(AICodecs.MISTRAL, request);
+        assertEquals("<s>[INST] " + CODE + " [/INST]", mistral.path("prompt").asText());
+        assertEquals(512, mistral.path("max_tokens").asInt());
+
+        JsonNode cohere = encode(AICodecs.COHERE, request);
+        assertEquals(CODE, cohere.path("prompt").asText());
+        assertEquals("NONE", cohere.path("return_likelihoods").asText());
+        assertFalse(cohere.has("stream"));
+
+        JsonNode ai21 = encode(AICodecs.AI21, request);
+        assertEquals(CODE, ai21.path("prompt").asText());
+        assertEquals(512, ai21.path("maxTokens").asInt());
+
+        JsonNode generic = encode(AICodecs.GENERIC, request);
+        assertEquals(CODE, generic.path("prompt").asText());
+        assertEquals(512, generic.path("max_tokens").asInt());
+    }
+
+    @Test
+    void encodesNovaRequest() throws IOException {
+        JsonNode json = encode(AICodecs.NOVA, request);
+
+        assertEquals("messages-v1", json.path("schemaVersion").asText());
+        assertEquals("You review code.", json.path("system").path(0).path("text").asText());
+        assertEquals("user", json.path("messages").path(0).path("role").asText());
+        assertEquals(CODE, json.path("messages").path(0).path("content").path(0).path("text").asText());
+        assertEquals(512, json.path("inferenceConfig").path("max_new_tokens").asInt());
+    }
+
+    @Test
+    void omitsUnsetNumbers() throws IOException {
+        CodecRequest minimal = CodecRequest.builder().userMessage(PromptText.of("x")).build();
+
+        JsonNode json = encode(AICodecs.OPENAI_CHAT, minimal);
+
+        assertFalse(json.has("model"));
+        assertFalse(json.has("temperature"));
+        assertFalse(json.has("max_tokens"));
+        assertEquals(1, json.path("messages").size());
+    }
+
+    @Test
+    void decodesOpenAIChatResponse() throws IOException {
+        DecodedResponse response = decode(AICodecs.OPENAI_CHAT, "{\"id\":\"x\",\"choices\":[{\"index\":0,"
+                + "\"message\":{\"role\":\"assistant\",\"content\":\"Looks good\"},\"finish_reason\":\"stop\"},"
+                + "{\"message\":{\"content\":\"ignored\"}}],"
+                + "\"usage\":{\"prompt_tokens\":10,\"completion_tokens\":3,\"total_tokens\":13,"
+                + "\"prompt_tokens_details\":{\"cached_tokens\":8}}}");
+
+        assertEquals("Looks good", response.getText());
+        assertEquals("stop", response.getStopReason());
+        assertEquals(10, response.getPromptTokens());
+        assertEquals(3, response.getCompletionTokens());
+        assertEquals(13, response.getTotalTokens());
+        assertEquals(8, response.getCacheReadInputTokens());
+    }
+
+    @Test
+    void decodesOpenAIChatStreamEvents() throws IOException {
+        DecodedResponse delta = AICodecs.decodeStreamEvent(AICodecs.OPENAI_CHAT,
+                "{\"choices\":[{\"delta\":{\"content\":\"Lo\"},\"finish_reason\":null}]}");
+        assertEquals("Lo", delta.getText());
+        assertNull(delta.getStopReason());
+
+        DecodedResponse usage = AICodecs.decodeStreamEvent(AICodecs.OPENAI_CHAT,
+                "{\"choices\":[],\"usage\":{\"prompt_tokens\":10,\"completion_tokens\":3,\"total_tokens\":13}}");
+        assertNull(usage.getText());
+        assertEquals(13, usage.getTotalTokens());
+    }
+
+    @Test
+    void decodesAnthropicMessagesResponse() throws IOException {
+        DecodedResponse response = decode(AICodecs.ANTHROPIC_MESSAGES, "{\"id\":\"msg\",\"type\":\"message\","
+                + "\"content\":[{\"type\":\"text\",\"text\":\"First\"},{\"type\":\"text\",\"text\":\"Second\"}],"
+                + "\"stop_reason\":\"end_turn\",\"usage\":{\"input_tokens\":20,\"output_tokens\":5,"
+                + "\"cache_creation_input_tokens\":0,\"cache_read_input_tokens\":16}}");
+
+        assertEquals("First\nSecond", response.getText());
+        assertEquals("end_turn", response.getStopReason());
+        assertEquals(20, response.getInputTokens());
+        assertEquals(5, response.getOutputTokens());
+        assertEquals(16, response.getCacheReadInputTokens());
+        assertEquals(16, response.toTokenUsage().getCacheRInputTokens());
+    }
+
+    @Test
+    void decodesAnthropicMessagesStreamEvents() throws IOException {
+        DecodedResponse start = AICodecs.decodeStreamEvent(AICodecs.ANTHROPIC_MESSAGES,
+                "{\"type\":\"message_start\",\"message\":{\"id\":\"msg\",\"usage\":{\"input_tokens\":20,\"output_tokens\":1}}}");
+        assertEquals(20, start.getInputTokens());
+
+        DecodedResponse delta = AICodecs.decodeStreamEvent(AICodecs.ANTHROPIC_MESSAGES,
+                "{\"type\":\"content_block_delta\",\"index\":0,\"delta\":{\"type\":\"text_delta\",\"text\":\"Hi\"}}");
+        assertEquals("Hi", delta.getText());
+
+        DecodedResponse stop = AICodecs.decodeStreamEvent(AICodecs.ANTHROPIC_MESSAGES,
+                "{\"type\":\"message_delta\",\"delta\":{\"stop_reason\":\"max_tokens\"},\"usage\":{\"output_tokens\":512}}");
+        assertEquals("max_tokens", stop.getStopReason());
+        assertEquals(512, stop.getOutputTokens());
+
+        // Bedrock appends its invocation metrics to the last event
+        DecodedResponse metrics = AICodecs.decodeStreamEvent(AICodecs.ANTHROPIC_MESSAGES,
+                ("{\"type\":\"message_stop\",\"amazon-bedrock-invocationMetrics\":"
+                        + "{\"inputTokenCount\":20,\"outputTokenCount\":512,\"invocationLatency\":900}}")
+                        .getBytes(StandardCharsets.UTF_8));
+        assertEquals(20, metrics.getInputTokens());
+        assertEquals(512, metrics.getOutputTokens());
+    }
+
+    @Test
+    void decodesNovaResponseAndStreamEvents() throws IOException {
+        DecodedResponse response = decode(AICodecs.NOVA, "{\"output\":{\"message\":{\"role\":\"assistant\","
+                + "\"content\":[{\"text\":\"Fine\"}]}},\"stopReason\":\"end_turn\","
+                + "\"usage\":{\"inputTokens\":7,\"outputTokens\":2,\"totalTokens\":9}}");
+        assertEquals("Fine", response.getText());
+        assertEquals("end_turn", response.getStopReason());
+        assertEquals(9, response.getTotalTokens());
+
+        assertEquals("Fi", AICodecs.decodeStreamEvent(AICodecs.NOVA,
+                "{\"contentBlockDelta\":{\"delta\":{\"text\":\"Fi\"},\"contentBlockIndex\":0}}").getText());
+        assertEquals("end_turn", AICodecs.decodeStreamEvent(AICodecs.NOVA,
+                "{\"messageStop\":{\"stopReason\":\"end_turn\"}}").getStopReason());
+        assertEquals(2, AICodecs.decodeStreamEvent(AICodecs.NOVA,
+                "{\"metadata\":{\"usage\":{\"inputTokens\":7,\"outputTokens\":2}}}").getOutputTokens());
+    }
+
+    @Test
+    void decodesCompletionStyleResponses() throws IOException {
+        DecodedResponse text = decode(AICodecs.ANTHROPIC_TEXT, "{\"completion\":\" Fine\",\"stop_reason\":\"stop_sequence\"}");
+        assertEquals(" Fine", text.getText());
+        assertEquals("stop_sequence", text.getStopReason());
+
+        DecodedResponse titan = decode(AICodecs.TITAN, "{\"inputTextTokenCount\":7,\"results\":"
+                + "[{\"tokenCount\":2,\"outputText\":\"Fine\",\"completionReason\":\"FINISH\"}]}");
+        assertEquals("Fine", titan.getText());
+        assertEquals("FINISH", titan.getStopReason());
+        assertEquals(7, titan.getInputTokens());
+        assertEquals(2, titan.getOutputTokens());
+
+        DecodedResponse llama = decode(AICodecs.LLAMA3, "{\"generation\":\"Fine\",\"prompt_token_count\":7,"
+                + "\"generation_token_count\":2,\"stop_reason\":\"stop\"}");
+        assertEquals("Fine", llama.getText());
+        assertEquals(7, llama.getInputTokens());
+        assertEquals(2, llama.getOutputTokens());
+
+        DecodedResponse mistral = decode(AICodecs.MISTRAL, "{\"outputs\":[{\"text\":\"Fine\",\"stop_reason\":\"stop\"}]}");
+        assertEquals("Fine", mistral.getText());
+        assertEquals("stop", mistral.getStopReason());
+
+        DecodedResponse cohere = decode(AICodecs.COHERE, "{\"id\":\"x\",\"generations\":"
+                + "[{\"id\":\"g\",\"text\":\"Fine\",\"finish_reason\":\"COMPLETE\"}],\"prompt\":\"ignored\"}");
+        assertEquals("Fine", cohere.getText());
+        assertEquals("COMPLETE", cohere.getStopReason());
+        assertEquals("Fi", AICodecs.decodeStreamEvent(AICodecs.COHERE, "{\"text\":\"Fi\",\"is_finished\":false}").getText());
+
+        DecodedResponse ai21 = decode(AICodecs.AI21, "{\"id\":1,\"prompt\":{\"text\":\"ignored\"},\"completions\":"
+                + "[{\"data\":{\"text\":\"Fine\",\"tokens\":[]},\"finishReason\":{\"reason\":\"endoftext\"}}]}");
+        assertEquals("Fine", ai21.getText());
+        assertEquals("endoftext", ai21.getStopReason());
+
+        DecodedResponse generic = decode(AICodecs.GENERIC, "{\"results\":[{\"outputText\":\"Fine\",\"completionReason\":\"FINISH\"}]}");
+        assertEquals("Fine", generic.getText());
+        assertEquals("FINISH", generic.getStopReason());
+    }
+
+    @Test
+    void leavesMissingFieldsNull() throws IOException {
+        DecodedResponse response = decode(AICodecs.OPENAI_CHAT, "{\"object\":\"chat.completion\",\"choices\":[]}");
+
+        assertNull(response.getText());
+        assertNull(response.getStopReason());
+        assertNull(response.toTokenUsage());
+    }
+
+    @Test
+    void rejectsPayloadsThatAreNotObjects() {
+        assertThrows(IOException.class, () -> decode(AICodecs.OPENAI_CHAT, "[1, 2]"));
+    }
+
+    private static JsonNode encode(AICodec codec, CodecRequest request) throws IOException {
+        return MAPPER.readTree(AICodecs.encode(codec, request));
+    }
+
+    private static DecodedResponse decode(AICodec codec, String body) throws IOException {
+        return AICodecs.decode(codec, body.getBytes(StandardCharsets.UTF_8));
+    }
+}
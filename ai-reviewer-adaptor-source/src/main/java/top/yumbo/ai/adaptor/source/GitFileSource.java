@@ -5,6 +5,8 @@ import org.eclipse.jgit.api.CloneCommand;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
+import top.yumbo.ai.api.source.FileListFilter;
+import top.yumbo.ai.api.source.FileListRequest;
 import top.yumbo.ai.api.source.FileSourceConfig;
 import top.yumbo.ai.api.source.IFileSource;
 import top.yumbo.ai.api.source.SourceFile;
@@ -15,9 +17,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Stream;
@@ -134,10 +133,16 @@ public class GitFileSource implements IFileSource {
 
     @Override
     public List<SourceFile> listFiles(String path) throws Exception {
+        return listFiles(FileListRequest.of(path));
+    }
+
+    @Override
+    public List<SourceFile> listFiles(FileListRequest request) throws Exception {
         if (!initialized) {
             throw new FileSourceException("File source not initialized");
         }
 
+        String path = request.getBasePath();
         Path basePath = path == null || path.trim().isEmpty()
                 ? localClonePath
                 : localClonePath.resolve(path);
@@ -146,30 +151,10 @@ public class GitFileSource implements IFileSource {
             throw new FileSourceException("Path does not exist: " + path);
         }
 
-        List<SourceFile> result = new ArrayList<>();
-
-        try (Stream<Path> stream = Files.walk(basePath)) {
-            stream.filter(Files::isRegularFile)
-                    .filter(p -> !p.toString().contains(".git")) // Exclude .git directory
-                    .forEach(p -> {
-                        try {
-                            SourceFile sourceFile = SourceFile.builder()
-                                    .fileId(p.toString())
-                                    .relativePath(localClonePath.relativize(p).toString().replace("\\", "/"))
-                                    .fileName(p.getFileName().toString())
-                                    .fileSize(Files.size(p))
-                                    .lastModified(LocalDateTime.ofInstant(
-                                            Files.getLastModifiedTime(p).toInstant(),
-                                            ZoneId.systemDefault()))
-                                    .source(this)
-                                    .build();
-
-                            result.add(sourceFile);
-                        } catch (IOException e) {
-                            log.warn("Failed to process file: {}", p, e);
-                        }
-                    });
-        }
+        // Path filters are applied while walking the working tree, pruning excluded
+        // subtrees and the .git directory instead of descending into them
+        List<SourceFile> result = LocalTreeWalker.walk(localClonePath, basePath,
+                FileListFilter.of(request), relativePath -> !relativePath.contains(".git"), this);
 
         log.info("Listed {} files from Git repository path: {}", result.size(), path);
         return result;
@@ -190,6 +175,11 @@ public class GitFileSource implements IFileSource {
         return Files.newInputStream(filePath);
     }
 
+    @Override
+    public Path getLocalPath(SourceFile file) {
+        return initialized ? Path.of(file.getFileId()) : null;
+    }
+
     @Override
     public void close() throws Exception {
         if (repository != null) {
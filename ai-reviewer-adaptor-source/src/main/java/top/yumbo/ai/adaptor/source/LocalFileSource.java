@@ -1,21 +1,18 @@
 package top.yumbo.ai.adaptor.source;
 
 import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.source.FileListFilter;
+import top.yumbo.ai.api.source.FileListRequest;
 import top.yumbo.ai.api.source.FileSourceConfig;
 import top.yumbo.ai.api.source.IFileSource;
 import top.yumbo.ai.api.source.SourceFile;
 import top.yumbo.ai.common.exception.FileSourceException;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
-import java.time.ZoneId;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Stream;
 
 /**
  * Local file system source implementation
@@ -72,10 +69,16 @@ public class LocalFileSource implements IFileSource {
 
     @Override
     public List<SourceFile> listFiles(String path) throws Exception {
+        return listFiles(FileListRequest.of(path));
+    }
+
+    @Override
+    public List<SourceFile> listFiles(FileListRequest request) throws Exception {
         if (!initialized) {
             throw new FileSourceException("File source not initialized");
         }
 
+        String path = request.getBasePath();
         Path targetPath = path == null || path.trim().isEmpty()
                 ? basePath
                 : basePath.resolve(path);
@@ -84,29 +87,9 @@ public class LocalFileSource implements IFileSource {
             throw new FileSourceException("Path does not exist: " + targetPath);
         }
 
-        List<SourceFile> result = new ArrayList<>();
-
-        try (Stream<Path> stream = Files.walk(targetPath)) {
-            stream.filter(Files::isRegularFile)
-                    .forEach(p -> {
-                        try {
-                            SourceFile sourceFile = SourceFile.builder()
-                                    .fileId(p.toString())
-                                    .relativePath(basePath.relativize(p).toString().replace("\\", "/"))
-                                    .fileName(p.getFileName().toString())
-                                    .fileSize(Files.size(p))
-                                    .lastModified(LocalDateTime.ofInstant(
-                                            Files.getLastModifiedTime(p).toInstant(),
-                                            ZoneId.systemDefault()))
-                                    .source(this)
-                                    .build();
-
-                            result.add(sourceFile);
-                        } catch (IOException e) {
-                            log.warn("Failed to process file: {}", p, e);
-                        }
-                    });
-        }
+        // Excluded subtrees are pruned during the walk
+        List<SourceFile> result = LocalTreeWalker.walk(basePath, targetPath,
+                FileListFilter.of(request), relativePath -> true, this);
 
         log.info("Listed {} files from local path: {}", result.size(), targetPath);
         return result;
@@ -131,6 +114,11 @@ public class LocalFileSource implements IFileSource {
         return Files.newInputStream(filePath);
     }
 
+    @Override
+    public Path getLocalPath(SourceFile file) {
+        return initialized ? Paths.get(file.getFileId()) : null;
+    }
+
     @Override
     public void close() throws Exception {
         // Local file source doesn't need cleanup
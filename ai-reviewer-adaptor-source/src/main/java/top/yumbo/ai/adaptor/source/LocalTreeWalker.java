@@ -0,0 +1,94 @@
+package top.yumbo.ai.adaptor.source;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.source.FileListFilter;
+import top.yumbo.ai.api.source.IFileSource;
+import top.yumbo.ai.api.source.SourceFile;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Walks a local directory tree for file sources backed by the local file system
+ * <p>
+ * Subtrees that cannot contain matching files are pruned before they are visited,
+ * and size/mtime come from the walk attributes instead of extra stat calls.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+final class LocalTreeWalker {
+
+    private LocalTreeWalker() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * List files under {@code start}, with relative paths computed from {@code root}
+     *
+     * @param root       source root for relative paths
+     * @param start      directory to start walking from
+     * @param filter     compiled listing filter
+     * @param pathFilter additional filter on relative paths of directories and files
+     * @param source     file source to reference from the listed files
+     * @return matching source files
+     */
+    static List<SourceFile> walk(Path root, Path start, FileListFilter filter,
+                                 Predicate<String> pathFilter, IFileSource source) throws IOException {
+        List<SourceFile> result = new ArrayList<>();
+
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                String relative = relativize(root, dir);
+                if (!relative.isEmpty() && (!pathFilter.test(relative) || !filter.mayContainMatches(relative))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (!attrs.isRegularFile()) {
+                    return FileVisitResult.CONTINUE;
+                }
+                String relative = relativize(root, file);
+                LocalDateTime lastModified = LocalDateTime.ofInstant(
+                        attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault());
+                if (pathFilter.test(relative) && filter.matches(relative, attrs.size(), lastModified)) {
+                    result.add(SourceFile.builder()
+                            .fileId(file.toString())
+                            .relativePath(relative)
+                            .fileName(file.getFileName().toString())
+                            .fileSize(attrs.size())
+                            .lastModified(lastModified)
+                            .source(source)
+                            .build());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                log.warn("Failed to process file: {}", file, e);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+
+        return result;
+    }
+
+    private static String relativize(Path root, Path path) {
+        return root.relativize(path).toString().replace("\\", "/");
+    }
+}
@@ -7,6 +7,8 @@ import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.*;
+import top.yumbo.ai.api.source.FileListFilter;
+import top.yumbo.ai.api.source.FileListRequest;
 import top.yumbo.ai.api.source.FileSourceConfig;
 import top.yumbo.ai.api.source.IFileSource;
 import top.yumbo.ai.api.source.SourceFile;
@@ -119,10 +121,16 @@ public class S3FileSource implements IFileSource {
 
     @Override
     public List<SourceFile> listFiles(String path) throws Exception {
+        return listFiles(FileListRequest.of(path));
+    }
+
+    @Override
+    public List<SourceFile> listFiles(FileListRequest request) throws Exception {
         if (!initialized) {
             throw new FileSourceException("File source not initialized");
         }
 
+        String path = request.getBasePath();
         // Construct full prefix
         String fullPrefix = path == null || path.trim().isEmpty()
                 ? prefix
@@ -133,14 +141,47 @@ public class S3FileSource implements IFileSource {
             fullPrefix = fullPrefix.substring(1);
         }
 
+        FileListFilter filter = FileListFilter.of(request);
         List<SourceFile> result = new ArrayList<>();
+        List<String> keyPrefixes = narrowPrefixes(fullPrefix, filter);
+        for (String keyPrefix : keyPrefixes) {
+            listObjects(keyPrefix, filter, result);
+        }
+
+        log.info("Listed {} objects from S3 bucket: {}/{} (prefixes: {})",
+                result.size(), bucket, fullPrefix, keyPrefixes);
+        return result;
+    }
+
+    /**
+     * Narrow the listing prefix using the literal prefixes of the include patterns
+     * Only keys under these prefixes are listed, instead of every key below the base prefix.
+     */
+    private List<String> narrowPrefixes(String fullPrefix, FileListFilter filter) {
+        if (filter.getListingPrefixes().isEmpty()) {
+            return List.of(fullPrefix);
+        }
 
+        List<String> keyPrefixes = new ArrayList<>();
+        for (String listingPrefix : filter.getListingPrefixes()) {
+            String keyPrefix = prefix.isEmpty() ? listingPrefix : prefix + "/" + listingPrefix;
+            if (keyPrefix.startsWith(fullPrefix)) {
+                keyPrefixes.add(keyPrefix);
+            } else if (fullPrefix.startsWith(keyPrefix) && !keyPrefixes.contains(fullPrefix)) {
+                keyPrefixes.add(fullPrefix);
+            }
+            // Otherwise the include pattern lies outside the requested path
+        }
+        return keyPrefixes;
+    }
+
+    private void listObjects(String keyPrefix, FileListFilter filter, List<SourceFile> result) {
         ListObjectsV2Request.Builder requestBuilder = ListObjectsV2Request.builder()
                 .bucket(bucket);
 
         // Only set prefix if not empty
-        if (!fullPrefix.isEmpty()) {
-            requestBuilder.prefix(fullPrefix);
+        if (!keyPrefix.isEmpty()) {
+            requestBuilder.prefix(keyPrefix);
         }
 
         ListObjectsV2Request request = requestBuilder.build();
@@ -162,6 +203,12 @@ public class S3FileSource implements IFileSource {
                         ? key
                         : key.substring(prefix.length() + 1);
 
+                LocalDateTime lastModified = LocalDateTime.ofInstant(
+                        s3Object.lastModified(), ZoneId.systemDefault());
+                if (!filter.matches(relativePath, s3Object.size(), lastModified)) {
+                    continue;
+                }
+
                 Map<String, Object> metadata = new HashMap<>();
                 metadata.put("etag", s3Object.eTag());
                 metadata.put("storageClass", s3Object.storageClassAsString());
@@ -171,8 +218,7 @@ public class S3FileSource implements IFileSource {
                         .relativePath(relativePath)
                         .fileName(Paths.get(key).getFileName().toString())
                         .fileSize(s3Object.size())
-                        .lastModified(LocalDateTime.ofInstant(
-                                s3Object.lastModified(), ZoneId.systemDefault()))
+                        .lastModified(lastModified)
                         .metadata(metadata)
                         .source(this)
                         .build();
@@ -188,9 +234,6 @@ public class S3FileSource implements IFileSource {
             }
 
         } while (response.isTruncated());
-
-        log.info("Listed {} objects from S3 bucket: {}/{}", result.size(), bucket, fullPrefix);
-        return result;
     }
 
     @Override
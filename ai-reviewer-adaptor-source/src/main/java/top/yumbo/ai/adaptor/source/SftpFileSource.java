@@ -2,23 +2,37 @@ package top.yumbo.ai.adaptor.source;
 
 import com.jcraft.jsch.*;
 import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.source.FileListFilter;
+import top.yumbo.ai.api.source.FileListRequest;
 import top.yumbo.ai.api.source.FileSourceConfig;
 import top.yumbo.ai.api.source.IFileSource;
 import top.yumbo.ai.api.source.SourceFile;
 import top.yumbo.ai.common.exception.FileSourceException;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * SFTP file source implementation
  * <p>
  * Connects to SFTP servers to retrieve files for analysis.
  * Supports password and private key authentication.
+ * <p>
+ * A JSch channel is not safe for concurrent use, so listing uses one channel and reads borrow
+ * channels from a small pool on the same session: up to {@code maxReadChannels} (custom param,
+ * default {@value #DEFAULT_MAX_READ_CHANNELS}) files are read at once, further readers wait
+ * for a channel to be returned when its stream is closed.
  *
  * @author AI-Reviewer Team
  * @since 1.1.0
@@ -26,8 +40,13 @@ import java.util.Vector;
 @Slf4j
 public class SftpFileSource implements IFileSource {
 
+    public static final int DEFAULT_MAX_READ_CHANNELS = 4;
+
     private Session session;
     private ChannelSftp sftpChannel;
+    private final Queue<ChannelSftp> idleReadChannels = new ConcurrentLinkedQueue<>();
+    private final List<ChannelSftp> readChannels = new CopyOnWriteArrayList<>();
+    private Semaphore readPermits;
     private String basePath;
     private boolean initialized = false;
 
@@ -86,6 +105,10 @@ public class SftpFileSource implements IFileSource {
         sftpChannel = (ChannelSftp) channel;
 
         this.basePath = config.getBasePath() != null ? config.getBasePath() : "/";
+        Object maxReadChannels = config.getCustomParam("maxReadChannels");
+        this.readPermits = new Semaphore(maxReadChannels != null
+                ? Math.max(1, Integer.parseInt(maxReadChannels.toString()))
+                : DEFAULT_MAX_READ_CHANNELS);
         this.initialized = true;
 
         log.info("SFTP connection established: {}@{}", config.getUsername(), config.getHost());
@@ -108,22 +131,29 @@ public class SftpFileSource implements IFileSource {
 
     @Override
     public List<SourceFile> listFiles(String path) throws Exception {
+        return listFiles(FileListRequest.of(path));
+    }
+
+    @Override
+    public List<SourceFile> listFiles(FileListRequest request) throws Exception {
         if (!initialized) {
             throw new FileSourceException("File source not initialized");
         }
 
+        String path = request.getBasePath();
         String fullPath = path == null || path.trim().isEmpty()
             ? basePath
             : (basePath + "/" + path).replace("//", "/");
 
         List<SourceFile> result = new ArrayList<>();
-        listFilesRecursive(fullPath, "", result);
+        listFilesRecursive(fullPath, "", FileListFilter.of(request), result);
 
         log.info("Listed {} files from SFTP path: {}", result.size(), fullPath);
         return result;
     }
 
-    private void listFilesRecursive(String currentPath, String relativePath, List<SourceFile> result) {
+    private void listFilesRecursive(String currentPath, String relativePath, FileListFilter filter,
+                                    List<SourceFile> result) {
         try {
             @SuppressWarnings("unchecked")
             Vector<ChannelSftp.LsEntry> entries = sftpChannel.ls(currentPath);
@@ -143,16 +173,23 @@ public class SftpFileSource implements IFileSource {
                     : (relativePath + "/" + filename).replace("//", "/");
 
                 if (attrs.isDir()) {
-                    // Recursively list subdirectory
-                    listFilesRecursive(entryPath, entryRelative, result);
+                    // Recursively list subdirectory, skipping subtrees that cannot match
+                    if (filter.mayContainMatches(entryRelative)) {
+                        listFilesRecursive(entryPath, entryRelative, filter, result);
+                    }
                 } else {
+                    LocalDateTime lastModified = LocalDateTime.ofEpochSecond(
+                        attrs.getMTime(), 0, ZoneOffset.UTC);
+                    if (!filter.matches(entryRelative, attrs.getSize(), lastModified)) {
+                        continue;
+                    }
+
                     SourceFile sourceFile = SourceFile.builder()
                         .fileId(entryPath)
                         .relativePath(entryRelative)
                         .fileName(filename)
                         .fileSize(attrs.getSize())
-                        .lastModified(LocalDateTime.ofEpochSecond(
-                            attrs.getMTime(), 0, ZoneOffset.UTC))
+                        .lastModified(lastModified)
                         .source(this)
                         .build();
 
@@ -170,15 +207,72 @@ public class SftpFileSource implements IFileSource {
             throw new FileSourceException("File source not initialized");
         }
 
+        readPermits.acquire();
+        ChannelSftp channel = null;
         try {
-            return sftpChannel.get(file.getFileId());
-        } catch (SftpException e) {
+            channel = borrowReadChannel();
+            return new ChannelInputStream(channel.get(file.getFileId()), channel);
+        } catch (JSchException | SftpException e) {
+            returnReadChannel(channel);
             throw new FileSourceException("Failed to read file: " + file.getFileId(), e);
         }
     }
 
+    private ChannelSftp borrowReadChannel() throws JSchException {
+        ChannelSftp channel;
+        while ((channel = idleReadChannels.poll()) != null) {
+            if (channel.isConnected()) {
+                return channel;
+            }
+            readChannels.remove(channel);
+        }
+        channel = (ChannelSftp) session.openChannel("sftp");
+        channel.connect();
+        readChannels.add(channel);
+        return channel;
+    }
+
+    private void returnReadChannel(ChannelSftp channel) {
+        if (channel != null) {
+            idleReadChannels.offer(channel);
+        }
+        readPermits.release();
+    }
+
+    /**
+     * Stream of a file being read; closing it hands the channel to the next reader
+     */
+    private final class ChannelInputStream extends FilterInputStream {
+        private final ChannelSftp channel;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private ChannelInputStream(InputStream in, ChannelSftp channel) {
+            super(in);
+            this.channel = channel;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                super.close();
+            } finally {
+                returnReadChannel(channel);
+            }
+        }
+    }
+
     @Override
     public void close() throws Exception {
+        for (ChannelSftp channel : readChannels) {
+            if (channel.isConnected()) {
+                channel.disconnect();
+            }
+        }
+        readChannels.clear();
+        idleReadChannels.clear();
         if (sftpChannel != null && sftpChannel.isConnected()) {
             sftpChannel.disconnect();
             log.debug("SFTP channel disconnected");
@@ -1,6 +1,8 @@
 package top.yumbo.ai.adaptor.source;
 
 import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.source.FileListFilter;
+import top.yumbo.ai.api.source.FileListRequest;
 import top.yumbo.ai.api.source.FileSourceConfig;
 import top.yumbo.ai.api.source.IFileSource;
 import top.yumbo.ai.api.source.SourceFile;
@@ -19,8 +21,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 /**
  * ZIP archive file source implementation
@@ -33,6 +40,17 @@ import java.util.zip.ZipFile;
  * - Support for nested directory structures
  * - Automatic extraction to memory
  * - Filter by path patterns within the archive
+ * - Optional traversal of nested archives (ZIP/JAR/WAR inside the archive)
+ * <p>
+ * Nested archives are decompressed as streams, never extracted to disk. Their entries
+ * are exposed with composite IDs such as {@code lib/app.jar!/com/example/Main.java}.
+ * The first read from a nested archive streams through it once and keeps the other listed
+ * entries it passes for their own reads, so reading all entries does not rescan the archive
+ * per entry. Entries kept this way are dropped from memory when read, and their total size is
+ * capped by {@code nestedArchiveCacheBytes} (default 64MB): entries that do not fit are left
+ * for a later pass.
+ * Enable with the {@code nestedArchives} custom parameter and bound the recursion with
+ * {@code nestedArchiveMaxDepth} (default 3).
  *
  * @author AI-Reviewer Team
  * @since 1.1.0
@@ -40,10 +58,33 @@ import java.util.zip.ZipFile;
 @Slf4j
 public class ZipFileSource implements IFileSource {
 
+    /**
+     * Separator between archive levels in composite file IDs
+     */
+    public static final String NESTED_SEPARATOR = "!/";
+    private static final Pattern NESTED_SEPARATOR_PATTERN = Pattern.compile(Pattern.quote(NESTED_SEPARATOR));
+    private static final int DEFAULT_MAX_NESTING_DEPTH = 3;
+    /**
+     * Default cap of nested entries held in memory ahead of their reads
+     */
+    public static final long DEFAULT_NESTED_CACHE_BYTES = 64L * 1024 * 1024; // 64MB
+
     private ZipFile zipFile;
     private Path zipFilePath;
     private String basePath;
     private Map<String, byte[]> fileCache;
+    /**
+     * Listed entries of each nested archive not loaded yet, by composite archive ID
+     */
+    private Map<String, Set<String>> pendingNestedEntries;
+    /**
+     * Nested entries loaded ahead of their reads, by composite file ID; removed when read
+     */
+    private Map<String, byte[]> nestedCache;
+    private final AtomicLong nestedCacheBytes = new AtomicLong();
+    private long maxNestedCacheBytes;
+    private boolean nestedArchives;
+    private int maxNestingDepth;
     private boolean initialized = false;
 
     public ZipFileSource() {
@@ -95,11 +136,26 @@ public class ZipFileSource implements IFileSource {
             this.basePath = this.basePath.substring(0, this.basePath.length() - 1);
         }
 
-        this.fileCache = new HashMap<>();
+        // Nested archive traversal (optional)
+        Object nested = config.getCustomParam("nestedArchives");
+        this.nestedArchives = nested != null && Boolean.parseBoolean(nested.toString());
+        Object maxDepth = config.getCustomParam("nestedArchiveMaxDepth");
+        this.maxNestingDepth = maxDepth != null
+                ? Integer.parseInt(maxDepth.toString())
+                : DEFAULT_MAX_NESTING_DEPTH;
+        Object cacheBytes = config.getCustomParam("nestedArchiveCacheBytes");
+        this.maxNestedCacheBytes = cacheBytes != null
+                ? Long.parseLong(cacheBytes.toString())
+                : DEFAULT_NESTED_CACHE_BYTES;
+
+        this.fileCache = new ConcurrentHashMap<>();
+        this.pendingNestedEntries = new ConcurrentHashMap<>();
+        this.nestedCache = new ConcurrentHashMap<>();
+        this.nestedCacheBytes.set(0);
         this.initialized = true;
 
-        log.info("ZIP file source initialized: {} (entries: {})",
-                zipFilePath, zipFile.size());
+        log.info("ZIP file source initialized: {} (entries: {}, nested archives: {}, max depth: {})",
+                zipFilePath, zipFile.size(), nestedArchives, maxNestingDepth);
     }
 
     private void validateConfig(FileSourceConfig config) throws FileSourceException {
@@ -107,18 +163,30 @@ public class ZipFileSource implements IFileSource {
             throw new FileSourceException("ZIP file path is required (use basePath)");
         }
 
-        String path = config.getBasePath().toLowerCase();
-        if (!path.endsWith(".zip") && !path.endsWith(".jar") && !path.endsWith(".war")) {
+        if (!isArchive(config.getBasePath())) {
             throw new FileSourceException("File must be a ZIP archive (.zip, .jar, or .war)");
         }
     }
 
+    private static boolean isArchive(String name) {
+        String lower = name.toLowerCase();
+        return lower.endsWith(".zip") || lower.endsWith(".jar") || lower.endsWith(".war");
+    }
+
     @Override
     public List<SourceFile> listFiles(String path) throws Exception {
+        return listFiles(FileListRequest.of(path));
+    }
+
+    @Override
+    public List<SourceFile> listFiles(FileListRequest request) throws Exception {
         if (!initialized) {
             throw new FileSourceException("File source not initialized");
         }
 
+        String path = request.getBasePath();
+        FileListFilter filter = FileListFilter.of(request);
+
         // Construct full path within ZIP
         String searchPath = path == null || path.trim().isEmpty()
                 ? basePath
@@ -156,6 +224,31 @@ public class ZipFileSource implements IFileSource {
                     ? entryName
                     : entryName.substring(basePath.length() + 1);
 
+            // Descend into nested archives instead of exposing them as opaque binaries
+            if (nestedArchives && isArchive(entryName)) {
+                if (maxNestingDepth < 1) {
+                    log.debug("Skipping nested archive beyond depth limit: {}", entryName);
+                    continue;
+                }
+                if (!filter.mayContainMatches(relativePath + "!")) {
+                    continue;
+                }
+                try (InputStream is = zipFile.getInputStream(entry)) {
+                    listNestedEntries(is, entry.getName(), relativePath, 1, filter, result);
+                } catch (IOException e) {
+                    log.warn("Failed to read nested archive: {}", entryName, e);
+                }
+                continue;
+            }
+
+            // Apply filters using the entry name and attributes from the central directory
+            LocalDateTime lastModified = LocalDateTime.ofInstant(
+                    entry.getLastModifiedTime().toInstant(),
+                    ZoneId.systemDefault());
+            if (!filter.matches(relativePath, entry.getSize(), lastModified)) {
+                continue;
+            }
+
             // Extract file name
             String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
 
@@ -172,9 +265,7 @@ public class ZipFileSource implements IFileSource {
                     .relativePath(relativePath)
                     .fileName(fileName)
                     .fileSize(entry.getSize())
-                    .lastModified(LocalDateTime.ofInstant(
-                            entry.getLastModifiedTime().toInstant(),
-                            ZoneId.systemDefault()))
+                    .lastModified(lastModified)
                     .metadata(metadata)
                     .source(this)
                     .build();
@@ -186,6 +277,70 @@ public class ZipFileSource implements IFileSource {
         return result;
     }
 
+    /**
+     * List entries of a nested archive by streaming through it
+     * The given stream is positioned at the start of the archive data and is not closed here
+     *
+     * @param in                  stream of the nested archive content
+     * @param archiveId           composite ID of the nested archive itself
+     * @param archiveRelativePath relative path of the nested archive
+     * @param depth               nesting depth of the archive (1 = directly inside the outer ZIP)
+     * @param filter              listing filter
+     * @param result              list to append entries to
+     */
+    private void listNestedEntries(InputStream in, String archiveId, String archiveRelativePath,
+                                   int depth, FileListFilter filter, List<SourceFile> result) throws IOException {
+        // Do not close: closing would close the enclosing stream as well
+        ZipInputStream zis = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            if (entry.isDirectory()) {
+                continue;
+            }
+
+            String entryName = entry.getName().replace("\\", "/");
+            String fileId = archiveId + NESTED_SEPARATOR + entry.getName();
+            String relativePath = archiveRelativePath + NESTED_SEPARATOR + entryName;
+
+            if (isArchive(entryName)) {
+                if (depth >= maxNestingDepth) {
+                    log.debug("Skipping nested archive beyond depth limit: {}", fileId);
+                } else if (filter.mayContainMatches(relativePath + "!")) {
+                    listNestedEntries(zis, fileId, relativePath, depth + 1, filter, result);
+                }
+                continue;
+            }
+
+            LocalDateTime lastModified = entry.getLastModifiedTime() != null
+                    ? LocalDateTime.ofInstant(entry.getLastModifiedTime().toInstant(), ZoneId.systemDefault())
+                    : null;
+            // Entries written with a data descriptor have no size (-1) until read: size filters skip them
+            if (!filter.matches(relativePath, entry.getSize(), lastModified)) {
+                continue;
+            }
+
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("zipFile", zipFilePath.toString());
+            metadata.put("entryName", entry.getName());
+            metadata.put("archivePath", archiveId);
+            metadata.put("nestingDepth", depth);
+            metadata.put("method", getCompressionMethod(entry.getMethod()));
+
+            SourceFile sourceFile = SourceFile.builder()
+                    .fileId(fileId)
+                    .relativePath(relativePath)
+                    .fileName(entryName.substring(entryName.lastIndexOf('/') + 1))
+                    .fileSize(entry.getSize())
+                    .lastModified(lastModified)
+                    .metadata(metadata)
+                    .source(this)
+                    .build();
+
+            result.add(sourceFile);
+            pendingNestedEntries.computeIfAbsent(archiveId, k -> ConcurrentHashMap.newKeySet()).add(entry.getName());
+        }
+    }
+
     private String getCompressionMethod(int method) {
         return switch (method) {
             case ZipEntry.STORED -> "STORED";
@@ -203,8 +358,18 @@ public class ZipFileSource implements IFileSource {
         String entryName = file.getFileId();
 
         // Check cache first
-        if (fileCache.containsKey(entryName)) {
-            return new ByteArrayInputStream(fileCache.get(entryName));
+        byte[] cached = fileCache.get(entryName);
+        if (cached != null) {
+            file.setFileSize(cached.length);
+            return new ByteArrayInputStream(cached);
+        }
+
+        // Entries of nested archives are read by streaming through each level
+        if (entryName.contains(NESTED_SEPARATOR)) {
+            byte[] data = readNestedEntry(entryName);
+            // Sizes of nested entries may have been unknown when listed
+            file.setFileSize(data.length);
+            return new ByteArrayInputStream(data);
         }
 
         // Get entry from ZIP
@@ -226,6 +391,140 @@ public class ZipFileSource implements IFileSource {
         }
     }
 
+    /**
+     * Read an entry of a nested archive, loading pending entries of that archive in the same pass
+     */
+    private byte[] readNestedEntry(String fileId) throws FileSourceException {
+        int split = fileId.lastIndexOf(NESTED_SEPARATOR);
+        String archiveId = fileId.substring(0, split);
+        String entryName = fileId.substring(split + NESTED_SEPARATOR.length());
+        Set<String> pending = pendingNestedEntries.computeIfAbsent(archiveId, k -> ConcurrentHashMap.newKeySet());
+
+        // One pass per archive: concurrent readers of the same archive wait for it
+        synchronized (pending) {
+            byte[] data = takeNestedEntry(fileId);
+            if (data != null) {
+                return data;
+            }
+            data = loadNestedArchive(archiveId, entryName, pending);
+            if (data == null) {
+                throw new FileSourceException("Entry not found in nested archive: " + fileId);
+            }
+            return data;
+        }
+    }
+
+    /**
+     * Stream through a nested archive once, returning the requested entry and keeping the other
+     * pending entries it passes while they fit in the cache
+     *
+     * @param archiveId composite ID of the nested archive
+     * @param requested name of the entry to return
+     * @param pending   entry names not loaded yet; entries are removed as they are loaded
+     * @return content of the requested entry, null if the archive has no such entry
+     */
+    private byte[] loadNestedArchive(String archiveId, String requested, Set<String> pending)
+            throws FileSourceException {
+        String[] segments = NESTED_SEPARATOR_PATTERN.split(archiveId);
+
+        ZipEntry outerEntry = zipFile.getEntry(segments[0]);
+        if (outerEntry == null) {
+            throw new FileSourceException("Entry not found in ZIP: " + segments[0]);
+        }
+
+        InputStream current = null;
+        try {
+            current = zipFile.getInputStream(outerEntry);
+            for (int i = 1; i < segments.length; i++) {
+                ZipInputStream zis = new ZipInputStream(current);
+                current = zis;
+                if (!seekEntry(zis, segments[i])) {
+                    throw new FileSourceException("Nested archive not found: " + archiveId);
+                }
+            }
+            ZipInputStream archive = new ZipInputStream(current);
+            current = archive;
+            byte[] requestedData = null;
+            ZipEntry entry;
+            while ((entry = archive.getNextEntry()) != null) {
+                String name = entry.getName();
+                if (requestedData == null && name.equals(requested)) {
+                    pending.remove(name);
+                    requestedData = archive.readAllBytes();
+                } else if (pending.contains(name)) {
+                    byte[] data = readWithinCache(archive, entry.getSize());
+                    if (data != null) {
+                        pending.remove(name);
+                        nestedCache.put(archiveId + NESTED_SEPARATOR + name, data);
+                    }
+                }
+                if (requestedData != null
+                        && (pending.isEmpty() || nestedCacheBytes.get() >= maxNestedCacheBytes)) {
+                    break;
+                }
+            }
+            return requestedData;
+        } catch (IOException e) {
+            throw new FileSourceException("Failed to read nested archive: " + archiveId, e);
+        } finally {
+            if (current != null) {
+                try {
+                    // Closes the whole chain of nested streams
+                    current.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close nested ZIP stream: {}", archiveId, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the current entry into the nested cache budget
+     *
+     * @param size size of the entry, -1 if unknown
+     * @return the entry content, null if it does not fit in the remaining budget
+     */
+    private byte[] readWithinCache(InputStream in, long size) throws IOException {
+        long room = maxNestedCacheBytes - nestedCacheBytes.get();
+        if (room <= 0 || size > room) {
+            return null;
+        }
+        // Unknown sizes are read up to one byte past the budget to detect entries that do not fit
+        byte[] data = in.readNBytes((int) Math.min(room + 1, Integer.MAX_VALUE - 8));
+        if (data.length > room) {
+            return null;
+        }
+        if (nestedCacheBytes.addAndGet(data.length) > maxNestedCacheBytes) {
+            // Another archive's pass took the room meanwhile
+            nestedCacheBytes.addAndGet(-data.length);
+            return null;
+        }
+        return data;
+    }
+
+    /**
+     * Remove a nested entry from the cache
+     *
+     * @return the entry content, null if it is not cached
+     */
+    private byte[] takeNestedEntry(String fileId) {
+        byte[] data = nestedCache.remove(fileId);
+        if (data != null) {
+            nestedCacheBytes.addAndGet(-data.length);
+        }
+        return data;
+    }
+
+    private boolean seekEntry(ZipInputStream zis, String name) throws IOException {
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            if (entry.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void close() throws Exception {
         if (zipFile != null) {
@@ -239,6 +538,13 @@ public class ZipFileSource implements IFileSource {
         if (fileCache != null) {
             fileCache.clear();
         }
+        if (nestedCache != null) {
+            nestedCache.clear();
+            nestedCacheBytes.set(0);
+        }
+        if (pendingNestedEntries != null) {
+            pendingNestedEntries.clear();
+        }
 
         this.initialized = false;
         log.info("ZIP file source closed: {}", zipFilePath);
@@ -267,6 +573,8 @@ public class ZipFileSource implements IFileSource {
     public Map<String, Object> getCacheStats() {
         Map<String, Object> stats = new HashMap<>();
         stats.put("cachedFiles", fileCache.size());
+        stats.put("nestedCachedFiles", nestedCache.size());
+        stats.put("nestedCacheBytes", nestedCacheBytes.get());
         stats.put("totalEntries", zipFile != null ? zipFile.size() : 0);
         return stats;
     }
@@ -279,6 +587,10 @@ public class ZipFileSource implements IFileSource {
             fileCache.clear();
             log.debug("ZIP file cache cleared");
         }
+        if (nestedCache != null) {
+            // Cleared entries are no longer pending: later reads load them again
+            nestedCache.keySet().forEach(this::takeNestedEntry);
+        }
     }
 }
 
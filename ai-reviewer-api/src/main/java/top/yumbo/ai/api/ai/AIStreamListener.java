@@ -0,0 +1,32 @@
+package top.yumbo.ai.api.ai;
+import top.yumbo.ai.api.model.AIResponse;
+/**
+ * Callback for streamed AI responses
+ * Methods are called on the thread that reads the response, in arrival order.
+ */
+public interface AIStreamListener {
+    /**
+     * No-op listener
+     */
+    AIStreamListener NONE = chunk -> { };
+    /**
+     * Called for every content chunk as soon as it arrives
+     *
+     * @param chunk generated text since the previous chunk
+     */
+    void onChunk(String chunk);
+    /**
+     * Called once the full response has been assembled
+     *
+     * @param response final response including token usage when the provider reports it
+     */
+    default void onComplete(AIResponse response) {
+    }
+    /**
+     * Called if the stream fails; no further callbacks follow
+     *
+     * @param error failure cause
+     */
+    default void onError(Throwable error) {
+    }
+}
@@ -2,6 +2,7 @@ package top.yumbo.ai.api.ai;
 import top.yumbo.ai.api.model.AIConfig;
 import top.yumbo.ai.api.model.AIResponse;
 import top.yumbo.ai.api.model.PreProcessedData;
+import java.util.concurrent.CompletableFuture;
 /**
  * AI service interface for invoking different AI providers
  */
@@ -15,6 +16,73 @@ public interface IAIService {
      * @throws Exception if AI invocation fails
      */
     AIResponse invoke(PreProcessedData data, AIConfig config) throws Exception;
+    /**
+     * Invoke AI service asynchronously
+     * The default implementation calls {@link #invoke} on the calling thread and returns a
+     * completed future; adapters with non-blocking I/O override it and {@link #supportsAsync()}.
+     * 
+     * @param data preprocessed data from parser
+     * @param config AI configuration
+     * @return future completed with the AI response, or exceptionally if invocation fails
+     */
+    default CompletableFuture<AIResponse> invokeAsync(PreProcessedData data, AIConfig config) {
+        try {
+            return CompletableFuture.completedFuture(invoke(data, config));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+    /**
+     * Check if {@link #invokeAsync} is natively non-blocking
+     * Callers use it to decide whether many requests can be kept in flight without a thread each.
+     * 
+     * @return true if invokeAsync does not block the calling thread
+     */
+    default boolean supportsAsync() {
+        return false;
+    }
+    /**
+     * Invoke AI service and stream the generated content to the listener as it arrives
+     * The default implementation calls {@link #invoke} and reports the whole content as one chunk.
+     *
+     * @param data preprocessed data from parser
+     * @param config AI configuration
+     * @param listener chunk callback
+     * @return assembled AI response
+     * @throws Exception if AI invocation fails
+     */
+    default AIResponse invokeStreaming(PreProcessedData data, AIConfig config, AIStreamListener listener) throws Exception {
+        AIResponse response;
+        try {
+            response = invoke(data, config);
+        } catch (Exception e) {
+            listener.onError(e);
+            throw e;
+        }
+        if (response.getContent() != null) {
+            listener.onChunk(response.getContent());
+        }
+        listener.onComplete(response);
+        return response;
+    }
+    /**
+     * Check if {@link #invokeStreaming} delivers content incrementally
+     *
+     * @return true if chunks are reported while the response is generated
+     */
+    default boolean supportsStreaming() {
+        return false;
+    }
+    /**
+     * Pre-establish connections to the provider so the first calls skip DNS and handshakes
+     * The default implementation does nothing.
+     *
+     * @return number of connections warmed
+     */
+    default int warmUp() {
+        return 0;
+    }
+
     /**
      * Check if the AI service is available
      * 
@@ -0,0 +1,223 @@
+package top.yumbo.ai.api.source;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Compiled form of a {@link FileListRequest}
+ *
+ * Glob patterns are compiled once so that file sources can evaluate them per entry
+ * while listing. Besides matching single files it answers the questions sources need
+ * for pushdown: which subtrees can be skipped and which path prefixes need listing.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public final class FileListFilter {
+
+    private static final String GLOB_META_CHARS = "*?[{";
+    private static final String RECURSIVE_SUFFIX = "/**";
+
+    private final List<PathMatcher> includeMatchers;
+    private final List<PathMatcher> excludeMatchers;
+    private final List<PathMatcher> excludedDirectoryMatchers;
+    private final List<String> listingPrefixes;
+    private final Long maxFileSize;
+    private final LocalDateTime modifiedSince;
+
+    private FileListFilter(FileListRequest request) {
+        List<String> includes = request.getIncludePatterns() != null ? request.getIncludePatterns() : List.of();
+        List<String> excludes = request.getExcludePatterns() != null ? request.getExcludePatterns() : List.of();
+
+        this.includeMatchers = compile(includes);
+        this.excludeMatchers = compile(excludes);
+
+        // "dir/**" style excludes cover whole subtrees, so their directories can be pruned
+        List<String> directoryPatterns = new ArrayList<>();
+        for (String pattern : excludes) {
+            if (pattern.endsWith(RECURSIVE_SUFFIX)) {
+                directoryPatterns.add(pattern.substring(0, pattern.length() - RECURSIVE_SUFFIX.length()));
+            }
+        }
+        this.excludedDirectoryMatchers = compile(directoryPatterns);
+        this.listingPrefixes = computeListingPrefixes(includes);
+        this.maxFileSize = request.getMaxFileSize();
+        this.modifiedSince = request.getModifiedSince();
+    }
+
+    /**
+     * Compile a listing request
+     *
+     * @param request listing request (may be null)
+     * @return compiled filter
+     */
+    public static FileListFilter of(FileListRequest request) {
+        return new FileListFilter(request != null ? request : FileListRequest.builder().build());
+    }
+
+    /**
+     * Check if a listed file passes all filters
+     *
+     * @param file source file
+     * @return true if the file should be listed
+     */
+    public boolean matches(SourceFile file) {
+        return matches(file.getRelativePath(), file.getFileSize(), file.getLastModified());
+    }
+
+    /**
+     * Check if a file passes all filters
+     *
+     * @param relativePath path relative to the source root, using '/' separators
+     * @param fileSize file size in bytes (negative if unknown)
+     * @param lastModified last modified time (may be null)
+     * @return true if the file should be listed
+     */
+    public boolean matches(String relativePath, long fileSize, LocalDateTime lastModified) {
+        if (maxFileSize != null && fileSize > maxFileSize) {
+            return false;
+        }
+        if (modifiedSince != null && lastModified != null && lastModified.isBefore(modifiedSince)) {
+            return false;
+        }
+        return matchesPath(relativePath);
+    }
+
+    /**
+     * Check if a path passes the include/exclude patterns
+     *
+     * @param relativePath path relative to the source root
+     * @return true if included and not excluded
+     */
+    public boolean matchesPath(String relativePath) {
+        if (!isUnderListingPrefixes(relativePath)) {
+            return false;
+        }
+        if (!includeMatchers.isEmpty() && !anyMatch(includeMatchers, relativePath)) {
+            return false;
+        }
+        return !anyMatch(excludeMatchers, relativePath);
+    }
+
+    /**
+     * Check if a directory may contain files that pass the filters
+     * Sources walking a tree skip the subtree when this returns false.
+     *
+     * @param relativeDirectory directory path relative to the source root ("" for the root)
+     * @return false if no file below the directory can match
+     */
+    public boolean mayContainMatches(String relativeDirectory) {
+        if (relativeDirectory == null || relativeDirectory.isEmpty()) {
+            return true;
+        }
+        if (anyMatch(excludedDirectoryMatchers, relativeDirectory)) {
+            return false;
+        }
+        if (listingPrefixes.isEmpty()) {
+            return true;
+        }
+        String directory = relativeDirectory + "/";
+        for (String prefix : listingPrefixes) {
+            // Directory is inside a listed prefix, or on the way to one
+            if (directory.startsWith(prefix) || prefix.startsWith(directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the literal path prefixes that all included files must start with
+     * Sources with prefix listing (S3, ZIP) only need to list these.
+     *
+     * @return non-overlapping prefixes ending with '/', or an empty list if the whole tree is needed
+     */
+    public List<String> getListingPrefixes() {
+        return listingPrefixes;
+    }
+
+    /**
+     * Check if a path lies under one of the listing prefixes
+     *
+     * @param relativePath path relative to the source root
+     * @return true if there are no prefixes or the path starts with one of them
+     */
+    public boolean isUnderListingPrefixes(String relativePath) {
+        if (listingPrefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : listingPrefixes) {
+            if (relativePath.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check if this filter accepts everything
+     *
+     * @return true if no filter is configured
+     */
+    public boolean isUnrestricted() {
+        return includeMatchers.isEmpty() && excludeMatchers.isEmpty()
+                && maxFileSize == null && modifiedSince == null;
+    }
+
+    private static List<PathMatcher> compile(List<String> patterns) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        for (String pattern : patterns) {
+            matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        }
+        return matchers;
+    }
+
+    private static boolean anyMatch(List<PathMatcher> matchers, String relativePath) {
+        if (matchers.isEmpty()) {
+            return false;
+        }
+        Path path = Path.of(relativePath);
+        // Leading "/" lets "**/x" patterns match entries at the root as well
+        Path rooted = Path.of("/" + relativePath);
+        for (PathMatcher matcher : matchers) {
+            if (matcher.matches(path) || matcher.matches(rooted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<String> computeListingPrefixes(List<String> includes) {
+        TreeSet<String> prefixes = new TreeSet<>();
+        for (String pattern : includes) {
+            int end = pattern.length();
+            for (int i = 0; i < pattern.length(); i++) {
+                if (GLOB_META_CHARS.indexOf(pattern.charAt(i)) >= 0) {
+                    end = i;
+                    break;
+                }
+            }
+            String literal = pattern.substring(0, end);
+            String prefix = literal.substring(0, literal.lastIndexOf('/') + 1);
+            if (prefix.isEmpty() || prefix.startsWith("/")) {
+                // At least one pattern can match anywhere: no narrowing possible
+                return List.of();
+            }
+            prefixes.add(prefix);
+        }
+
+        // Drop prefixes already covered by a shorter one (sorted order puts parents first)
+        List<String> result = new ArrayList<>();
+        for (String prefix : prefixes) {
+            if (result.isEmpty() || !prefix.startsWith(result.get(result.size() - 1))) {
+                result.add(prefix);
+            }
+        }
+        return List.copyOf(result);
+    }
+}
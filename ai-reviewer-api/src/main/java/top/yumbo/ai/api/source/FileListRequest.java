@@ -0,0 +1,57 @@
+package top.yumbo.ai.api.source;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Listing request for file sources
+ *
+ * Carries the filters that a file source can apply natively while listing
+ * (prefix narrowing, subtree pruning, ...) instead of filtering afterwards.
+ * Glob patterns are matched against {@link SourceFile#getRelativePath()}.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Data
+@Builder
+public class FileListRequest {
+
+    /**
+     * Base path to list files from (relative to source root)
+     */
+    private String basePath;
+
+    /**
+     * Include glob patterns (empty means include all)
+     */
+    private List<String> includePatterns;
+
+    /**
+     * Exclude glob patterns
+     */
+    private List<String> excludePatterns;
+
+    /**
+     * Maximum file size in bytes (null means unlimited)
+     */
+    private Long maxFileSize;
+
+    /**
+     * Only list files modified at or after this time (null means any time)
+     */
+    private LocalDateTime modifiedSince;
+
+    /**
+     * Create a request listing everything under the given path
+     *
+     * @param basePath base path to list files from
+     * @return unrestricted listing request
+     */
+    public static FileListRequest of(String basePath) {
+        return FileListRequest.builder().basePath(basePath).build();
+    }
+}
@@ -21,6 +21,11 @@ public class FileSourceConfig {
 
     // ========== Common Configuration ==========
 
+    /**
+     * Optional display name identifying this source (e.g. in federated executions)
+     */
+    private String name;
+
     /**
      * Type of file source: "local", "sftp", "git", "s3", etc.
      */
@@ -0,0 +1,304 @@
+package top.yumbo.ai.api.source;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Execution-scoped spool for local copies of source files
+ *
+ * Parsers need a {@link File}, so files from remote sources are copied to the spool
+ * directory while they are parsed. Unlike {@link SourceFile#toTempFile()}, spooled files
+ * are reference counted and deleted as soon as the last holder releases them, repeated
+ * acquires of the same file reuse the existing copy, and the total size is capped:
+ * {@link #acquire(SourceFile)} blocks until enough space has been released.
+ *
+ * The spool directory can be placed on tmpfs (e.g. /dev/shm) to keep copies off disk.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class FileSpool implements AutoCloseable {
+
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024; // 256MB
+
+    private final Path directory;
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition spaceReleased = lock.newCondition();
+
+    private long currentBytes;
+    private long peakBytes;
+    private int peakFileCount;
+    private long reuseCount;
+    private long waitCount;
+    private boolean closed;
+
+    /**
+     * Create a spool with the default size cap in the system temp directory
+     *
+     * @throws IOException if the spool directory cannot be created
+     */
+    public FileSpool() throws IOException {
+        this(null, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Create a spool
+     *
+     * @param parentDirectory directory to create the spool in (null for the system temp directory)
+     * @param maxBytes maximum total size of spooled files
+     * @throws IOException if the spool directory cannot be created
+     */
+    public FileSpool(Path parentDirectory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.directory = parentDirectory != null
+                ? Files.createTempDirectory(Files.createDirectories(parentDirectory), "ai-reviewer-spool-")
+                : Files.createTempDirectory("ai-reviewer-spool-");
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get a local copy of the source file, copying it into the spool if needed
+     * Every call must be paired with {@link #release(SourceFile)}.
+     *
+     * @param file source file
+     * @return local file with the same content
+     * @throws Exception if copying fails or the thread is interrupted while waiting for space
+     */
+    public File acquire(SourceFile file) throws Exception {
+        String key = file.getFileId();
+        long reserved = Math.max(file.getFileSize(), 0);
+        Entry entry;
+        boolean owner = false;
+
+        lock.lock();
+        try {
+            ensureOpen();
+            entry = entries.get(key);
+            if (entry != null) {
+                entry.refCount++;
+                reuseCount++;
+            } else {
+                // Backpressure: wait until released files make room (a single oversized file
+                // is still admitted into an empty spool)
+                while (currentBytes > 0 && currentBytes + reserved > maxBytes) {
+                    waitCount++;
+                    spaceReleased.await();
+                    ensureOpen();
+                }
+                entry = entries.get(key);
+                if (entry != null) {
+                    entry.refCount++;
+                    reuseCount++;
+                } else {
+                    entry = new Entry(reserved);
+                    entries.put(key, entry);
+                    currentBytes += reserved;
+                    updatePeaks();
+                    owner = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (owner) {
+            copy(file, entry);
+        }
+
+        try {
+            return entry.ready.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+    }
+
+    private void copy(SourceFile file, Entry entry) {
+        Path spoolFile = null;
+        try {
+            spoolFile = Files.createTempFile(directory, "spool-", "-" + file.getFileName());
+            long size;
+            try (InputStream in = file.getInputStream()) {
+                size = Files.copy(in, spoolFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            lock.lock();
+            try {
+                // Listed sizes can be missing or stale: account for the real size
+                currentBytes += size - entry.size;
+                entry.size = size;
+                entry.path = spoolFile;
+                updatePeaks();
+            } finally {
+                lock.unlock();
+            }
+            entry.ready.complete(spoolFile.toFile());
+        } catch (Exception e) {
+            lock.lock();
+            try {
+                entries.remove(file.getFileId(), entry);
+                currentBytes -= entry.size;
+                spaceReleased.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            deleteQuietly(spoolFile);
+            entry.ready.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Release a file obtained from {@link #acquire(SourceFile)}
+     * The local copy is deleted once no holder is left.
+     *
+     * @param file source file
+     */
+    public void release(SourceFile file) {
+        Path toDelete = null;
+        lock.lock();
+        try {
+            Entry entry = entries.get(file.getFileId());
+            if (entry == null || --entry.refCount > 0) {
+                return;
+            }
+            entries.remove(file.getFileId());
+            currentBytes -= entry.size;
+            toDelete = entry.path;
+            spaceReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        deleteQuietly(toDelete);
+    }
+
+    /**
+     * Get the total size of spooled files in bytes
+     */
+    public long getSpoolBytes() {
+        lock.lock();
+        try {
+            return currentBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of spooled files
+     */
+    public int getFileCount() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the spool directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get spool statistics
+     */
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("spoolBytes", currentBytes);
+            stats.put("spoolFileCount", entries.size());
+            stats.put("spoolPeakBytes", peakBytes);
+            stats.put("spoolPeakFileCount", peakFileCount);
+            stats.put("spoolReuseCount", reuseCount);
+            stats.put("spoolWaitCount", waitCount);
+            stats.put("spoolMaxBytes", maxBytes);
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Delete all spooled files and the spool directory
+     * Threads waiting for space fail with an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        List<Path> toDelete = new ArrayList<>();
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            for (Entry entry : entries.values()) {
+                toDelete.add(entry.path);
+            }
+            entries.clear();
+            currentBytes = 0;
+            spaceReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        toDelete.forEach(FileSpool::deleteQuietly);
+        try (var stream = Files.list(directory)) {
+            // Files still being copied when the spool was closed
+            stream.forEach(FileSpool::deleteQuietly);
+        } catch (IOException e) {
+            // Directory already gone
+        }
+        deleteQuietly(directory);
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("File spool is closed");
+        }
+    }
+
+    private void updatePeaks() {
+        peakBytes = Math.max(peakBytes, currentBytes);
+        peakFileCount = Math.max(peakFileCount, entries.size());
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            // Best effort: the spool directory is removed on close
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<File> ready = new CompletableFuture<>();
+        private long size;
+        private Path path;
+        private int refCount = 1;
+
+        private Entry(long size) {
+            this.size = size;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package top.yumbo.ai.api.source;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * File source interface - unified abstraction for different file sources
@@ -51,8 +53,26 @@ public interface IFileSource extends AutoCloseable {
      */
     List<SourceFile> listFiles(String basePath) throws Exception;
 
+    /**
+     * List files matching the given request
+     * Sources should override this to apply the filters natively while listing
+     * (prefix narrowing, subtree pruning); the default lists everything and filters afterwards.
+     *
+     * @param request listing request with base path and filters
+     * @return list of source files passing the filters
+     * @throws Exception if listing fails
+     */
+    default List<SourceFile> listFiles(FileListRequest request) throws Exception {
+        FileListFilter filter = FileListFilter.of(request);
+        return listFiles(request.getBasePath()).stream()
+                .filter(filter::matches)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Read the content of a specific file
+     * May be called from several threads at once (parse workers, prefetching); sources backed by a
+     * connection that is not thread-safe must serialize or pool it.
      *
      * @param file the source file to read
      * @return input stream of file content
@@ -60,6 +80,17 @@ public interface IFileSource extends AutoCloseable {
      */
     InputStream readFile(SourceFile file) throws Exception;
 
+    /**
+     * Get the local path of a file that already lives on the local file system
+     * Callers needing a java.io.File can use it directly instead of copying the content.
+     *
+     * @param file the source file
+     * @return local path, or null if the file is not available locally
+     */
+    default Path getLocalPath(SourceFile file) {
+        return null;
+    }
+
     /**
      * Close the file source and release resources
      * This method should close connections, clean up temporary files, etc.
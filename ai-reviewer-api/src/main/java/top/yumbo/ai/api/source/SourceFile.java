@@ -43,7 +43,7 @@ public class SourceFile {
     private String fileName;
 
     /**
-     * File size in bytes
+     * File size in bytes (negative if unknown until the file is read)
      */
     private long fileSize;
 
@@ -79,10 +79,14 @@ public class SourceFile {
     /**
      * Convert this source file to a temporary local file
      * This is useful when the parser requires a java.io.File object
+     * <p>
+     * The file is only deleted on JVM exit, so every call leaks a copy until then.
      *
      * @return temporary local file
      * @throws Exception if conversion fails
+     * @deprecated use {@link #toTempFile(FileSpool)}, whose copies are deleted once released
      */
+    @Deprecated(since = "1.1.0")
     public File toTempFile() throws Exception {
         // Create temporary file with original extension
         String extension = "";
@@ -103,6 +107,18 @@ public class SourceFile {
         return tempFile;
     }
 
+    /**
+     * Get a local copy of this source file from the given spool
+     * The copy is shared between holders and must be released with {@link FileSpool#release(SourceFile)}.
+     *
+     * @param spool execution-scoped file spool
+     * @return spooled local file
+     * @throws Exception if conversion fails
+     */
+    public File toTempFile(FileSpool spool) throws Exception {
+        return spool.acquire(this);
+    }
+
     /**
      * Put metadata
      *
@@ -0,0 +1,92 @@
+package top.yumbo.ai.api.source;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pattern matching and listing pushdown of {@link FileListFilter}
+ */
+class FileListFilterTest {
+
+    @Test
+    void acceptsEverythingWithoutFilters() {
+        FileListFilter filter = FileListFilter.of(null);
+
+        assertTrue(filter.isUnrestricted());
+        assertTrue(filter.matches("src/main/java/A.java", 1_000_000, null));
+        assertTrue(filter.mayContainMatches("node_modules"));
+        assertTrue(filter.getListingPrefixes().isEmpty());
+    }
+
+    @Test
+    void matchesIncludeAndExcludePatterns() {
+        FileListFilter filter = FileListFilter.of(FileListRequest.builder()
+                .includePatterns(List.of("**/*.java"))
+                .excludePatterns(List.of("**/test/**"))
+                .build());
+
+        assertFalse(filter.isUnrestricted());
+        assertTrue(filter.matchesPath("src/main/java/A.java"));
+        assertTrue(filter.matchesPath("A.java"));
+        assertFalse(filter.matchesPath("src/main/resources/app.yml"));
+        assertFalse(filter.matchesPath("src/test/java/ATest.java"));
+    }
+
+    @Test
+    void filtersBySizeAndModificationTime() {
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+        FileListFilter filter = FileListFilter.of(FileListRequest.builder()
+                .maxFileSize(1024L)
+                .modifiedSince(since)
+                .build());
+
+        assertTrue(filter.matches("A.java", 1024, since));
+        assertFalse(filter.matches("A.java", 1025, since));
+        assertFalse(filter.matches("A.java", 10, since.minusDays(1)));
+        // Unknown size or time is left to the caller
+        assertTrue(filter.matches("A.java", -1, null));
+    }
+
+    @Test
+    void computesListingPrefixesFromIncludes() {
+        FileListFilter filter = FileListFilter.of(FileListRequest.builder()
+                .includePatterns(List.of("src/main/java/**/*.java", "src/main/**/*.xml", "docs/*.md"))
+                .build());
+
+        assertEquals(List.of("docs/", "src/main/"), filter.getListingPrefixes());
+        assertTrue(filter.isUnderListingPrefixes("src/main/java/A.java"));
+        assertFalse(filter.isUnderListingPrefixes("src/test/java/ATest.java"));
+        assertFalse(filter.matchesPath("lib/src/main/java/A.java"));
+    }
+
+    @Test
+    void patternsMatchingAnywhereDisablePrefixes() {
+        FileListFilter filter = FileListFilter.of(FileListRequest.builder()
+                .includePatterns(List.of("src/main/**/*.java", "**/*.xml"))
+                .build());
+
+        assertTrue(filter.getListingPrefixes().isEmpty());
+        assertTrue(filter.matchesPath("module/pom.xml"));
+    }
+
+    @Test
+    void prunesDirectoriesOutsideTheIncludesOrExcluded() {
+        FileListFilter filter = FileListFilter.of(FileListRequest.builder()
+                .includePatterns(List.of("src/main/java/**/*.java"))
+                .excludePatterns(List.of("src/main/java/generated/**"))
+                .build());
+
+        assertTrue(filter.mayContainMatches(""));
+        assertTrue(filter.mayContainMatches("src"));
+        assertTrue(filter.mayContainMatches("src/main/java/com/example"));
+        assertFalse(filter.mayContainMatches("src/test"));
+        assertFalse(filter.mayContainMatches("src/main/java/generated"));
+        assertFalse(filter.matchesPath("src/main/java/generated/B.java"));
+    }
+}
@@ -3,10 +3,31 @@ package top.yumbo.ai.common.exception;
  * Exception thrown during AI service invocation
  */
 public class AIServiceException extends AIReviewerException {
+    /**
+     * HTTP status code of the failed call, -1 if the failure was not an HTTP error response
+     */
+    private final int statusCode;
+    /**
+     * Delay requested by the provider (Retry-After) in milliseconds, -1 if none
+     */
+    private final long retryAfterMs;
     public AIServiceException(String message) {
-        super(message);
+        this(message, -1, -1);
     }
     public AIServiceException(String message, Throwable cause) {
         super(message, cause);
+        this.statusCode = -1;
+        this.retryAfterMs = -1;
+    }
+    public AIServiceException(String message, int statusCode, long retryAfterMs) {
+        super(message);
+        this.statusCode = statusCode;
+        this.retryAfterMs = retryAfterMs;
+    }
+    public int getStatusCode() {
+        return statusCode;
+    }
+    public long getRetryAfterMs() {
+        return retryAfterMs;
     }
 }
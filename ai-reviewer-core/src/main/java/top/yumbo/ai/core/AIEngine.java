@@ -1,34 +1,119 @@
 package top.yumbo.ai.core;
 
 import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.ai.AIStreamListener;
 import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
 import top.yumbo.ai.api.model.AIResponse;
 import top.yumbo.ai.api.model.PreProcessedData;
 import top.yumbo.ai.api.model.ProcessResult;
 import top.yumbo.ai.api.parser.IFileParser;
 import top.yumbo.ai.api.processor.IResultProcessor;
+import top.yumbo.ai.api.source.FileListRequest;
+import top.yumbo.ai.api.source.FileSourceConfig;
+import top.yumbo.ai.api.source.FileSpool;
+import top.yumbo.ai.api.source.IFileSource;
+import top.yumbo.ai.api.source.SourceFile;
 import top.yumbo.ai.common.exception.AIReviewerException;
+import top.yumbo.ai.common.exception.AIServiceException;
+import top.yumbo.ai.core.ai.BackendConfigs;
+import top.yumbo.ai.core.ai.CascadeAIService;
+import top.yumbo.ai.core.ai.CircuitBreakerAIService;
+import top.yumbo.ai.core.ai.HedgingAIService;
+import top.yumbo.ai.core.ai.RateLimitedAIService;
+import top.yumbo.ai.core.ai.PromptCacheGroups;
+import top.yumbo.ai.core.ai.RoutingAIService;
 import top.yumbo.ai.core.context.ExecutionContext;
 import top.yumbo.ai.core.filter.FileFilter;
+import top.yumbo.ai.core.limit.AdaptiveConcurrencyLimiter;
+import top.yumbo.ai.core.limit.TokenBucketRateLimiter;
+import top.yumbo.ai.core.limit.TokenBudget;
 import top.yumbo.ai.core.registry.AdapterRegistry;
 import top.yumbo.ai.core.scanner.FileScanner;
+import top.yumbo.ai.core.source.PrefetchingFileSource;
 
+import java.io.File;
+import java.io.InterruptedIOException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Main AI Engine for orchestrating the entire processing pipeline
  */
 @Slf4j
-public class AIEngine {
+public class AIEngine implements AutoCloseable {
+    /**
+     * Metadata key identifying the source of a file in federated executions
+     */
+    public static final String SOURCE_ID_KEY = "sourceId";
+    /**
+     * Context and result metadata key for the tokens used by the AI stage
+     */
+    public static final String TOKENS_USED_KEY = "aiTokensUsed";
+    /**
+     * Context and result metadata key for the number of files whose AI call failed
+     */
+    public static final String AI_FAILURES_KEY = "aiFailedCount";
+    /**
+     * Context and result metadata key for the adaptive concurrency limiter statistics
+     */
+    public static final String CONCURRENCY_STATS_KEY = "aiConcurrency";
+    /**
+     * Context and result metadata key for the rate limiter statistics
+     */
+    public static final String RATE_LIMIT_STATS_KEY = "aiRateLimit";
+    /**
+     * Context and result metadata key for the hedging statistics
+     */
+    public static final String HEDGE_STATS_KEY = "aiHedging";
+    /**
+     * Context and result metadata key for the circuit breaker statistics
+     */
+    public static final String CIRCUIT_STATS_KEY = "aiCircuit";
+    /**
+     * Context and result metadata key for the per-route statistics of a routing AI service
+     */
+    public static final String ROUTING_STATS_KEY = "aiRouting";
+    /**
+     * Context and result metadata key for the model cascade statistics
+     */
+    public static final String CASCADE_STATS_KEY = "aiCascade";
+    /**
+     * Context and result metadata key for the per-group prompt cache statistics
+     */
+    public static final String PROMPT_CACHE_STATS_KEY = "aiPromptCache";
+    /**
+     * Context and result metadata key for the token budget statistics
+     */
+    public static final String TOKEN_BUDGET_STATS_KEY = "aiTokenBudget";
+
     protected final AdapterRegistry registry;
     protected final FileScanner fileScanner;
     protected final FileFilter fileFilter;
     protected ExecutorService executorService;
+    /**
+     * Adaptive limiters per provider and model, kept across executions so they stay converged
+     */
+    private final Map<String, AdaptiveConcurrencyLimiter> concurrencyLimiters = new ConcurrentHashMap<>();
+    /**
+     * Hedging decorators per provider and model, kept across executions for their latency history
+     */
+    private final Map<String, HedgingAIService> hedgingServices = new ConcurrentHashMap<>();
+    /**
+     * Circuit breakers per provider and model, kept across executions so an outage is remembered
+     */
+    private final Map<String, CircuitBreakerAIService> circuitBreakers = new ConcurrentHashMap<>();
 
     public AIEngine(AdapterRegistry registry) {
         this.registry = registry;
@@ -46,19 +131,31 @@ public class AIEngine {
 
         log.info("Starting AI Engine execution: {}", context.getExecutionId());
 
+        List<IFileSource> openedSources = new CopyOnWriteArrayList<>();
+        FileSpool spool = null;
         try {
             // Initialize thread pool
             this.executorService = Executors.newFixedThreadPool(context.getThreadPoolSize());
 
-            // Step 1: Scan files
+            // Step 1: Scan files (from the file sources when configured)
             long scanStartMs = System.currentTimeMillis();
-            List<Path> files = fileScanner.scan(context.getTargetDirectory());
+            List<Path> files = List.of();
+            List<SourceFile> sourceFiles = null;
+            if (isFederated(context)) {
+                sourceFiles = listFederatedSources(context, openedSources);
+            } else if (context.getFileSourceConfig() != null) {
+                IFileSource fileSource = withPrefetching(openFileSource(context.getFileSourceConfig()), context);
+                openedSources.add(fileSource);
+                sourceFiles = listSourceFiles(fileSource, context);
+            } else {
+                files = fileScanner.scan(context.getTargetDirectory());
+            }
             long scanTimeMs = System.currentTimeMillis() - scanStartMs;
             log.debug("File scanning took {} ms", scanTimeMs);
 
-            // Step 2: Filter files
+            // Step 2: Filter files (already pushed down into the file source listing)
             long filterStartMs = System.currentTimeMillis();
-            List<Path> filteredFiles = fileFilter.filter(files,
+            List<Path> filteredFiles = sourceFiles != null ? List.of() : fileFilter.filter(files,
                     context.getIncludePatterns(),
                     context.getExcludePatterns());
             long filterTimeMs = System.currentTimeMillis() - filterStartMs;
@@ -66,7 +163,13 @@ public class AIEngine {
 
             // Step 3: Parse files
             long parseStartMs = System.currentTimeMillis();
-            List<PreProcessedData> preprocessedDataList = parseFiles(filteredFiles);
+            List<PreProcessedData> preprocessedDataList;
+            if (sourceFiles != null) {
+                spool = new FileSpool(context.getSpoolDirectory(), context.getMaxSpoolBytes());
+                preprocessedDataList = parseSourceFiles(sourceFiles, spool);
+            } else {
+                preprocessedDataList = parseFiles(filteredFiles);
+            }
             long parseTimeMs = System.currentTimeMillis() - parseStartMs;
             context.setParsingTimeMs(parseTimeMs);
             log.info("File parsing took {} ms", parseTimeMs);
@@ -112,6 +215,39 @@ public class AIEngine {
             result.getMetadata().put("resultProcessingTimeMs", processTimeMs);
             result.getMetadata().put("scanTimeMs", scanTimeMs);
             result.getMetadata().put("filterTimeMs", filterTimeMs);
+            if (spool != null) {
+                result.getMetadata().putAll(spool.getStats());
+            }
+            if (context.get(TOKENS_USED_KEY) != null) {
+                result.getMetadata().put(TOKENS_USED_KEY, context.get(TOKENS_USED_KEY));
+            }
+            if (context.get(AI_FAILURES_KEY) != null) {
+                result.getMetadata().put(AI_FAILURES_KEY, context.get(AI_FAILURES_KEY));
+            }
+            if (context.get(CONCURRENCY_STATS_KEY) != null) {
+                result.getMetadata().put(CONCURRENCY_STATS_KEY, context.get(CONCURRENCY_STATS_KEY));
+            }
+            if (context.get(ROUTING_STATS_KEY) != null) {
+                result.getMetadata().put(ROUTING_STATS_KEY, context.get(ROUTING_STATS_KEY));
+            }
+            if (context.get(CIRCUIT_STATS_KEY) != null) {
+                result.getMetadata().put(CIRCUIT_STATS_KEY, context.get(CIRCUIT_STATS_KEY));
+            }
+            if (context.get(CASCADE_STATS_KEY) != null) {
+                result.getMetadata().put(CASCADE_STATS_KEY, context.get(CASCADE_STATS_KEY));
+            }
+            if (context.get(HEDGE_STATS_KEY) != null) {
+                result.getMetadata().put(HEDGE_STATS_KEY, context.get(HEDGE_STATS_KEY));
+            }
+            if (context.get(RATE_LIMIT_STATS_KEY) != null) {
+                result.getMetadata().put(RATE_LIMIT_STATS_KEY, context.get(RATE_LIMIT_STATS_KEY));
+            }
+            if (context.get(PROMPT_CACHE_STATS_KEY) != null) {
+                result.getMetadata().put(PROMPT_CACHE_STATS_KEY, context.get(PROMPT_CACHE_STATS_KEY));
+            }
+            if (isFederated(context)) {
+                result.getMetadata().put("sources", summarizeSources(sourceFiles, aiResponses));
+            }
 
             log.info("AI Engine execution completed: {} ( parsing: {} ms, AI: {} ms, processing: {} ms)",
                     context.getExecutionId(), parseTimeMs, aiTimeMs, processTimeMs);
@@ -133,9 +269,205 @@ public class AIEngine {
             if (executorService != null) {
                 executorService.shutdown();
             }
+            if (spool != null) {
+                spool.close();
+            }
+            openedSources.forEach(this::closeFileSource);
         }
     }
 
+    /**
+     * Release the decorators kept across executions; called by Spring when the engine bean is destroyed
+     */
+    @Override
+    public void close() {
+        hedgingServices.values().forEach(HedgingAIService::close);
+        hedgingServices.clear();
+    }
+
+    /**
+     * Create and initialize a file source instance for the configuration
+     * The registered instance is only a prototype, so concurrent executions never share a source.
+     */
+    protected IFileSource openFileSource(FileSourceConfig config) throws Exception {
+        IFileSource fileSource = registry.createFileSource(config)
+                .orElseThrow(() -> new AIReviewerException("File source not found: " + config.getSourceType()));
+        try {
+            fileSource.initialize(config);
+        } catch (Exception e) {
+            closeFileSource(fileSource);
+            throw e;
+        }
+        return fileSource;
+    }
+
+    /**
+     * Wrap an initialized file source so its files are read ahead of the parse workers, if enabled
+     */
+    protected IFileSource withPrefetching(IFileSource fileSource, ExecutionContext context) {
+        if (!context.isPrefetchSourceFiles()) {
+            return fileSource;
+        }
+        return new PrefetchingFileSource(fileSource, context.getPrefetchDepth(),
+                context.getPrefetchMemoryBytes(), PrefetchingFileSource.DEFAULT_PREFETCH_THREADS);
+    }
+
+    protected void closeFileSource(IFileSource fileSource) {
+        if (fileSource == null) {
+            return;
+        }
+        try {
+            fileSource.close();
+        } catch (Exception e) {
+            log.warn("Failed to close file source: {}", fileSource.getSourceName(), e);
+        }
+    }
+
+    /**
+     * List files from the file source with include/exclude patterns pushed down into the listing
+     */
+    public List<SourceFile> listSourceFiles(IFileSource fileSource, ExecutionContext context) throws Exception {
+        FileListRequest request = FileListRequest.builder()
+                .includePatterns(context.getIncludePatterns())
+                .excludePatterns(context.getExcludePatterns())
+                .build();
+        return fileSource.listFiles(request);
+    }
+
+    /**
+     * Check if the execution federates several file sources
+     */
+    protected boolean isFederated(ExecutionContext context) {
+        return context.getFileSourceConfigs() != null && !context.getFileSourceConfigs().isEmpty();
+    }
+
+    /**
+     * List all federated file sources concurrently
+     * Every source gets its own file source instance; listed files are tagged with their source ID.
+     * A source that fails to list is logged and skipped so the others still get reviewed.
+     */
+    public List<SourceFile> listFederatedSources(ExecutionContext context, List<IFileSource> openedSources)
+            throws InterruptedException {
+        List<FileSourceConfig> configs = context.getFileSourceConfigs();
+        log.info("Listing {} federated file sources", configs.size());
+        List<Future<List<SourceFile>>> futures = new ArrayList<>();
+        for (int i = 0; i < configs.size(); i++) {
+            FileSourceConfig config = configs.get(i);
+            String sourceId = getSourceId(config, i);
+            futures.add(executorService.submit(() -> {
+                IFileSource createdSource = registry.createFileSource(config)
+                        .orElseThrow(() -> new AIReviewerException("File source not found: " + config.getSourceType()));
+                openedSources.add(createdSource);
+                createdSource.initialize(config);
+                IFileSource fileSource = withPrefetching(createdSource, context);
+                if (fileSource != createdSource) {
+                    // The decorator closes the source it wraps
+                    openedSources.remove(createdSource);
+                    openedSources.add(fileSource);
+                }
+                List<SourceFile> files = listSourceFiles(fileSource, context);
+                files.forEach(file -> file.putMetadata(SOURCE_ID_KEY, sourceId));
+                log.info("Listed {} files from source {}", files.size(), sourceId);
+                return files;
+            }));
+        }
+        List<SourceFile> results = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.addAll(futures.get(i).get());
+            } catch (ExecutionException e) {
+                log.error("Failed to list file source: {}", getSourceId(configs.get(i), i), e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Identify a federated source by its name, or by type and position
+     */
+    protected String getSourceId(FileSourceConfig config, int index) {
+        return config.getName() != null ? config.getName() : config.getSourceType() + "#" + index;
+    }
+
+    /**
+     * Summarize files, responses and tokens per federated source
+     */
+    protected Map<String, Map<String, Object>> summarizeSources(List<SourceFile> files, List<AIResponse> responses) {
+        Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+        for (SourceFile file : files) {
+            summary.computeIfAbsent(String.valueOf(file.getMetadata(SOURCE_ID_KEY)), id -> newSourceSummary())
+                    .merge("files", 1L, (a, b) -> (Long) a + (Long) b);
+        }
+        for (AIResponse response : responses) {
+            Object sourceId = response.getMetadata() != null ? response.getMetadata().get(SOURCE_ID_KEY) : null;
+            Map<String, Object> entry = summary.computeIfAbsent(String.valueOf(sourceId), id -> newSourceSummary());
+            entry.merge("responses", 1L, (a, b) -> (Long) a + (Long) b);
+            entry.merge("tokens", countTokens(response), (a, b) -> (Long) a + (Long) b);
+        }
+        return summary;
+    }
+
+    private static Map<String, Object> newSourceSummary() {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("files", 0L);
+        entry.put("responses", 0L);
+        entry.put("tokens", 0L);
+        return entry;
+    }
+
+    /**
+     * Parse files from file sources
+     * Files that are not local are copied into the spool for the duration of their parse.
+     */
+    public List<PreProcessedData> parseSourceFiles(List<SourceFile> files, FileSpool spool) {
+        log.info("Parsing {} files from file sources", files.size());
+        List<Future<PreProcessedData>> futures = new ArrayList<>();
+        for (SourceFile sourceFile : files) {
+            Future<PreProcessedData> future = executorService.submit(() -> {
+                Path localPath = sourceFile.getSource().getLocalPath(sourceFile);
+                File file = localPath != null ? localPath.toFile() : spool.acquire(sourceFile);
+                try {
+                    IFileParser parser = registry.getParser(file)
+                            .orElseThrow(() -> new AIReviewerException("No parser found for file: " + sourceFile.getRelativePath()));
+                    PreProcessedData data = parser.parse(file);
+                    // Report the path within the source rather than the spool location
+                    if (data.getMetadata() != null && localPath == null) {
+                        data.getMetadata().setFilePath(Paths.get(sourceFile.getRelativePath()));
+                        data.getMetadata().setFileName(sourceFile.getFileName());
+                    }
+                    Object sourceId = sourceFile.getMetadata(SOURCE_ID_KEY);
+                    if (sourceId != null) {
+                        if (data.getContext() == null) {
+                            data.setContext(new HashMap<>());
+                        }
+                        data.getContext().put(SOURCE_ID_KEY, sourceId);
+                    }
+                    return data;
+                } catch (AIReviewerException e) {
+                    throw e;
+                } catch (Exception e) {
+                    log.error("Failed to parse file: {}", sourceFile.getRelativePath(), e);
+                    throw new AIReviewerException("Parse failed: " + sourceFile.getRelativePath(), e);
+                } finally {
+                    if (localPath == null) {
+                        spool.release(sourceFile);
+                    }
+                }
+            });
+            futures.add(future);
+        }
+        List<PreProcessedData> results = new ArrayList<>();
+        for (Future<PreProcessedData> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (Exception e) {
+                log.error("Failed to get parse result", e);
+            }
+        }
+        log.info("Successfully parsed {} files", results.size());
+        return results;
+    }
+
     /**
      * Parse files using registered parsers
      */
@@ -176,30 +508,432 @@ public class AIEngine {
         IAIService aiService = registry.getAIService(context.getAiConfig().getProvider())
                 .orElseThrow(() -> new AIReviewerException("AI service not found: " +
                         context.getAiConfig().getProvider()));
+        boolean streaming = context.isStreamAIResponses();
+        RoutingAIService router = aiService instanceof RoutingAIService ? (RoutingAIService) aiService : null;
+        CircuitBreakerAIService circuitBreaker = null;
+        if (context.isCircuitBreaker()) {
+            // No pre-flight check: an open circuit fails each call fast, and lets the trial call through once due
+            circuitBreaker = getCircuitBreaker(aiService, context.getAiConfig());
+            aiService = circuitBreaker;
+        }
+        HedgingAIService hedgingService = null;
+        if (context.isHedgeAICalls() && !streaming) {
+            hedgingService = getHedgingService(aiService, context);
+            aiService = hedgingService;
+        }
+        TokenBucketRateLimiter rateLimiter = getRateLimiter(context.getAiConfig());
+        CascadeAIService cascade = null;
+        if (context.getCascadeAiConfig() != null) {
+            cascade = createCascade(rateLimiter != null ? new RateLimitedAIService(aiService, rateLimiter) : aiService,
+                    context);
+            aiService = cascade;
+        }
+        // Quota reserved per dispatched call; a cascade charges each of its tiers instead
+        final TokenBucketRateLimiter callRateLimiter = cascade != null ? null : rateLimiter;
+        // Limits shared by every call of this execution, across all of its sources
+        Semaphore concurrencyLimit = context.getMaxConcurrentAICalls() != null
+                ? new Semaphore(context.getMaxConcurrentAICalls())
+                : null;
+        // Each call reserves its estimated tokens up front, so calls in flight cannot overshoot the budget together
+        TokenBudget budget = context.getMaxTotalTokens() != null ? new TokenBudget(context.getMaxTotalTokens()) : null;
+        AtomicLong tokensUsed = new AtomicLong();
         List<Future<AIResponse>> futures = new ArrayList<>();
-        for (PreProcessedData data : dataList) {
-            Future<AIResponse> future = executorService.submit(() -> {
+        // Send times of blocking calls, to enforce the per-call deadline while collecting them
+        Map<Future<AIResponse>, AtomicLong> callsSent = new IdentityHashMap<>();
+        AdaptiveConcurrencyLimiter limiter;
+        // Requests sharing a prompt prefix go out after their group's first call has written the cache entry
+        PromptCacheGroups promptGroups = context.isPromptCacheGrouping()
+                ? new PromptCacheGroups(dataList, context.getPromptGroupKey() != null
+                        ? context.getPromptGroupKey()
+                        : PromptCacheGroups::defaultGroupKey)
+                : null;
+        List<PreProcessedData> dispatchOrder = promptGroups != null ? promptGroups.getDispatchOrder() : dataList;
+        if (aiService.supportsAsync() && !streaming) {
+            // Non-blocking service: keep requests in flight from this thread instead of one pool thread each
+            int window = context.getMaxConcurrentAICalls() != null
+                    ? context.getMaxConcurrentAICalls()
+                    : context.getMaxInFlightAIRequests();
+            Semaphore inFlight = new Semaphore(window);
+            limiter = getConcurrencyLimiter(context, window);
+            log.info("Using async AI invocation with up to {} requests in flight", window);
+            for (PreProcessedData data : dispatchOrder) {
+                if (promptGroups != null) {
+                    promptGroups.awaitLeader(data);
+                }
+                long budgeted = budget != null ? budget.reserve(estimateTokens(data, context.getAiConfig())) : 0;
+                if (budgeted < 0) {
+                    futures.add(CompletableFuture.failedFuture(budgetExhausted(budget)));
+                    continue;
+                }
+                inFlight.acquire();
+                AdaptiveConcurrencyLimiter callLimiter = limiter;
+                long permit = callLimiter != null ? callLimiter.acquire() : 0;
+                long reserved;
                 try {
-                    return aiService.invoke(data, context.getAiConfig());
-                } catch (Exception e) {
-                    log.error("AI invocation failed", e);
-                    throw new AIReviewerException("AI invocation failed", e);
+                    reserved = callRateLimiter != null ? callRateLimiter.acquire(estimateTokens(data, context.getAiConfig())) : 0;
+                } catch (InterruptedException e) {
+                    // The limiter is shared with other executions: hand the permit back
+                    if (callLimiter != null) {
+                        callLimiter.onIgnore();
+                    }
+                    throw e;
                 }
-            });
-            futures.add(future);
+                CompletableFuture<AIResponse> future;
+                try {
+                    future = aiService.invokeAsync(data, context.getAiConfig());
+                } catch (RuntimeException e) {
+                    // Failed before anything was sent: complete as failed so the permits below are returned
+                    future = CompletableFuture.failedFuture(e);
+                }
+                if (context.getAiCallTimeoutMs() != null) {
+                    // Per-call deadline: failing the future also cancels the underlying request
+                    future.orTimeout(context.getAiCallTimeoutMs(), TimeUnit.MILLISECONDS);
+                }
+                CompletableFuture<AIResponse> call = future.whenComplete((response, error) -> {
+                    inFlight.release();
+                    recordOutcome(callLimiter, permit, error);
+                    reconcileTokens(callRateLimiter, reserved, response, context.getAiConfig());
+                    if (budget != null) {
+                        budget.reconcile(budgeted, error == null ? countTokens(response) : 0);
+                    }
+                    if (error != null) {
+                        log.error("AI invocation failed", error);
+                        return;
+                    }
+                    tokensUsed.addAndGet(countTokens(response));
+                    tagSource(data, response);
+                    if (promptGroups != null) {
+                        promptGroups.record(data, response);
+                    }
+                });
+                if (promptGroups != null) {
+                    promptGroups.dispatched(data, call);
+                }
+                futures.add(call);
+            }
+        } else {
+            limiter = getConcurrencyLimiter(context, context.getMaxConcurrentAICalls() != null
+                    ? context.getMaxConcurrentAICalls()
+                    : context.getThreadPoolSize());
+            AdaptiveConcurrencyLimiter callLimiter = limiter;
+            IAIService blockingService = aiService;
+            for (PreProcessedData data : dispatchOrder) {
+                if (promptGroups != null) {
+                    promptGroups.awaitLeader(data);
+                }
+                AtomicLong sentNanos = new AtomicLong();
+                Future<AIResponse> future = executorService.submit(() -> {
+                    long budgeted = budget != null ? budget.reserve(estimateTokens(data, context.getAiConfig())) : 0;
+                    if (budgeted < 0) {
+                        throw budgetExhausted(budget);
+                    }
+                    long used = 0;
+                    try {
+                        AIResponse response = invokeBlocking(blockingService, data, context, streaming,
+                                concurrencyLimit, callLimiter, callRateLimiter, sentNanos);
+                        used = countTokens(response);
+                        tokensUsed.addAndGet(used);
+                        tagSource(data, response);
+                        if (promptGroups != null) {
+                            promptGroups.record(data, response);
+                        }
+                        return response;
+                    } finally {
+                        if (budget != null) {
+                            budget.reconcile(budgeted, used);
+                        }
+                    }
+                });
+                if (promptGroups != null) {
+                    promptGroups.dispatched(data, future);
+                }
+                if (context.getAiCallTimeoutMs() != null) {
+                    callsSent.put(future, sentNanos);
+                }
+                futures.add(future);
+            }
+        }
+        if (promptGroups != null) {
+            futures = promptGroups.toScanOrder(futures);
         }
         List<AIResponse> results = new ArrayList<>();
+        int failed = 0;
         for (Future<AIResponse> future : futures) {
             try {
-                results.add(future.get());
+                AtomicLong sentNanos = callsSent.get(future);
+                results.add(sentNanos != null
+                        ? getWithDeadline(future, sentNanos, context.getAiCallTimeoutMs())
+                        : future.get());
             } catch (Exception e) {
+                failed++;
                 log.error("Failed to get AI response", e);
             }
         }
-        log.info("Received {} AI responses", results.size());
+        context.put(TOKENS_USED_KEY, tokensUsed.get());
+        context.put(AI_FAILURES_KEY, failed);
+        if (failed > 0) {
+            log.warn("{} of {} AI calls failed after retries", failed, dataList.size());
+        }
+        if (circuitBreaker != null) {
+            context.put(CIRCUIT_STATS_KEY, circuitBreaker.getStats());
+        }
+        if (router != null) {
+            context.put(ROUTING_STATS_KEY, router.getRoutingStats());
+            log.info("Routing for {}: {}", router.getProviderName(), router.getRoutingStats());
+        }
+        if (cascade != null) {
+            context.put(CASCADE_STATS_KEY, cascade.getCascadeStats());
+            log.info("Model cascade: {}", cascade.getCascadeStats());
+        }
+        if (hedgingService != null) {
+            context.put(HEDGE_STATS_KEY, hedgingService.getHedgeStats());
+            log.info("Hedging for {}: {}", hedgingService.getProviderName(), hedgingService.getHedgeStats());
+        }
+        if (rateLimiter != null) {
+            context.put(RATE_LIMIT_STATS_KEY, rateLimiter.getStats());
+            log.info("Rate limit for {}: {}", rateLimiter.getName(), rateLimiter.getStats());
+        }
+        if (limiter != null) {
+            context.put(CONCURRENCY_STATS_KEY, limiter.getStats());
+            log.info("Adaptive concurrency for {}: {}", limiter.getName(), limiter.getStats());
+        }
+        if (budget != null) {
+            context.put(TOKEN_BUDGET_STATS_KEY, budget.getStats());
+            log.info("Token budget: {}", budget.getStats());
+        }
+        if (promptGroups != null) {
+            context.put(PROMPT_CACHE_STATS_KEY, promptGroups.getStats());
+            log.info("Prompt cache groups: {}", promptGroups.getStats());
+        }
+        log.info("Received {} AI responses ({} tokens)", results.size(), tokensUsed.get());
         return results;
     }
 
+    /**
+     * Make one blocking call under the execution's concurrency and rate limits
+     *
+     * @param sentNanos set to the time the call is sent, after the limits have let it through
+     */
+    private AIResponse invokeBlocking(IAIService aiService, PreProcessedData data, ExecutionContext context,
+                                      boolean streaming, Semaphore concurrencyLimit,
+                                      AdaptiveConcurrencyLimiter callLimiter, TokenBucketRateLimiter callRateLimiter,
+                                      AtomicLong sentNanos) throws InterruptedException {
+        if (concurrencyLimit != null) {
+            concurrencyLimit.acquire();
+        }
+        long permit = callLimiter != null ? callLimiter.acquire() : 0;
+        long reserved = callRateLimiter != null ? callRateLimiter.acquire(estimateTokens(data, context.getAiConfig())) : 0;
+        Throwable failure = null;
+        AIResponse response = null;
+        sentNanos.set(System.nanoTime());
+        try {
+            response = streaming
+                    ? aiService.invokeStreaming(data, context.getAiConfig(), getStreamListener(data, context))
+                    : aiService.invoke(data, context.getAiConfig());
+            return response;
+        } catch (Exception e) {
+            failure = e;
+            log.error("AI invocation failed", e);
+            throw new AIReviewerException("AI invocation failed", e);
+        } finally {
+            recordOutcome(callLimiter, permit, failure);
+            reconcileTokens(callRateLimiter, reserved, response, context.getAiConfig());
+            if (concurrencyLimit != null) {
+                concurrencyLimit.release();
+            }
+        }
+    }
+
+    private static AIReviewerException budgetExhausted(TokenBudget budget) {
+        return new AIReviewerException("Token budget exhausted: " + budget.getUsedTokens() + "/" + budget.getMaxTokens());
+    }
+
+    /**
+     * Wait for a blocking call, cancelling it (and interrupting its thread) once it has run past the deadline
+     * Time spent queued for a worker or a permit does not count.
+     *
+     * @param sentNanos time the call was sent, or 0 while it has not been
+     */
+    private static AIResponse getWithDeadline(Future<AIResponse> future, AtomicLong sentNanos, long timeoutMs)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            long sent = sentNanos.get();
+            long waitNanos = sent == 0 ? timeoutNanos : sent + timeoutNanos - System.nanoTime();
+            if (waitNanos <= 0 && !future.isDone()) {
+                future.cancel(true);
+                throw new TimeoutException("AI call exceeded " + timeoutMs + " ms");
+            }
+            try {
+                return future.get(Math.max(0, waitNanos), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                // Check again against the send time, which may have been set meanwhile
+            }
+        }
+    }
+
+    /**
+     * Get the adaptive limiter for the provider and model of the execution (null if disabled)
+     */
+    private AdaptiveConcurrencyLimiter getConcurrencyLimiter(ExecutionContext context, int maxLimit) {
+        if (!context.isAdaptiveConcurrency()) {
+            return null;
+        }
+        String key = context.getAiConfig().getProvider() + ":" + context.getAiConfig().getModel();
+        return concurrencyLimiters.computeIfAbsent(key, name -> new AdaptiveConcurrencyLimiter(name, maxLimit));
+    }
+
+    /**
+     * Put the fast model of {@code cascadeAiConfig} in front of the configured model
+     * Fast calls pass the same circuit breaker and rate limit guards as the calls of the configured model.
+     */
+    private CascadeAIService createCascade(IAIService deep, ExecutionContext context) {
+        AIConfig fastConfig = context.getCascadeAiConfig();
+        IAIService fast = registry.getAIService(fastConfig.getProvider())
+                .orElseThrow(() -> new AIReviewerException("Cascade AI service not found: " + fastConfig.getProvider()));
+        if (context.isCircuitBreaker()) {
+            fast = getCircuitBreaker(fast, fastConfig);
+        }
+        TokenBucketRateLimiter fastRateLimiter = getRateLimiter(fastConfig);
+        if (fastRateLimiter != null) {
+            fast = new RateLimitedAIService(fast, fastRateLimiter);
+        }
+        return new CascadeAIService(fast, fastConfig, deep, CascadeAIService.criterion(context.getCascadeScoreThreshold(),
+                context.getCascadeScorePattern(), context.getCascadeKeywords(), context.getCascadeFlagField()));
+    }
+
+    /**
+     * Get the circuit breaker for a provider and model
+     */
+    private CircuitBreakerAIService getCircuitBreaker(IAIService aiService, AIConfig aiConfig) {
+        String key = aiConfig.getProvider() + ":" + aiConfig.getModel();
+        return circuitBreakers.computeIfAbsent(key, name -> new CircuitBreakerAIService(aiService, name));
+    }
+
+    /**
+     * Get the circuit breakers by provider and model
+     */
+    public Map<String, CircuitBreakerAIService> getCircuitBreakers() {
+        return Collections.unmodifiableMap(circuitBreakers);
+    }
+
+    /**
+     * Get the hedging decorator for the provider and model of the execution
+     * Duplicates go to the provider of {@code hedgeAiConfig} when set, otherwise to the same service.
+     */
+    private HedgingAIService getHedgingService(IAIService aiService, ExecutionContext context) {
+        AIConfig hedgeConfig = context.getHedgeAiConfig();
+        String key = context.getAiConfig().getProvider() + ":" + context.getAiConfig().getModel()
+                + (hedgeConfig != null ? "->" + hedgeConfig.getProvider() + ":" + hedgeConfig.getModel() : "");
+        return hedgingServices.computeIfAbsent(key, name -> {
+            IAIService hedge = hedgeConfig == null ? aiService : registry.getAIService(hedgeConfig.getProvider())
+                    .orElseThrow(() -> new AIReviewerException("Hedge AI service not found: " + hedgeConfig.getProvider()));
+            return new HedgingAIService(aiService, hedge, hedgeConfig, context.getMaxHedgeRatio(),
+                    HedgingAIService.DEFAULT_MIN_SAMPLES, HedgingAIService.DEFAULT_MIN_HEDGE_DELAY_MS,
+                    getRateLimiter(BackendConfigs.overlay(context.getAiConfig(), hedgeConfig)));
+        });
+    }
+
+    /**
+     * Get the JVM-wide rate limiter for the provider and model (null if no quota is configured)
+     * Quotas come from AIConfig custom params requestsPerMinute and tokensPerMinute.
+     */
+    private static TokenBucketRateLimiter getRateLimiter(AIConfig aiConfig) {
+        return TokenBucketRateLimiter.forConfig(aiConfig);
+    }
+
+    /**
+     * Estimate the tokens a call can consume: the prompt (about 4 characters per token) plus maxTokens
+     */
+    protected static long estimateTokens(PreProcessedData data, AIConfig aiConfig) {
+        return RateLimitedAIService.estimateTokens(data, aiConfig);
+    }
+
+    private static void reconcileTokens(TokenBucketRateLimiter rateLimiter, long reserved,
+                                        AIResponse response, AIConfig aiConfig) {
+        if (rateLimiter != null) {
+            RateLimitedAIService.reconcile(rateLimiter, reserved, response, aiConfig);
+        }
+    }
+
+    /**
+     * Get the adaptive concurrency limiters by provider and model
+     */
+    public Map<String, AdaptiveConcurrencyLimiter> getConcurrencyLimiters() {
+        return Collections.unmodifiableMap(concurrencyLimiters);
+    }
+
+    private static void recordOutcome(AdaptiveConcurrencyLimiter limiter, long permit, Throwable error) {
+        if (limiter == null) {
+            return;
+        }
+        if (error == null) {
+            limiter.onSuccess(permit);
+        } else if (isOverloadSignal(error)) {
+            limiter.onDropped(permit);
+        } else {
+            limiter.onIgnore();
+        }
+    }
+
+    /**
+     * Check if a failure means the provider is overloaded: throttling, unavailability or a timeout
+     */
+    protected static boolean isOverloadSignal(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AIServiceException serviceError) {
+                int status = serviceError.getStatusCode();
+                if (status == 429 || status == 503 || status == 408 || status == 504) {
+                    return true;
+                }
+            }
+            if (cause instanceof InterruptedIOException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static AIStreamListener getStreamListener(PreProcessedData data, ExecutionContext context) {
+        if (context.getStreamListenerFactory() == null) {
+            return AIStreamListener.NONE;
+        }
+        AIStreamListener listener = context.getStreamListenerFactory().apply(data);
+        return listener != null ? listener : AIStreamListener.NONE;
+    }
+
+    private static void tagSource(PreProcessedData data, AIResponse response) {
+        Object sourceId = data.getContext() != null ? data.getContext().get(SOURCE_ID_KEY) : null;
+        if (sourceId == null || response == null) {
+            return;
+        }
+        if (response.getMetadata() == null) {
+            response.setMetadata(new HashMap<>());
+        }
+        response.getMetadata().put(SOURCE_ID_KEY, sourceId);
+    }
+
+    /**
+     * Count the tokens of a response, whichever usage fields the provider filled in
+     */
+    protected static long countTokens(AIResponse response) {
+        if (response == null || response.getTokenUsage() == null) {
+            return 0;
+        }
+        // Tokens an escalated file already spent on the fast model of a cascade
+        Object fastTokens = response.getMetadata() != null ? response.getMetadata().get(CascadeAIService.FAST_TOKENS_KEY) : null;
+        long total = fastTokens instanceof Number ? ((Number) fastTokens).longValue() : 0;
+        AIResponse.TokenUsage usage = response.getTokenUsage();
+        if (usage.getTotalTokens() != null) {
+            return total + usage.getTotalTokens();
+        }
+        for (Integer tokens : new Integer[]{usage.getPromptTokens(), usage.getCompletionTokens(),
+                usage.getInputTokens(), usage.getOutputTokens()}) {
+            total += tokens != null ? tokens : 0;
+        }
+        return total;
+    }
+
     /**
      * Process results
      */
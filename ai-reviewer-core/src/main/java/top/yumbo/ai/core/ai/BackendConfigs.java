@@ -0,0 +1,57 @@
+package top.yumbo.ai.core.ai;
+
+import top.yumbo.ai.api.model.AIConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuration of calls sent to another backend (a route, a hedge target) on behalf of a caller
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public final class BackendConfigs {
+
+    private BackendConfigs() {
+        throw new UnsupportedOperationException("Utility class");
+    }
+
+    /**
+     * The caller's configuration with the backend's provider, endpoint, API key, model, region, timeouts
+     * and custom params (merged over the caller's, so quotas, concurrency and connection settings are
+     * per backend); prompts and sampling parameters stay those of the caller
+     *
+     * @param callerConfig configuration of the call
+     * @param backend      backend settings (null = the caller's)
+     * @return configuration to call the backend with
+     */
+    public static AIConfig overlay(AIConfig callerConfig, AIConfig backend) {
+        if (backend == null) {
+            return callerConfig;
+        }
+        Map<String, Object> customParams = new HashMap<>();
+        if (callerConfig.getCustomParams() != null) {
+            customParams.putAll(callerConfig.getCustomParams());
+        }
+        if (backend.getCustomParams() != null) {
+            customParams.putAll(backend.getCustomParams());
+        }
+        return AIConfig.builder()
+                .provider(backend.getProvider() != null ? backend.getProvider() : callerConfig.getProvider())
+                .region(backend.getRegion() != null ? backend.getRegion() : callerConfig.getRegion())
+                .model(backend.getModel() != null ? backend.getModel() : callerConfig.getModel())
+                .apiKey(backend.getApiKey() != null ? backend.getApiKey() : callerConfig.getApiKey())
+                .endpoint(backend.getEndpoint() != null ? backend.getEndpoint() : callerConfig.getEndpoint())
+                .sysPrompt(callerConfig.getSysPrompt())
+                .userPrompt(callerConfig.getUserPrompt())
+                .temperature(callerConfig.getTemperature())
+                .maxTokens(callerConfig.getMaxTokens())
+                .timeoutSeconds(backend.getTimeoutSeconds() != null
+                        ? backend.getTimeoutSeconds()
+                        : callerConfig.getTimeoutSeconds())
+                .maxRetries(backend.getMaxRetries() != null ? backend.getMaxRetries() : callerConfig.getMaxRetries())
+                .customParams(customParams)
+                .build();
+    }
+}
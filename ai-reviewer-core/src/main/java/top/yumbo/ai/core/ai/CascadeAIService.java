@@ -0,0 +1,253 @@
+package top.yumbo.ai.core.ai;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.ai.AIStreamListener;
+import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.api.model.AIResponse;
+import top.yumbo.ai.api.model.PreProcessedData;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Model cascade: every file goes to a fast, cheap model first, and only flagged files are
+ * re-sent to the expensive model
+ * <p>
+ * A response is escalated when the escalation criterion matches it, or when the fast call fails.
+ * {@link #criterion} builds the usual criterion from a score threshold, keywords and a structured
+ * "needs deep review" flag.
+ * <p>
+ * The tier that produced a response is recorded in metadata {@value #TIER_KEY}; for escalated files
+ * the tokens spent on the fast call are recorded in {@value #FAST_TOKENS_KEY}.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+public class CascadeAIService implements IAIService {
+
+    public static final String TIER_KEY = "cascadeTier";
+    public static final String FAST_TOKENS_KEY = "cascadeFastTokens";
+    public static final String TIER_FAST = "fast";
+    public static final String TIER_DEEP = "deep";
+    public static final String DEFAULT_FLAG_FIELD = "needs_deep_review";
+    /**
+     * Total score line, e.g. {@code 【Total Score】: 85/100}, {@code "total_score": 85} or {@code 总分：85}
+     */
+    public static final String DEFAULT_SCORE_PATTERN =
+            "(?i)(?:total[ _]?score|overall[ _]?score|总分|总评分|总得分)[\"'】\\]\\s]*[:=：]\\s*(\\d+(?:\\.\\d+)?)";
+
+    private final IAIService fast;
+    private final AIConfig fastConfig;
+    private final IAIService deep;
+    private final Predicate<AIResponse> escalation;
+
+    // Statistics
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong escalations = new AtomicLong();
+    private final AtomicLong fastFailures = new AtomicLong();
+
+    /**
+     * @param fast       service of the fast model
+     * @param fastConfig configuration of the fast model
+     * @param deep       service of the expensive model, called with the caller's configuration
+     * @param escalation matches fast responses that need the expensive model
+     */
+    public CascadeAIService(IAIService fast, AIConfig fastConfig, IAIService deep, Predicate<AIResponse> escalation) {
+        this.fast = fast;
+        this.fastConfig = fastConfig;
+        this.deep = deep;
+        this.escalation = escalation;
+    }
+
+    /**
+     * Build an escalation criterion reading the score with {@link #DEFAULT_SCORE_PATTERN}
+     */
+    public static Predicate<AIResponse> criterion(Double scoreThreshold, List<String> keywords, String flagField) {
+        return criterion(scoreThreshold, null, keywords, flagField);
+    }
+
+    /**
+     * Build an escalation criterion; each part is optional
+     *
+     * @param scoreThreshold escalate when the response reports a score below this value
+     * @param scorePattern   regex whose first group is the score (null = {@link #DEFAULT_SCORE_PATTERN})
+     * @param keywords       escalate when the response contains any of these (case-insensitive)
+     * @param flagField      escalate when the response contains {@code "flagField": true}
+     * @return criterion matching if any part matches
+     */
+    public static Predicate<AIResponse> criterion(Double scoreThreshold, String scorePattern,
+                                                  List<String> keywords, String flagField) {
+        Pattern score = Pattern.compile(scorePattern != null ? scorePattern : DEFAULT_SCORE_PATTERN);
+        Pattern flagPattern = flagField != null
+                ? Pattern.compile("[\"']?" + Pattern.quote(flagField) + "[\"']?\\s*[:=]\\s*[\"']?true", Pattern.CASE_INSENSITIVE)
+                : null;
+        return response -> {
+            String content = response.getContent();
+            if (content == null) {
+                return true;
+            }
+            if (flagPattern != null && flagPattern.matcher(content).find()) {
+                return true;
+            }
+            if (keywords != null) {
+                String lower = content.toLowerCase();
+                for (String keyword : keywords) {
+                    if (lower.contains(keyword.toLowerCase())) {
+                        return true;
+                    }
+                }
+            }
+            if (scoreThreshold != null) {
+                Matcher matcher = score.matcher(content);
+                if (matcher.find() && Double.parseDouble(matcher.group(1)) < scoreThreshold) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    @Override
+    public AIResponse invoke(PreProcessedData data, AIConfig config) throws Exception {
+        calls.incrementAndGet();
+        AIResponse fastResponse = invokeFast(data);
+        if (!shouldEscalate(fastResponse)) {
+            return markFast(fastResponse);
+        }
+        return markDeep(deep.invoke(data, config), fastResponse);
+    }
+
+    @Override
+    public CompletableFuture<AIResponse> invokeAsync(PreProcessedData data, AIConfig config) {
+        calls.incrementAndGet();
+        return fast.invokeAsync(data, fastConfig)
+                .handle((response, error) -> {
+                    if (error != null) {
+                        onFastFailure(error);
+                        return null;
+                    }
+                    return response;
+                })
+                // Runs on the thread that completed the fast call, often an I/O thread: the deep tier must not block
+                .thenCompose(fastResponse -> shouldEscalate(fastResponse)
+                        ? deep.invokeAsync(data, config).thenApply(response -> markDeep(response, fastResponse))
+                        : CompletableFuture.completedFuture(markFast(fastResponse)));
+    }
+
+    /**
+     * The fast model is not streamed; escalated files stream from the expensive model
+     */
+    @Override
+    public AIResponse invokeStreaming(PreProcessedData data, AIConfig config, AIStreamListener listener) throws Exception {
+        calls.incrementAndGet();
+        AIResponse fastResponse = invokeFast(data);
+        if (!shouldEscalate(fastResponse)) {
+            markFast(fastResponse);
+            if (fastResponse.getContent() != null) {
+                listener.onChunk(fastResponse.getContent());
+            }
+            listener.onComplete(fastResponse);
+            return fastResponse;
+        }
+        return markDeep(deep.invokeStreaming(data, config, listener), fastResponse);
+    }
+
+    private AIResponse invokeFast(PreProcessedData data) {
+        try {
+            return fast.invoke(data, fastConfig);
+        } catch (Exception e) {
+            onFastFailure(e);
+            return null;
+        }
+    }
+
+    private void onFastFailure(Throwable error) {
+        fastFailures.incrementAndGet();
+        log.warn("Fast model call failed, escalating: {}", error.getMessage());
+    }
+
+    private boolean shouldEscalate(AIResponse fastResponse) {
+        boolean escalate = fastResponse == null || escalation.test(fastResponse);
+        if (escalate) {
+            escalations.incrementAndGet();
+        }
+        return escalate;
+    }
+
+    private static AIResponse markFast(AIResponse response) {
+        metadata(response).put(TIER_KEY, TIER_FAST);
+        return response;
+    }
+
+    private static AIResponse markDeep(AIResponse response, AIResponse fastResponse) {
+        if (response == null) {
+            return null;
+        }
+        metadata(response).put(TIER_KEY, TIER_DEEP);
+        if (fastResponse != null && fastResponse.getTokenUsage() != null) {
+            AIResponse.TokenUsage usage = fastResponse.getTokenUsage();
+            long tokens = usage.getTotalTokens() != null ? usage.getTotalTokens()
+                    : valueOf(usage.getPromptTokens()) + valueOf(usage.getCompletionTokens())
+                    + valueOf(usage.getInputTokens()) + valueOf(usage.getOutputTokens());
+            metadata(response).put(FAST_TOKENS_KEY, tokens);
+        }
+        return response;
+    }
+
+    private static long valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    private static Map<String, Object> metadata(AIResponse response) {
+        if (response.getMetadata() == null) {
+            response.setMetadata(new HashMap<>());
+        }
+        return response.getMetadata();
+    }
+
+    @Override
+    public boolean supportsAsync() {
+        return fast.supportsAsync() && deep.supportsAsync();
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return deep.supportsStreaming();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return deep.isAvailable();
+    }
+
+    @Override
+    public String getProviderName() {
+        return deep.getProviderName();
+    }
+
+    @Override
+    public String[] getSupportedModels() {
+        return deep.getSupportedModels();
+    }
+
+    /**
+     * Get cascade statistics
+     */
+    public Map<String, Object> getCascadeStats() {
+        long total = calls.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("calls", total);
+        stats.put("escalations", escalations.get());
+        stats.put("fastFailures", fastFailures.get());
+        stats.put("escalationRate", total == 0 ? 0.0 : (double) escalations.get() / total);
+        return stats;
+    }
+}
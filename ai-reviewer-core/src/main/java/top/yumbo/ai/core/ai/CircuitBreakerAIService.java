@@ -0,0 +1,290 @@
+package top.yumbo.ai.core.ai;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.ai.AIStreamListener;
+import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.api.model.AIResponse;
+import top.yumbo.ai.api.model.PreProcessedData;
+import top.yumbo.ai.common.exception.AIServiceException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Circuit breaker decorator for an {@link IAIService}
+ * <p>
+ * The circuit opens after {@code failureThreshold} consecutive failures, or when the failure
+ * rate of the last {@code windowSize} calls reaches {@code failureRateThreshold}. While open,
+ * calls fail immediately with an {@link AIServiceException}. After {@code openDurationMs} the circuit is half-open: one trial
+ * call is let through, and its outcome closes the circuit or opens it again.
+ * <p>
+ * {@link #isAvailable()} reports the circuit state; once the open period has elapsed it actively
+ * probes the wrapped service's {@code isAvailable()} before admitting trial calls.
+ * Client errors (4xx other than 408/429) and cancelled calls do not count as failures.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+public class CircuitBreakerAIService implements IAIService {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final int DEFAULT_WINDOW_SIZE = 20;
+    public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    public static final long DEFAULT_OPEN_DURATION_MS = 30_000;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final IAIService delegate;
+    private final String name;
+    private final int failureThreshold;
+    private final double failureRateThreshold;
+    private final long openDurationMs;
+
+    // Outcomes of the most recent calls, true = failure
+    private final boolean[] window;
+    private int windowCount;
+    private int windowNext;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMs;
+    private boolean trialInFlight;
+
+    // Statistics
+    private long rejectedCount;
+    private long openedCount;
+
+    public CircuitBreakerAIService(IAIService delegate, String name) {
+        this(delegate, name, DEFAULT_FAILURE_THRESHOLD, DEFAULT_WINDOW_SIZE,
+                DEFAULT_FAILURE_RATE_THRESHOLD, DEFAULT_OPEN_DURATION_MS);
+    }
+
+    public CircuitBreakerAIService(IAIService delegate, String name, int failureThreshold, int windowSize,
+                                   double failureRateThreshold, long openDurationMs) {
+        this.delegate = delegate;
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.window = new boolean[windowSize];
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    @Override
+    public AIResponse invoke(PreProcessedData data, AIConfig config) throws Exception {
+        boolean trial = acquire();
+        try {
+            AIResponse response = delegate.invoke(data, config);
+            onResult(trial, null);
+            return response;
+        } catch (Exception e) {
+            onResult(trial, e);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<AIResponse> invokeAsync(PreProcessedData data, AIConfig config) {
+        boolean trial;
+        try {
+            trial = acquire();
+        } catch (AIServiceException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<AIResponse> future = delegate.invokeAsync(data, config);
+        future.whenComplete((response, error) -> onResult(trial, error));
+        return future;
+    }
+
+    @Override
+    public AIResponse invokeStreaming(PreProcessedData data, AIConfig config, AIStreamListener listener) throws Exception {
+        boolean trial;
+        try {
+            trial = acquire();
+        } catch (AIServiceException e) {
+            listener.onError(e);
+            throw e;
+        }
+        try {
+            AIResponse response = delegate.invokeStreaming(data, config, listener);
+            onResult(trial, null);
+            return response;
+        } catch (Exception e) {
+            onResult(trial, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Admit a call or fail fast
+     *
+     * @return true if the call is the half-open trial
+     */
+    private synchronized boolean acquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAtMs >= openDurationMs) {
+            state = State.HALF_OPEN;
+            log.info("Circuit for {} half-open, letting a trial call through", name);
+        }
+        if (state == State.CLOSED) {
+            return false;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        rejectedCount++;
+        throw new AIServiceException("Circuit open for AI service " + name + ", failing fast");
+    }
+
+    private synchronized void onResult(boolean trial, Throwable error) {
+        boolean failure = error != null && isFailure(error);
+        if (trial) {
+            trialInFlight = false;
+            if (error instanceof CancellationException) {
+                // No verdict: the next call becomes the trial
+                return;
+            }
+            if (failure) {
+                open("trial call failed");
+            } else {
+                close();
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            // Late result of a call admitted before the circuit opened
+            return;
+        }
+        record(failure);
+        consecutiveFailures = failure ? consecutiveFailures + 1 : 0;
+        if (consecutiveFailures >= failureThreshold) {
+            open(consecutiveFailures + " consecutive failures");
+        } else if (windowCount == window.length && (double) windowFailures / windowCount >= failureRateThreshold) {
+            open(windowFailures + " of the last " + windowCount + " calls failed");
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length && window[windowNext]) {
+            windowFailures--;
+        }
+        window[windowNext] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowNext = (windowNext + 1) % window.length;
+        windowCount = Math.min(windowCount + 1, window.length);
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAtMs = System.currentTimeMillis();
+        openedCount++;
+        log.warn("Circuit for {} opened: {}", name, reason);
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        windowCount = 0;
+        windowNext = 0;
+        windowFailures = 0;
+        log.info("Circuit for {} closed", name);
+    }
+
+    /**
+     * Check if a failure says something about the provider's health
+     */
+    private static boolean isFailure(Throwable error) {
+        if (error instanceof CancellationException) {
+            return false;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AIServiceException serviceError) {
+                int status = serviceError.getStatusCode();
+                if (status >= 400 && status < 500 && status != 408 && status != 429) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Available unless the circuit is open; after the open period the wrapped service is probed
+     */
+    @Override
+    public boolean isAvailable() {
+        synchronized (this) {
+            if (state == State.CLOSED || state == State.HALF_OPEN) {
+                return true;
+            }
+            if (System.currentTimeMillis() - openedAtMs < openDurationMs) {
+                return false;
+            }
+        }
+        boolean healthy = delegate.isAvailable();
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (healthy) {
+                    state = State.HALF_OPEN;
+                    log.info("Health check for {} passed, circuit half-open", name);
+                } else {
+                    // Stay open for another period without spending a trial call
+                    openedAtMs = System.currentTimeMillis();
+                }
+            }
+        }
+        return healthy;
+    }
+
+    @Override
+    public boolean supportsAsync() {
+        return delegate.supportsAsync();
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return delegate.supportsStreaming();
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    @Override
+    public String[] getSupportedModels() {
+        return delegate.getSupportedModels();
+    }
+
+    /**
+     * Get the wrapped service
+     */
+    public IAIService getDelegate() {
+        return delegate;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Get circuit breaker statistics
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("state", state.name());
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("recentFailureRate", windowCount == 0 ? 0.0 : (double) windowFailures / windowCount);
+        stats.put("rejectedCount", rejectedCount);
+        stats.put("openedCount", openedCount);
+        return stats;
+    }
+}
@@ -0,0 +1,351 @@
+package top.yumbo.ai.core.ai;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.api.model.AIResponse;
+import top.yumbo.ai.api.model.PreProcessedData;
+import top.yumbo.ai.core.limit.TokenBucketRateLimiter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedging decorator for an {@link IAIService}
+ * <p>
+ * If a call has not completed after the observed p95 latency, a duplicate is sent to the hedge
+ * service (the same service or a secondary provider) and whichever succeeds first wins; the other
+ * call is cancelled. Hedges are capped at {@code maxHedgeRatio} of all calls, and no hedging happens
+ * until {@code minSamples} latencies have been observed. With a rate limiter, a hedge is only sent
+ * when the quota has room for it right away, and it is charged like any other call.
+ * <p>
+ * A blocking primary called through {@link #invoke} runs on the caller's thread, and is interrupted
+ * if the hedge wins. Blocking hedge calls (and a blocking primary called through
+ * {@link #invokeAsync}) run on an internal thread pool; they cannot be aborted and run to completion.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+public class HedgingAIService implements IAIService, AutoCloseable {
+
+    public static final double DEFAULT_MAX_HEDGE_RATIO = 0.1;
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+    public static final long DEFAULT_MIN_HEDGE_DELAY_MS = 1000;
+    /**
+     * Response metadata key set when the hedge call won
+     */
+    public static final String HEDGED_KEY = "hedged";
+    private static final int LATENCY_WINDOW = 256;
+
+    private final IAIService primary;
+    private final IAIService hedge;
+    private final AIConfig hedgeConfig;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final double maxHedgeRatio;
+    private final int minSamples;
+    private final long minHedgeDelayMs;
+
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService blockingExecutor;
+
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount;
+    private int latencyNext;
+
+    // Statistics
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong hedgesRateLimited = new AtomicLong();
+
+    /**
+     * Hedge with the same service and configuration
+     */
+    public HedgingAIService(IAIService primary) {
+        this(primary, primary, null, DEFAULT_MAX_HEDGE_RATIO, DEFAULT_MIN_SAMPLES, DEFAULT_MIN_HEDGE_DELAY_MS);
+    }
+
+    /**
+     * @param primary         service that gets every call
+     * @param hedge           service for duplicate calls
+     * @param hedgeConfig     settings for duplicate calls, merged over the caller's configuration like a route's
+     *                        (null = the caller's configuration)
+     * @param maxHedgeRatio   maximum fraction of calls that may be hedged
+     * @param minSamples      latencies to observe before hedging starts
+     * @param minHedgeDelayMs lower bound of the hedge delay
+     */
+    public HedgingAIService(IAIService primary, IAIService hedge, AIConfig hedgeConfig,
+                            double maxHedgeRatio, int minSamples, long minHedgeDelayMs) {
+        this(primary, hedge, hedgeConfig, maxHedgeRatio, minSamples, minHedgeDelayMs, null);
+    }
+
+    /**
+     * @param rateLimiter quota of the hedge service that duplicate calls are charged to (null = none)
+     */
+    public HedgingAIService(IAIService primary, IAIService hedge, AIConfig hedgeConfig,
+                            double maxHedgeRatio, int minSamples, long minHedgeDelayMs,
+                            TokenBucketRateLimiter rateLimiter) {
+        this.primary = primary;
+        this.hedge = hedge;
+        this.hedgeConfig = hedgeConfig;
+        this.rateLimiter = rateLimiter;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.minSamples = minSamples;
+        this.minHedgeDelayMs = minHedgeDelayMs;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hedge-timer-" + primary.getProviderName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.blockingExecutor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "hedge-call-" + primary.getProviderName() + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * A blocking primary runs on the caller's thread, so an unhedged call takes no internal thread
+     */
+    @Override
+    public AIResponse invoke(PreProcessedData data, AIConfig config) throws Exception {
+        if (primary.supportsAsync()) {
+            return await(invokeAsync(data, config));
+        }
+        calls.incrementAndGet();
+        long startNanos = System.nanoTime();
+        CompletableFuture<AIResponse> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+        Thread caller = Thread.currentThread();
+        AtomicBoolean primaryRunning = new AtomicBoolean(true);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        result.whenComplete((response, error) -> {
+            // The hedge won: abort the primary's blocking call
+            synchronized (primaryRunning) {
+                if (primaryRunning.get() && Thread.currentThread() != caller) {
+                    interrupted.set(true);
+                    caller.interrupt();
+                }
+            }
+        });
+        ScheduledFuture<?> hedgeTimer = scheduleHedge(data, config, result, outstanding);
+        try {
+            AIResponse response = primary.invoke(data, config);
+            settle(result, response, null, outstanding, startNanos, false);
+        } catch (Exception e) {
+            settle(result, null, e, outstanding, startNanos, false);
+        } finally {
+            synchronized (primaryRunning) {
+                primaryRunning.set(false);
+            }
+            if (interrupted.get()) {
+                // Clear the interrupt meant for the primary's call
+                Thread.interrupted();
+            }
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+        }
+        return await(result);
+    }
+
+    private static AIResponse await(CompletableFuture<AIResponse> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<AIResponse> invokeAsync(PreProcessedData data, AIConfig config) {
+        calls.incrementAndGet();
+        long startNanos = System.nanoTime();
+        CompletableFuture<AIResponse> result = new CompletableFuture<>();
+        CompletableFuture<AIResponse> primaryCall = start(primary, data, config);
+        AtomicInteger outstanding = new AtomicInteger(1);
+        primaryCall.whenComplete((response, error) -> settle(result, response, error, outstanding, startNanos, false));
+        scheduleHedge(data, config, result, outstanding);
+        // The loser, or both calls if the caller gives up, are cancelled
+        result.whenComplete((response, error) -> primaryCall.cancel(true));
+        return result;
+    }
+
+    /**
+     * Send a duplicate after the hedge delay unless the call has completed by then
+     *
+     * @return the hedge timer, or null while too few latencies are known to hedge
+     */
+    private ScheduledFuture<?> scheduleHedge(PreProcessedData data, AIConfig config,
+                                             CompletableFuture<AIResponse> result, AtomicInteger outstanding) {
+        long delayMs = getHedgeDelayMs();
+        if (delayMs < 0) {
+            return null;
+        }
+        return scheduler.schedule(() -> {
+            if (result.isDone() || !tryReserveHedge()) {
+                return;
+            }
+            AIConfig callConfig = BackendConfigs.overlay(config, hedgeConfig);
+            long reserved = rateLimiter != null
+                    ? rateLimiter.tryAcquire(RateLimitedAIService.estimateTokens(data, callConfig))
+                    : 0;
+            if (reserved < 0) {
+                // Waiting for quota would defeat the purpose of the hedge
+                hedges.decrementAndGet();
+                hedgesRateLimited.incrementAndGet();
+                return;
+            }
+            log.debug("Hedging AI call after {} ms", delayMs);
+            outstanding.incrementAndGet();
+            long hedgeStartNanos = System.nanoTime();
+            CompletableFuture<AIResponse> hedgeCall = start(hedge, data, callConfig);
+            hedgeCall.whenComplete((response, error) -> {
+                if (rateLimiter != null) {
+                    RateLimitedAIService.reconcile(rateLimiter, reserved, response, callConfig);
+                }
+                settle(result, response, error, outstanding, hedgeStartNanos, true);
+            });
+            result.whenComplete((response, error) -> hedgeCall.cancel(true));
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void settle(CompletableFuture<AIResponse> result, AIResponse response, Throwable error,
+                        AtomicInteger outstanding, long startNanos, boolean isHedge) {
+        int remaining = outstanding.decrementAndGet();
+        if (error == null) {
+            recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            if (isHedge && !result.isDone() && response != null) {
+                if (response.getMetadata() == null) {
+                    response.setMetadata(new HashMap<>());
+                }
+                response.getMetadata().put(HEDGED_KEY, true);
+            }
+            if (result.complete(response) && isHedge) {
+                hedgeWins.incrementAndGet();
+            }
+        } else if (remaining == 0) {
+            // Fail only once no other attempt can still succeed
+            result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        }
+    }
+
+    private CompletableFuture<AIResponse> start(IAIService service, PreProcessedData data, AIConfig config) {
+        if (service.supportsAsync()) {
+            return service.invokeAsync(data, config);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.invoke(data, config);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, blockingExecutor);
+    }
+
+    private boolean tryReserveHedge() {
+        while (true) {
+            long current = hedges.get();
+            if (current + 1 > calls.get() * maxHedgeRatio) {
+                return false;
+            }
+            if (hedges.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void recordLatency(long latencyMs) {
+        latencies[latencyNext] = latencyMs;
+        latencyNext = (latencyNext + 1) % LATENCY_WINDOW;
+        latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+    }
+
+    /**
+     * Get the p95 of recent latencies, or -1 before enough calls have completed
+     */
+    public synchronized long getP95LatencyMs() {
+        if (latencyCount < minSamples) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        return sorted[Math.min(latencyCount - 1, (int) Math.ceil(latencyCount * 0.95) - 1)];
+    }
+
+    private long getHedgeDelayMs() {
+        long p95 = getP95LatencyMs();
+        return p95 < 0 ? -1 : Math.max(minHedgeDelayMs, p95);
+    }
+
+    /**
+     * Async only if the primary is: a blocking primary keeps the caller's thread pool as the bound
+     * on concurrent calls, and only hedges add internal threads
+     */
+    @Override
+    public boolean supportsAsync() {
+        return primary.supportsAsync();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return primary.isAvailable();
+    }
+
+    @Override
+    public String getProviderName() {
+        return primary.getProviderName();
+    }
+
+    @Override
+    public String[] getSupportedModels() {
+        return primary.getSupportedModels();
+    }
+
+    /**
+     * Get the wrapped primary service
+     */
+    public IAIService getPrimary() {
+        return primary;
+    }
+
+    /**
+     * Stop the hedge timer and the thread pool for blocking calls; calls already running complete
+     */
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        blockingExecutor.shutdown();
+    }
+
+    /**
+     * Get hedging statistics
+     */
+    public Map<String, Object> getHedgeStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("calls", calls.get());
+        stats.put("hedges", hedges.get());
+        stats.put("hedgeWins", hedgeWins.get());
+        stats.put("hedgesRateLimited", hedgesRateLimited.get());
+        stats.put("p95LatencyMs", getP95LatencyMs());
+        return stats;
+    }
+}
@@ -0,0 +1,177 @@
+package top.yumbo.ai.core.ai;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.model.AIResponse;
+import top.yumbo.ai.api.model.PreProcessedData;
+import top.yumbo.ai.core.AIEngine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Dispatch order that groups AI requests by shared prompt prefix, so provider prompt caches are hit
+ * <p>
+ * Requests with the same group key share the prompt template and context block. The first request
+ * of every group (its leader) is dispatched first; the other requests of a group are held back until
+ * their leader has completed, so the cache entry it wrote is there for them, and are then sent in one
+ * burst. Leaders of all groups run concurrently, so holding back costs about one call latency overall.
+ * <p>
+ * Cache read and write tokens reported by the provider are tracked per group.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+public class PromptCacheGroups {
+
+    /**
+     * {@code PreProcessedData.context} key that names a file's prompt group explicitly
+     */
+    public static final String GROUP_CONTEXT_KEY = "promptGroup";
+
+    private final List<PreProcessedData> scanOrder;
+    private final List<PreProcessedData> dispatchOrder = new ArrayList<>();
+    private final Map<PreProcessedData, Group> groupOf = new IdentityHashMap<>();
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+
+    /**
+     * @param dataList files in scan order
+     * @param groupKey key of the shared prompt prefix of a file
+     */
+    public PromptCacheGroups(List<PreProcessedData> dataList, Function<PreProcessedData, String> groupKey) {
+        this.scanOrder = dataList;
+        for (PreProcessedData data : dataList) {
+            Group group = groups.computeIfAbsent(groupKey.apply(data), Group::new);
+            group.members.add(data);
+            groupOf.put(data, group);
+        }
+        for (Group group : groups.values()) {
+            dispatchOrder.add(group.members.get(0));
+        }
+        for (Group group : groups.values()) {
+            dispatchOrder.addAll(group.members.subList(1, group.members.size()));
+        }
+        log.info("Grouped {} AI requests into {} prompt cache groups", dataList.size(), groups.size());
+    }
+
+    /**
+     * Default group key: the explicit {@value #GROUP_CONTEXT_KEY} of a file, otherwise its source
+     * and parser, which decide the context block and template the file is reviewed with
+     */
+    public static String defaultGroupKey(PreProcessedData data) {
+        Map<String, Object> context = data.getContext();
+        Object explicit = context != null ? context.get(GROUP_CONTEXT_KEY) : null;
+        if (explicit != null) {
+            return explicit.toString();
+        }
+        Object sourceId = context != null ? context.get(AIEngine.SOURCE_ID_KEY) : null;
+        return sourceId + "/" + data.getParserName();
+    }
+
+    /**
+     * Get the files in dispatch order: every group's leader, then the rest group by group
+     */
+    public List<PreProcessedData> getDispatchOrder() {
+        return dispatchOrder;
+    }
+
+    /**
+     * Put per-file values given in dispatch order back into scan order
+     */
+    public <T> List<T> toScanOrder(List<T> dispatched) {
+        Map<PreProcessedData, T> byData = new IdentityHashMap<>();
+        for (int i = 0; i < dispatched.size(); i++) {
+            byData.put(dispatchOrder.get(i), dispatched.get(i));
+        }
+        List<T> ordered = new ArrayList<>(scanOrder.size());
+        for (PreProcessedData data : scanOrder) {
+            ordered.add(byData.get(data));
+        }
+        return ordered;
+    }
+
+    /**
+     * Wait until the leader of the file's group has completed; returns at once for leaders
+     * A failed leader releases its group as well.
+     */
+    public void awaitLeader(PreProcessedData data) throws InterruptedException {
+        Group group = groupOf.get(data);
+        if (group == null || group.members.get(0) == data || group.leaderCall == null) {
+            return;
+        }
+        try {
+            group.leaderCall.get();
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            // The followers still go out; the cache entry is written by whichever succeeds first
+        }
+    }
+
+    /**
+     * Register the call of a dispatched file
+     */
+    public void dispatched(PreProcessedData data, Future<?> call) {
+        Group group = groupOf.get(data);
+        if (group != null && group.members.get(0) == data) {
+            group.leaderCall = call;
+        }
+    }
+
+    /**
+     * Record the cache usage reported for a file
+     */
+    public void record(PreProcessedData data, AIResponse response) {
+        Group group = groupOf.get(data);
+        if (group == null || response == null || response.getTokenUsage() == null) {
+            return;
+        }
+        AIResponse.TokenUsage usage = response.getTokenUsage();
+        group.calls.incrementAndGet();
+        group.inputTokens.addAndGet(valueOf(usage.getPromptTokens()) + valueOf(usage.getInputTokens()));
+        group.cacheReadTokens.addAndGet(valueOf(usage.getCacheRInputTokens()));
+        group.cacheWriteTokens.addAndGet(valueOf(usage.getCacheCreationInputTokens()));
+    }
+
+    private static long valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+
+    /**
+     * Get per-group statistics: files, calls with usage, input tokens, cache read and write tokens
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Group group : groups.values()) {
+            Map<String, Object> groupStats = new HashMap<>();
+            groupStats.put("files", group.members.size());
+            groupStats.put("calls", group.calls.get());
+            groupStats.put("inputTokens", group.inputTokens.get());
+            groupStats.put("cacheReadTokens", group.cacheReadTokens.get());
+            groupStats.put("cacheWriteTokens", group.cacheWriteTokens.get());
+            stats.put(group.key, groupStats);
+        }
+        return stats;
+    }
+
+    private static final class Group {
+        private final String key;
+        private final List<PreProcessedData> members = new ArrayList<>();
+        private volatile Future<?> leaderCall;
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong inputTokens = new AtomicLong();
+        private final AtomicLong cacheReadTokens = new AtomicLong();
+        private final AtomicLong cacheWriteTokens = new AtomicLong();
+
+        private Group(String key) {
+            this.key = key;
+        }
+    }
+}
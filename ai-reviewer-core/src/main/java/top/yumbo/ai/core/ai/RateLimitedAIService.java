@@ -0,0 +1,182 @@
+package top.yumbo.ai.core.ai;
+
+import top.yumbo.ai.api.ai.AIStreamListener;
+import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.api.model.AIResponse;
+import top.yumbo.ai.api.model.PreProcessedData;
+import top.yumbo.ai.common.constants.Constants;
+import top.yumbo.ai.core.limit.TokenBucketRateLimiter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Rate limiter decorator for an {@link IAIService}
+ * <p>
+ * Every call reserves one request and its estimated tokens from a {@link TokenBucketRateLimiter},
+ * waiting while the quota is short, and reconciles the reservation with the usage the provider reports.
+ * Charges the calls the engine does not dispatch itself, such as cascade and hedge calls.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class RateLimitedAIService implements IAIService {
+
+    private final IAIService delegate;
+    private final TokenBucketRateLimiter rateLimiter;
+
+    public RateLimitedAIService(IAIService delegate, TokenBucketRateLimiter rateLimiter) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public AIResponse invoke(PreProcessedData data, AIConfig config) throws Exception {
+        long reserved = rateLimiter.acquire(estimateTokens(data, config));
+        AIResponse response = null;
+        try {
+            response = delegate.invoke(data, config);
+            return response;
+        } finally {
+            reconcile(rateLimiter, reserved, response, config);
+        }
+    }
+
+    /**
+     * Reserve quota and call the delegate asynchronously
+     * For a natively async delegate the wait for quota is a delayed continuation rather than a
+     * sleep, since this may run on an I/O thread (for example a cascade escalating from a
+     * completed fast call). Cancelling the returned future cancels the delegate's call.
+     */
+    @Override
+    public CompletableFuture<AIResponse> invokeAsync(PreProcessedData data, AIConfig config) {
+        if (!delegate.supportsAsync()) {
+            // The delegate blocks the caller anyway; waiting for quota here keeps the call on the caller's thread
+            long reserved;
+            try {
+                reserved = rateLimiter.acquire(estimateTokens(data, config));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CompletableFuture.failedFuture(e);
+            }
+            return dispatch(data, config, reserved);
+        }
+        CompletableFuture<AIResponse> result = new CompletableFuture<>();
+        rateLimiter.acquireAsync(estimateTokens(data, config)).thenAccept(reserved -> {
+            if (result.isDone()) {
+                // Cancelled while waiting for quota
+                reconcile(rateLimiter, reserved, null, config);
+                return;
+            }
+            CompletableFuture<AIResponse> future = dispatch(data, config, reserved);
+            future.whenComplete((response, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                } else {
+                    result.complete(response);
+                }
+            });
+            result.whenComplete((response, error) -> future.cancel(true));
+        });
+        return result;
+    }
+
+    private CompletableFuture<AIResponse> dispatch(PreProcessedData data, AIConfig config, long reserved) {
+        CompletableFuture<AIResponse> future;
+        try {
+            future = delegate.invokeAsync(data, config);
+        } catch (RuntimeException e) {
+            reconcile(rateLimiter, reserved, null, config);
+            return CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((response, error) -> reconcile(rateLimiter, reserved, response, config));
+        return future;
+    }
+
+    @Override
+    public AIResponse invokeStreaming(PreProcessedData data, AIConfig config, AIStreamListener listener) throws Exception {
+        long reserved = rateLimiter.acquire(estimateTokens(data, config));
+        AIResponse response = null;
+        try {
+            response = delegate.invokeStreaming(data, config, listener);
+            return response;
+        } finally {
+            reconcile(rateLimiter, reserved, response, config);
+        }
+    }
+
+    /**
+     * Estimate the tokens a call can consume: the prompt (about 4 characters per token) plus maxTokens
+     */
+    public static long estimateTokens(PreProcessedData data, AIConfig aiConfig) {
+        long chars = (data.getContent() != null ? data.getContent().length() : 0)
+                + (aiConfig.getSysPrompt() != null ? aiConfig.getSysPrompt().length() : 0)
+                + (aiConfig.getUserPrompt() != null ? aiConfig.getUserPrompt().length() : 0);
+        int maxTokens = aiConfig.getMaxTokens() != null ? aiConfig.getMaxTokens() : Constants.DEFAULT_MAX_TOKENS;
+        return chars / 4 + 1 + maxTokens;
+    }
+
+    /**
+     * Correct a reservation with the tokens the response reports
+     * A failed call or one without usage is assumed to have consumed the prompt but generated nothing.
+     */
+    public static void reconcile(TokenBucketRateLimiter rateLimiter, long reserved,
+                                 AIResponse response, AIConfig aiConfig) {
+        long actual = usedTokens(response);
+        if (actual <= 0) {
+            int maxTokens = aiConfig.getMaxTokens() != null ? aiConfig.getMaxTokens() : Constants.DEFAULT_MAX_TOKENS;
+            actual = Math.max(0, reserved - maxTokens);
+        }
+        rateLimiter.reconcile(reserved, actual);
+    }
+
+    private static long usedTokens(AIResponse response) {
+        if (response == null || response.getTokenUsage() == null) {
+            return 0;
+        }
+        AIResponse.TokenUsage usage = response.getTokenUsage();
+        if (usage.getTotalTokens() != null) {
+            return usage.getTotalTokens();
+        }
+        long total = 0;
+        for (Integer tokens : new Integer[]{usage.getPromptTokens(), usage.getCompletionTokens(),
+                usage.getInputTokens(), usage.getOutputTokens()}) {
+            total += tokens != null ? tokens : 0;
+        }
+        return total;
+    }
+
+    @Override
+    public boolean supportsAsync() {
+        return delegate.supportsAsync();
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return delegate.supportsStreaming();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable();
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    @Override
+    public String[] getSupportedModels() {
+        return delegate.getSupportedModels();
+    }
+
+    /**
+     * Get the wrapped service
+     */
+    public IAIService getDelegate() {
+        return delegate;
+    }
+}
@@ -0,0 +1,412 @@
+package top.yumbo.ai.core.ai;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.ai.AIStreamListener;
+import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.api.model.AIResponse;
+import top.yumbo.ai.api.model.PreProcessedData;
+import top.yumbo.ai.common.exception.AIServiceException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link IAIService} that spreads calls across several backends and fails over on error
+ * <p>
+ * Each route pairs a registered service with the configuration to call it with (API key,
+ * endpoint, model), so several accounts, regions or providers can share the load. Routes are
+ * selected by weight, by fewest outstanding requests, or by latency (EWMA latency times
+ * outstanding requests). A failed call is retried on the next best route that has not been tried;
+ * a route with {@value #EJECT_AFTER_FAILURES} consecutive failures is skipped for
+ * {@value #EJECT_DURATION_MS} ms.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+public class RoutingAIService implements IAIService {
+
+    public static final int EJECT_AFTER_FAILURES = 3;
+    public static final long EJECT_DURATION_MS = 10_000;
+    /**
+     * Response metadata key naming the route that served the call
+     */
+    public static final String ROUTE_KEY = "route";
+    private static final double EWMA_WEIGHT = 0.2;
+
+    public enum Strategy {
+        /**
+         * Random choice proportional to route weight
+         */
+        WEIGHTED,
+        /**
+         * Route with the fewest requests in flight relative to its weight
+         */
+        LEAST_OUTSTANDING,
+        /**
+         * Route with the lowest EWMA latency times requests in flight
+         */
+        LATENCY_AWARE
+    }
+
+    private final String name;
+    private final Strategy strategy;
+    private final List<Route> routes;
+
+    public RoutingAIService(String name, Strategy strategy, List<Route> routes) {
+        if (routes.isEmpty()) {
+            throw new IllegalArgumentException("At least one route is required");
+        }
+        this.name = name;
+        this.strategy = strategy;
+        this.routes = List.copyOf(routes);
+    }
+
+    @Override
+    public AIResponse invoke(PreProcessedData data, AIConfig config) throws Exception {
+        Set<Route> tried = new HashSet<>();
+        while (true) {
+            Route route = select(tried);
+            tried.add(route);
+            long start = route.begin();
+            try {
+                AIResponse response = route.service.invoke(data, route.configFor(config));
+                route.succeeded(start);
+                return tag(response, route);
+            } catch (Exception e) {
+                route.failed();
+                if (!shouldFailOver(e, tried)) {
+                    throw e;
+                }
+                log.warn("Route {} of {} failed, failing over: {}", route.name, name, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<AIResponse> invokeAsync(PreProcessedData data, AIConfig config) {
+        CompletableFuture<AIResponse> result = new CompletableFuture<>();
+        attemptAsync(data, config, new HashSet<>(), result);
+        return result;
+    }
+
+    private void attemptAsync(PreProcessedData data, AIConfig config, Set<Route> tried,
+                              CompletableFuture<AIResponse> result) {
+        if (result.isDone()) {
+            return;
+        }
+        Route route = select(tried);
+        tried.add(route);
+        long start = route.begin();
+        CompletableFuture<AIResponse> call;
+        try {
+            call = route.service.invokeAsync(data, route.configFor(config));
+        } catch (RuntimeException e) {
+            // A synchronous throw is a failed attempt like any other, so the route's counters stay balanced
+            call = CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<AIResponse> attempt = call;
+        // Cancelling or failing the result from outside also stops the current route's call
+        result.whenComplete((response, error) -> {
+            if (error != null) {
+                attempt.cancel(true);
+            }
+        });
+        attempt.whenComplete((response, error) -> {
+            if (error == null) {
+                route.succeeded(start);
+                result.complete(tag(response, route));
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                route.abandoned();
+                return;
+            }
+            route.failed();
+            if (shouldFailOver(cause, tried)) {
+                log.warn("Route {} of {} failed, failing over: {}", route.name, name, cause.getMessage());
+                attemptAsync(data, config, tried, result);
+            } else {
+                result.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * Stream from the selected route; fails over only while nothing has reached the listener yet
+     */
+    @Override
+    public AIResponse invokeStreaming(PreProcessedData data, AIConfig config, AIStreamListener listener) throws Exception {
+        Set<Route> tried = new HashSet<>();
+        while (true) {
+            Route route = select(tried);
+            tried.add(route);
+            AtomicBoolean started = new AtomicBoolean();
+            AIStreamListener guarded = new AIStreamListener() {
+                @Override
+                public void onChunk(String chunk) {
+                    started.set(true);
+                    listener.onChunk(chunk);
+                }
+
+                @Override
+                public void onComplete(AIResponse response) {
+                    listener.onComplete(tag(response, route));
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    // Reported below, once no other route will be tried
+                }
+            };
+            long start = route.begin();
+            try {
+                AIResponse response = route.service.invokeStreaming(data, route.configFor(config), guarded);
+                route.succeeded(start);
+                return response;
+            } catch (Exception e) {
+                route.failed();
+                if (started.get() || !shouldFailOver(e, tried)) {
+                    listener.onError(e);
+                    throw e;
+                }
+                log.warn("Route {} of {} failed, failing over: {}", route.name, name, e.getMessage());
+            }
+        }
+    }
+
+    private boolean shouldFailOver(Throwable error, Set<Route> tried) {
+        if (tried.size() >= routes.size()) {
+            return false;
+        }
+        // A bad request fails the same way everywhere
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof AIServiceException serviceError) {
+                int status = serviceError.getStatusCode();
+                if (status == 400 || status == 413 || status == 422) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Select the best route not tried yet, preferring routes that are not ejected
+     */
+    private Route select(Set<Route> tried) {
+        long now = System.currentTimeMillis();
+        List<Route> candidates = new ArrayList<>();
+        for (Route route : routes) {
+            if (!tried.contains(route) && !route.isEjected(now)) {
+                candidates.add(route);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // Every remaining route is ejected: trying one beats failing without a call
+            for (Route route : routes) {
+                if (!tried.contains(route)) {
+                    candidates.add(route);
+                }
+            }
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        switch (strategy) {
+            case LEAST_OUTSTANDING: {
+                Route best = null;
+                for (Route route : candidates) {
+                    if (best == null || route.outstanding.get() * best.weight < best.outstanding.get() * route.weight) {
+                        best = route;
+                    }
+                }
+                return best;
+            }
+            case LATENCY_AWARE: {
+                Route best = null;
+                double bestCost = Double.MAX_VALUE;
+                for (Route route : candidates) {
+                    // Unmeasured routes cost nothing, so each one is tried early
+                    double cost = route.getLatencyEwmaMs() * (route.outstanding.get() + 1) / route.weight;
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        best = route;
+                    }
+                }
+                return best;
+            }
+            case WEIGHTED:
+            default: {
+                int total = candidates.stream().mapToInt(route -> route.weight).sum();
+                int pick = ThreadLocalRandom.current().nextInt(total);
+                for (Route route : candidates) {
+                    pick -= route.weight;
+                    if (pick < 0) {
+                        return route;
+                    }
+                }
+                return candidates.get(candidates.size() - 1);
+            }
+        }
+    }
+
+    private static AIResponse tag(AIResponse response, Route route) {
+        if (response == null) {
+            return null;
+        }
+        if (response.getMetadata() == null) {
+            response.setMetadata(new HashMap<>());
+        }
+        response.getMetadata().put(ROUTE_KEY, route.name);
+        return response;
+    }
+
+    @Override
+    public boolean supportsAsync() {
+        // One blocking route would serialize callers that rely on non-blocking calls
+        return routes.stream().allMatch(route -> route.service.supportsAsync());
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return routes.stream().allMatch(route -> route.service.supportsStreaming());
+    }
+
+    @Override
+    public boolean isAvailable() {
+        long now = System.currentTimeMillis();
+        return routes.stream().anyMatch(route -> !route.isEjected(now));
+    }
+
+    @Override
+    public String getProviderName() {
+        return name;
+    }
+
+    public Strategy getStrategy() {
+        return strategy;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    /**
+     * Get per-route statistics
+     */
+    public Map<String, Object> getRoutingStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (Route route : routes) {
+            stats.put(route.name, route.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * A backend of the router
+     */
+    public static final class Route {
+        private final String name;
+        private final IAIService service;
+        private final AIConfig config;
+        private final int weight;
+
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private int consecutiveFailures;
+        private long ejectedUntilMs;
+        private double latencyEwmaMs;
+
+        /**
+         * @param name    route name for logs and statistics
+         * @param service registered AI service
+         * @param config  provider, endpoint, API key, model, region and custom params to call the service with
+         *                (null = the caller's)
+         * @param weight  relative share of the load (at least 1)
+         */
+        public Route(String name, IAIService service, AIConfig config, int weight) {
+            this.name = name;
+            this.service = service;
+            this.config = config;
+            this.weight = Math.max(1, weight);
+        }
+
+        /**
+         * The caller's configuration with the route's settings, see {@link BackendConfigs#overlay}
+         */
+        AIConfig configFor(AIConfig callerConfig) {
+            return BackendConfigs.overlay(callerConfig, config);
+        }
+
+        long begin() {
+            outstanding.incrementAndGet();
+            calls.incrementAndGet();
+            return System.currentTimeMillis();
+        }
+
+        synchronized void succeeded(long startMs) {
+            outstanding.decrementAndGet();
+            long latency = System.currentTimeMillis() - startMs;
+            latencyEwmaMs = latencyEwmaMs == 0 ? latency : latencyEwmaMs * (1 - EWMA_WEIGHT) + latency * EWMA_WEIGHT;
+            consecutiveFailures = 0;
+        }
+
+        synchronized void failed() {
+            outstanding.decrementAndGet();
+            failures.incrementAndGet();
+            if (++consecutiveFailures >= EJECT_AFTER_FAILURES) {
+                ejectedUntilMs = System.currentTimeMillis() + EJECT_DURATION_MS;
+                consecutiveFailures = 0;
+                log.warn("Route {} ejected for {} ms after {} consecutive failures",
+                        name, EJECT_DURATION_MS, EJECT_AFTER_FAILURES);
+            }
+        }
+
+        void abandoned() {
+            outstanding.decrementAndGet();
+        }
+
+        synchronized boolean isEjected(long now) {
+            return now < ejectedUntilMs;
+        }
+
+        synchronized double getLatencyEwmaMs() {
+            return latencyEwmaMs;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public IAIService getService() {
+            return service;
+        }
+
+        synchronized Map<String, Object> getStats() {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("weight", weight);
+            stats.put("outstanding", outstanding.get());
+            stats.put("calls", calls.get());
+            stats.put("failures", failures.get());
+            stats.put("latencyEwmaMs", (long) latencyEwmaMs);
+            stats.put("ejected", System.currentTimeMillis() < ejectedUntilMs);
+            return stats;
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package top.yumbo.ai.core.context;
 import lombok.Builder;
 import lombok.Data;
+import top.yumbo.ai.api.ai.AIStreamListener;
 import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.api.model.PreProcessedData;
 import top.yumbo.ai.api.model.ProcessorConfig;
 import top.yumbo.ai.api.source.FileSourceConfig;
+import top.yumbo.ai.api.source.FileSpool;
+import top.yumbo.ai.core.ai.CascadeAIService;
+import top.yumbo.ai.core.ai.PromptCacheGroups;
+import top.yumbo.ai.core.source.PrefetchingFileSource;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 /**
  * Execution context for tracking state during processing
  */
@@ -45,12 +52,43 @@ public class ExecutionContext {
      * @since 1.1.0
      */
     private FileSourceConfig fileSourceConfig;
+    /**
+     * File source configurations for a federated execution
+     * When set, all sources are listed and parsed concurrently and share one AI stage
+     * (thread pool, {@link #maxConcurrentAICalls} and {@link #maxTotalTokens}).
+     * Takes precedence over {@link #fileSourceConfig}.
+     */
+    private List<FileSourceConfig> fileSourceConfigs;
     /**
      * Target directory to process (deprecated, use fileSourceConfig instead)
      * @deprecated Use {@link #fileSourceConfig} instead for more flexible file source support
      */
     @Deprecated
     private Path targetDirectory;
+    /**
+     * Directory for the execution's file spool (null for the system temp directory)
+     * Point it at a tmpfs mount such as /dev/shm to keep spooled copies in memory
+     */
+    private Path spoolDirectory;
+    /**
+     * Maximum total size of spooled files in bytes; parse workers wait when it is reached
+     */
+    @Builder.Default
+    private long maxSpoolBytes = FileSpool.DEFAULT_MAX_BYTES;
+    /**
+     * Read the files of remote sources ahead of the parse workers
+     */
+    private boolean prefetchSourceFiles;
+    /**
+     * Files read ahead per source when prefetching
+     */
+    @Builder.Default
+    private int prefetchDepth = PrefetchingFileSource.DEFAULT_PREFETCH_DEPTH;
+    /**
+     * Memory for read-ahead content per source; files beyond it are spilled to disk
+     */
+    @Builder.Default
+    private long prefetchMemoryBytes = PrefetchingFileSource.DEFAULT_MEMORY_BUDGET_BYTES;
     /**
      * Include patterns
      */
@@ -67,6 +105,89 @@ public class ExecutionContext {
      * Processor configuration
      */
     private ProcessorConfig processorConfig;
+    /**
+     * Maximum number of concurrent AI calls for the whole execution (null = thread pool size)
+     */
+    private Integer maxConcurrentAICalls;
+    /**
+     * Maximum number of AI requests in flight when the AI service supports non-blocking calls
+     * ({@link #maxConcurrentAICalls} takes precedence when set)
+     */
+    @Builder.Default
+    private int maxInFlightAIRequests = 256;
+    /**
+     * Stream AI responses; chunks are reported to the listener from {@link #streamListenerFactory}
+     */
+    private boolean streamAIResponses;
+    /**
+     * Creates the stream listener for each file sent to the AI service (null = no listener)
+     */
+    private Function<PreProcessedData, AIStreamListener> streamListenerFactory;
+    /**
+     * Adapt the number of concurrent AI calls to the provider's capacity (AIMD per provider and model)
+     * The configured concurrency becomes the upper bound.
+     */
+    private boolean adaptiveConcurrency;
+    /**
+     * Fast, cheap model that every file is sent to first (null = no cascade)
+     * Only files whose fast response meets an escalation criterion are sent to {@link #aiConfig}.
+     */
+    private AIConfig cascadeAiConfig;
+    /**
+     * Escalate when the fast response reports a score below this value (null = not used)
+     */
+    private Double cascadeScoreThreshold;
+    /**
+     * Regex reading the score from the fast response, its first group being the score
+     * (null = the total score line, see {@link CascadeAIService#DEFAULT_SCORE_PATTERN})
+     */
+    private String cascadeScorePattern;
+    /**
+     * Escalate when the fast response contains any of these keywords (null = not used)
+     */
+    private List<String> cascadeKeywords;
+    /**
+     * Escalate when the fast response contains this field set to true (null = not used)
+     */
+    @Builder.Default
+    private String cascadeFlagField = CascadeAIService.DEFAULT_FLAG_FIELD;
+    /**
+     * Guard AI calls with a circuit breaker per provider and model: fail fast during an outage
+     */
+    private boolean circuitBreaker;
+    /**
+     * Hedge slow AI calls: duplicate a call that is slower than the observed p95 latency
+     */
+    private boolean hedgeAICalls;
+    /**
+     * Configuration of the provider that receives hedge calls (null = the same provider)
+     */
+    private AIConfig hedgeAiConfig;
+    /**
+     * Maximum fraction of AI calls that may be hedged
+     */
+    @Builder.Default
+    private double maxHedgeRatio = 0.1;
+    /**
+     * Deadline for a single AI call in milliseconds, counted from when the call is sent (null = none)
+     * Non-blocking calls fail with a timeout; blocking calls are cancelled, interrupting their thread.
+     */
+    private Long aiCallTimeoutMs;
+    /**
+     * Token budget for the whole execution (null = unlimited)
+     * Each call reserves its estimated tokens before it is sent, so concurrent calls cannot overshoot
+     * the budget; once used up, the remaining files are not sent to the AI service.
+     */
+    private Long maxTotalTokens;
+    /**
+     * Group AI requests by shared prompt prefix and send each group in a burst, after its first request
+     * has completed, so the provider's prompt cache is hit
+     */
+    private boolean promptCacheGrouping;
+    /**
+     * Key of the shared prompt prefix of a file (null = {@link PromptCacheGroups#defaultGroupKey})
+     */
+    private Function<PreProcessedData, String> promptGroupKey;
     /**
      * Custom context data
      */
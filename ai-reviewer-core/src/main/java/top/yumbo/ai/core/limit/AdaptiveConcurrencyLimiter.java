@@ -0,0 +1,235 @@
+package top.yumbo.ai.core.limit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD concurrency limiter for calls to one provider/model
+ * <p>
+ * The limit grows by about one per round of successful calls (additive increase) and is cut
+ * by {@code backoffRatio} (multiplicative decrease) on throttling or timeouts. With a positive
+ * {@code latencyTolerance}, a call slower than that multiple of the best latency seen also cuts it.
+ * Only calls started after the previous cut can cut the limit again, so a burst of 429s from
+ * requests that were already in flight counts as one congestion signal.
+ * <p>
+ * Every call must be paired: {@link #acquire()}, then exactly one of {@link #onSuccess},
+ * {@link #onDropped} or {@link #onIgnore}. Calls over the limit queue in {@link #acquire()};
+ * the statistics report how many waited and for how long.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    public static final int DEFAULT_INITIAL_LIMIT = 10;
+    public static final int DEFAULT_MIN_LIMIT = 1;
+    public static final double DEFAULT_BACKOFF_RATIO = 0.75;
+    /**
+     * Latency signal disabled: completion latency mostly depends on the length of the output
+     */
+    public static final double DEFAULT_LATENCY_TOLERANCE = 0;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private long minLatencyNanos = Long.MAX_VALUE;
+    private long lastDecreaseNanos;
+
+    // Statistics
+    private long successCount;
+    private long dropCount;
+    private long waitCount;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private int peakLimit;
+
+    public AdaptiveConcurrencyLimiter(String name, int maxLimit) {
+        this(name, Math.min(DEFAULT_INITIAL_LIMIT, maxLimit), DEFAULT_MIN_LIMIT, maxLimit,
+                DEFAULT_BACKOFF_RATIO, DEFAULT_LATENCY_TOLERANCE);
+    }
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Require 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        this.name = name;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.peakLimit = initialLimit;
+    }
+
+    /**
+     * Wait until the call fits under the current limit
+     *
+     * @return start time of the call, to pass to the completion method
+     */
+    public long acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight >= getLimitUnlocked()) {
+                long waitStart = System.nanoTime();
+                waitCount++;
+                try {
+                    do {
+                        permitReleased.await();
+                    } while (inFlight >= getLimitUnlocked());
+                } finally {
+                    long waited = System.nanoTime() - waitStart;
+                    totalWaitNanos += waited;
+                    maxWaitNanos = Math.max(maxWaitNanos, waited);
+                }
+            }
+            inFlight++;
+            return System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a successful call
+     *
+     * @param startNanos value returned when the call was acquired
+     */
+    public void onSuccess(long startNanos) {
+        long latency = System.nanoTime() - startNanos;
+        lock.lock();
+        try {
+            successCount++;
+            minLatencyNanos = Math.min(minLatencyNanos, latency);
+            if (latencyTolerance > 0 && latency > minLatencyNanos * latencyTolerance) {
+                // Queueing at the provider: back off before it starts rejecting
+                decrease(startNanos);
+            } else if (inFlight >= getLimitUnlocked() / 2) {
+                // Only grow while the limit is actually being used
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+                peakLimit = Math.max(peakLimit, getLimitUnlocked());
+            }
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a call that was throttled or timed out
+     *
+     * @param startNanos value returned when the call was acquired
+     */
+    public void onDropped(long startNanos) {
+        lock.lock();
+        try {
+            dropCount++;
+            decrease(startNanos);
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Record a call that failed for a reason unrelated to load
+     */
+    public void onIgnore() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(long startNanos) {
+        if (startNanos < lastDecreaseNanos) {
+            return;
+        }
+        double previous = limit;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        lastDecreaseNanos = System.nanoTime();
+        if (getLimitUnlocked() < (int) previous) {
+            log.debug("Concurrency limit for {} reduced: {} -> {}", name, (int) previous, getLimitUnlocked());
+        }
+    }
+
+    private void release() {
+        inFlight--;
+        permitReleased.signalAll();
+    }
+
+    private int getLimitUnlocked() {
+        return (int) limit;
+    }
+
+    /**
+     * Get the current concurrency limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return getLimitUnlocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of calls in flight
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get limiter statistics
+     */
+    public Map<String, Object> getStats() {
+        lock.lock();
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("limit", getLimitUnlocked());
+            stats.put("peakLimit", peakLimit);
+            stats.put("maxLimit", maxLimit);
+            stats.put("inFlight", inFlight);
+            stats.put("successCount", successCount);
+            stats.put("dropCount", dropCount);
+            stats.put("waitCount", waitCount);
+            stats.put("totalWaitMs", TimeUnit.NANOSECONDS.toMillis(totalWaitNanos));
+            stats.put("maxWaitMs", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+            stats.put("minLatencyMs", minLatencyNanos == Long.MAX_VALUE
+                    ? -1 : TimeUnit.NANOSECONDS.toMillis(minLatencyNanos));
+            return stats;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package top.yumbo.ai.core.limit;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.model.AIConfig;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests-per-minute and tokens-per-minute limiter for one provider/model
+ * <p>
+ * Both quotas are token buckets that refill continuously and hold at most one minute of quota.
+ * A call reserves one request and its estimated tokens up front; when the buckets run short the
+ * reservation is still granted but the caller is told how long to wait, so callers are served in
+ * arrival order and the quota is used evenly instead of in bursts followed by 429s. Once the
+ * actual usage is known, {@link #reconcile} returns over-reserved tokens (or takes the shortfall).
+ * <p>
+ * Limiters are shared by every execution in the JVM through {@link #forModel}. Every request
+ * sent counts: retries and hedge calls reserve their own request next to the call that started them.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+public class TokenBucketRateLimiter {
+
+    private static final Map<String, TokenBucketRateLimiter> SHARED = new ConcurrentHashMap<>();
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    private final String name;
+    private final long requestsPerMinute;
+    private final long tokensPerMinute;
+
+    private double availableRequests;
+    private double availableTokens;
+    private long lastRefillNanos;
+
+    // Statistics
+    private long reservations;
+    private long delayedReservations;
+    private long declinedReservations;
+    private long totalDelayNanos;
+    private long reconciledTokens;
+
+    /**
+     * Create a limiter; a quota of 0 or less is unlimited
+     */
+    public TokenBucketRateLimiter(String name, long requestsPerMinute, long tokensPerMinute) {
+        this.name = name;
+        this.requestsPerMinute = requestsPerMinute;
+        this.tokensPerMinute = tokensPerMinute;
+        this.availableRequests = requestsPerMinute;
+        this.availableTokens = tokensPerMinute;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Get the limiter shared in this JVM for a provider and model
+     * A new limiter replaces the shared one when the quotas change.
+     *
+     * @param provider          AI provider
+     * @param model             model identifier
+     * @param requestsPerMinute request quota (0 or less = unlimited)
+     * @param tokensPerMinute   token quota (0 or less = unlimited)
+     * @return shared limiter
+     */
+    public static TokenBucketRateLimiter forModel(String provider, String model,
+                                                  long requestsPerMinute, long tokensPerMinute) {
+        String key = provider + ":" + model;
+        return SHARED.compute(key, (name, existing) -> existing != null
+                && existing.requestsPerMinute == requestsPerMinute
+                && existing.tokensPerMinute == tokensPerMinute
+                ? existing
+                : new TokenBucketRateLimiter(name, requestsPerMinute, tokensPerMinute));
+    }
+
+    /**
+     * Get the shared limiter for the provider and model of an AI configuration
+     * Quotas come from the custom params {@code requestsPerMinute} and {@code tokensPerMinute}.
+     *
+     * @return shared limiter, or null if no quota is configured
+     */
+    public static TokenBucketRateLimiter forConfig(AIConfig config) {
+        Map<String, Object> params = config.getCustomParams();
+        if (params == null) {
+            return null;
+        }
+        long requestsPerMinute = toLong(params.get("requestsPerMinute"));
+        long tokensPerMinute = toLong(params.get("tokensPerMinute"));
+        if (requestsPerMinute <= 0 && tokensPerMinute <= 0) {
+            return null;
+        }
+        return forModel(config.getProvider(), config.getModel(), requestsPerMinute, tokensPerMinute);
+    }
+
+    private static long toLong(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString().trim());
+    }
+
+    /**
+     * Reserve one request and the given number of tokens, waiting until the quota allows it
+     *
+     * @param tokens estimated tokens of the call (prompt plus maximum completion)
+     * @return tokens reserved, to pass to {@link #reconcile}
+     */
+    public long acquire(long tokens) throws InterruptedException {
+        long reserved = tokensPerMinute > 0 ? Math.min(tokens, tokensPerMinute) : tokens;
+        long delayNanos = reserve(reserved);
+        if (delayNanos > 0) {
+            log.debug("Rate limit for {} reached, waiting {} ms", name, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        }
+        return reserved;
+    }
+
+    /**
+     * Reserve one request and the given number of tokens without blocking the caller
+     * The future completes once the quota allows the call, so callers on I/O threads never sleep.
+     *
+     * @param tokens estimated tokens of the call (prompt plus maximum completion)
+     * @return future of the tokens reserved, to pass to {@link #reconcile}
+     */
+    public CompletableFuture<Long> acquireAsync(long tokens) {
+        long reserved = tokensPerMinute > 0 ? Math.min(tokens, tokensPerMinute) : tokens;
+        long delayNanos = reserve(reserved);
+        if (delayNanos <= 0) {
+            return CompletableFuture.completedFuture(reserved);
+        }
+        log.debug("Rate limit for {} reached, delaying call by {} ms", name, TimeUnit.NANOSECONDS.toMillis(delayNanos));
+        return CompletableFuture.supplyAsync(() -> reserved,
+                CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Reserve one request and the given number of tokens only if the quota allows it right now
+     * For optional calls such as hedges, which are pointless once they would have to wait.
+     *
+     * @return tokens reserved, to pass to {@link #reconcile}, or -1 if nothing was reserved
+     */
+    public synchronized long tryAcquire(long tokens) {
+        long reserved = tokensPerMinute > 0 ? Math.min(tokens, tokensPerMinute) : tokens;
+        refill();
+        if ((requestsPerMinute > 0 && availableRequests < 1) || (tokensPerMinute > 0 && availableTokens < reserved)) {
+            declinedReservations++;
+            return -1;
+        }
+        reserve(reserved);
+        return reserved;
+    }
+
+    /**
+     * Reserve one request and the given number of tokens without waiting
+     * Callers that cannot block, such as asynchronous retries, delay the call themselves.
+     *
+     * @return nanoseconds to wait before sending the call
+     */
+    public synchronized long reserve(long tokens) {
+        refill();
+        double requestDeficit = requestsPerMinute > 0 ? 1 - availableRequests : 0;
+        double tokenDeficit = tokensPerMinute > 0 ? tokens - availableTokens : 0;
+        long delayNanos = (long) Math.max(0, Math.max(
+                requestDeficit > 0 ? requestDeficit / requestsPerMinute * NANOS_PER_MINUTE : 0,
+                tokenDeficit > 0 ? tokenDeficit / tokensPerMinute * NANOS_PER_MINUTE : 0));
+        // Granted now, paid for by waiting: later callers queue behind the deficit
+        if (requestsPerMinute > 0) {
+            availableRequests -= 1;
+        }
+        if (tokensPerMinute > 0) {
+            availableTokens -= tokens;
+        }
+        reservations++;
+        if (delayNanos > 0) {
+            delayedReservations++;
+            totalDelayNanos += delayNanos;
+        }
+        return delayNanos;
+    }
+
+    /**
+     * Correct a reservation with the tokens actually used
+     *
+     * @param reservedTokens value returned by {@link #acquire}
+     * @param actualTokens   tokens reported by the provider
+     */
+    public synchronized void reconcile(long reservedTokens, long actualTokens) {
+        if (tokensPerMinute <= 0) {
+            return;
+        }
+        refill();
+        availableTokens = Math.min(tokensPerMinute, availableTokens + reservedTokens - actualTokens);
+        reconciledTokens += reservedTokens - actualTokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedMinutes = (now - lastRefillNanos) / NANOS_PER_MINUTE;
+        lastRefillNanos = now;
+        if (requestsPerMinute > 0) {
+            availableRequests = Math.min(requestsPerMinute, availableRequests + elapsedMinutes * requestsPerMinute);
+        }
+        if (tokensPerMinute > 0) {
+            availableTokens = Math.min(tokensPerMinute, availableTokens + elapsedMinutes * tokensPerMinute);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get limiter statistics
+     */
+    public synchronized Map<String, Object> getStats() {
+        refill();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("requestsPerMinute", requestsPerMinute);
+        stats.put("tokensPerMinute", tokensPerMinute);
+        stats.put("availableRequests", (long) availableRequests);
+        stats.put("availableTokens", (long) availableTokens);
+        stats.put("reservations", reservations);
+        stats.put("delayedReservations", delayedReservations);
+        stats.put("declinedReservations", declinedReservations);
+        stats.put("totalDelayMs", TimeUnit.NANOSECONDS.toMillis(totalDelayNanos));
+        stats.put("reconciledTokens", reconciledTokens);
+        return stats;
+    }
+}
@@ -0,0 +1,97 @@
+package top.yumbo.ai.core.limit;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token budget of one execution
+ * <p>
+ * Every call reserves its estimated tokens before it is sent and reconciles the reservation with
+ * the usage the provider reports, so calls in flight together cannot overshoot the budget. A call
+ * that does not fit waits while other reservations are outstanding, since they usually hand back
+ * tokens; with nothing in flight it gets whatever is left, so at most that one call overshoots.
+ * <p>
+ * Every successful {@link #reserve} must be paired with exactly one {@link #reconcile}.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+public class TokenBudget {
+
+    private final long maxTokens;
+
+    private long usedTokens;
+    private long reservedTokens;
+    private int outstanding;
+
+    // Statistics
+    private long waits;
+    private long refusals;
+
+    public TokenBudget(long maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    /**
+     * Reserve the estimated tokens of a call, waiting while the budget is committed to calls in flight
+     *
+     * @param estimatedTokens tokens the call can consume (prompt plus maximum completion)
+     * @return tokens reserved, to pass to {@link #reconcile}, or -1 if the budget is used up
+     */
+    public synchronized long reserve(long estimatedTokens) throws InterruptedException {
+        boolean waited = false;
+        while (true) {
+            long available = maxTokens - usedTokens - reservedTokens;
+            if (usedTokens >= maxTokens) {
+                refusals++;
+                return -1;
+            }
+            if (estimatedTokens <= available || outstanding == 0) {
+                long reserved = Math.max(0, Math.min(estimatedTokens, available));
+                reservedTokens += reserved;
+                outstanding++;
+                return reserved;
+            }
+            if (!waited) {
+                waits++;
+                waited = true;
+            }
+            wait();
+        }
+    }
+
+    /**
+     * Replace a reservation with the tokens the call actually used
+     *
+     * @param reserved     value returned by {@link #reserve}
+     * @param actualTokens tokens reported by the provider (0 for a failed call)
+     */
+    public synchronized void reconcile(long reserved, long actualTokens) {
+        reservedTokens -= reserved;
+        usedTokens += actualTokens;
+        outstanding--;
+        notifyAll();
+    }
+
+    public synchronized long getUsedTokens() {
+        return usedTokens;
+    }
+
+    public long getMaxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * Get budget statistics
+     */
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxTokens", maxTokens);
+        stats.put("usedTokens", usedTokens);
+        stats.put("reservedTokens", reservedTokens);
+        stats.put("outstanding", outstanding);
+        stats.put("waits", waits);
+        stats.put("refusals", refusals);
+        return stats;
+    }
+}
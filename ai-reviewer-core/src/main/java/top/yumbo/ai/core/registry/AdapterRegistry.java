@@ -2,10 +2,13 @@ package top.yumbo.ai.core.registry;
 
 import lombok.extern.slf4j.Slf4j;
 import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
 import top.yumbo.ai.api.parser.IFileParser;
 import top.yumbo.ai.api.processor.IResultProcessor;
 import top.yumbo.ai.api.source.FileSourceConfig;
 import top.yumbo.ai.api.source.IFileSource;
+import top.yumbo.ai.common.exception.AIReviewerException;
+import top.yumbo.ai.core.ai.RoutingAIService;
 
 import java.io.File;
 import java.util.*;
@@ -37,6 +40,32 @@ public class AdapterRegistry {
         log.info("Registered AI service: {}", aiService.getProviderName());
     }
 
+    /**
+     * Create and register a routing AI service over already registered services
+     * Each backend configuration names a registered provider and carries the settings to call it
+     * with; its custom param {@code routeWeight} sets its share of the load (default 1).
+     *
+     * @param name     provider name to register the router under
+     * @param strategy route selection strategy
+     * @param backends backend configurations
+     * @return the registered router
+     */
+    public RoutingAIService registerRoutingAIService(String name, RoutingAIService.Strategy strategy,
+                                                     List<AIConfig> backends) {
+        List<RoutingAIService.Route> routes = new ArrayList<>();
+        for (int i = 0; i < backends.size(); i++) {
+            AIConfig backend = backends.get(i);
+            IAIService service = getAIService(backend.getProvider())
+                    .orElseThrow(() -> new AIReviewerException("AI service not found: " + backend.getProvider()));
+            Object weight = backend.getCustomParams() != null ? backend.getCustomParams().get("routeWeight") : null;
+            routes.add(new RoutingAIService.Route(backend.getProvider() + "#" + i, service, backend,
+                    weight != null ? Integer.parseInt(weight.toString()) : 1));
+        }
+        RoutingAIService router = new RoutingAIService(name, strategy, routes);
+        registerAIService(router);
+        return router;
+    }
+
     /**
      * Register a result processor
      */
@@ -86,6 +115,21 @@ public class AdapterRegistry {
                 .max(Comparator.comparingInt(IFileSource::getPriority));
     }
 
+    /**
+     * Create a new, uninitialized instance of the file source for the given configuration
+     * Used when several configurations of the same source type are active at once,
+     * since the registered instance can only hold one configuration.
+     */
+    public Optional<IFileSource> createFileSource(FileSourceConfig config) {
+        return getFileSource(config).map(prototype -> {
+            try {
+                return prototype.getClass().getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new AIReviewerException("Failed to create file source: " + prototype.getSourceName(), e);
+            }
+        });
+    }
+
     /**
      * Get file source by name
      */
@@ -0,0 +1,420 @@
+package top.yumbo.ai.core.source;
+
+import lombok.extern.slf4j.Slf4j;
+import top.yumbo.ai.api.source.FileListRequest;
+import top.yumbo.ai.api.source.FileSourceConfig;
+import top.yumbo.ai.api.source.IFileSource;
+import top.yumbo.ai.api.source.SourceFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-ahead prefetching decorator for any {@link IFileSource}
+ * <p>
+ * Remote sources (SFTP, S3, ...) pay a synchronous round trip for every {@code readFile}.
+ * This decorator follows the listing order and reads the next {@code prefetchDepth} files
+ * in the background, so parse workers usually find the content already local.
+ * <p>
+ * Prefetched content is kept in memory up to {@code memoryBudgetBytes}; beyond that it is
+ * spilled to a private temporary directory. Each prefetched file is handed out once and then
+ * released; later reads of the same file go to the delegate again.
+ * <p>
+ * Works with any source returned by {@code AdapterRegistry.createFileSource(...)}; {@code AIEngine} wraps
+ * its sources when {@code ExecutionContext.prefetchSourceFiles} is set. Files with a local path are not
+ * prefetched. The prefetch threads read concurrently with callers, which {@link IFileSource#readFile}
+ * allows for every source.
+ *
+ * @author AI-Reviewer Team
+ * @since 1.1.0
+ */
+@Slf4j
+public class PrefetchingFileSource implements IFileSource {
+
+    public static final int DEFAULT_PREFETCH_DEPTH = 8;
+    public static final long DEFAULT_MEMORY_BUDGET_BYTES = 64L * 1024 * 1024; // 64MB
+    public static final int DEFAULT_PREFETCH_THREADS = 2;
+    private static final int CHUNK_SIZE = 8192;
+
+    private final IFileSource delegate;
+    private final int prefetchDepth;
+    private final long memoryBudgetBytes;
+    private final ExecutorService prefetchExecutor;
+
+    private final Map<String, CompletableFuture<PrefetchedFile>> prefetched = new ConcurrentHashMap<>();
+    private final Map<String, Integer> orderIndex = new ConcurrentHashMap<>();
+    private final Set<String> consumed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger nextToPrefetch = new AtomicInteger();
+    private volatile List<SourceFile> order = List.of();
+    private Path spillDirectory;
+
+    // Statistics
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong lateHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bufferedBytes = new AtomicLong();
+    private final AtomicLong spilledBytes = new AtomicLong();
+
+    public PrefetchingFileSource(IFileSource delegate) {
+        this(delegate, DEFAULT_PREFETCH_DEPTH, DEFAULT_MEMORY_BUDGET_BYTES, DEFAULT_PREFETCH_THREADS);
+    }
+
+    public PrefetchingFileSource(IFileSource delegate, int prefetchDepth, long memoryBudgetBytes, int prefetchThreads) {
+        if (prefetchDepth < 1 || prefetchThreads < 1) {
+            throw new IllegalArgumentException("prefetchDepth and prefetchThreads must be positive");
+        }
+        this.delegate = delegate;
+        this.prefetchDepth = prefetchDepth;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.prefetchExecutor = Executors.newFixedThreadPool(prefetchThreads, r -> {
+            Thread thread = new Thread(r, "prefetch-" + delegate.getSourceName() + "-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public String getSourceName() {
+        return delegate.getSourceName();
+    }
+
+    @Override
+    public boolean support(FileSourceConfig config) {
+        return delegate.support(config);
+    }
+
+    @Override
+    public void initialize(FileSourceConfig config) throws Exception {
+        delegate.initialize(config);
+    }
+
+    /**
+     * List files from the delegate and start prefetching them in listing order
+     */
+    @Override
+    public List<SourceFile> listFiles(String basePath) throws Exception {
+        List<SourceFile> files = delegate.listFiles(basePath);
+        // Route reads through this decorator
+        files.forEach(file -> file.setSource(this));
+        prefetch(files);
+        return files;
+    }
+
+    /**
+     * List files matching the request from the delegate and start prefetching them in listing order
+     */
+    @Override
+    public List<SourceFile> listFiles(FileListRequest request) throws Exception {
+        List<SourceFile> files = delegate.listFiles(request);
+        files.forEach(file -> file.setSource(this));
+        prefetch(files);
+        return files;
+    }
+
+    /**
+     * Replace the prefetch order, e.g. after the listing has been filtered
+     * Prefetched files that are not part of the new order are released.
+     *
+     * @param files files in the order they will be read
+     */
+    public synchronized void prefetch(List<SourceFile> files) {
+        List<SourceFile> newOrder = new ArrayList<>(files.size());
+        for (SourceFile file : files) {
+            // Local files are parsed in place and never read through the source
+            if (delegate.getLocalPath(file) == null) {
+                newOrder.add(file);
+            }
+        }
+        Map<String, Integer> newIndex = new HashMap<>();
+        for (int i = 0; i < newOrder.size(); i++) {
+            newIndex.put(newOrder.get(i).getFileId(), i);
+        }
+
+        // Drop prefetched files that will no longer be read
+        prefetched.keySet().removeIf(fileId -> {
+            if (newIndex.containsKey(fileId)) {
+                return false;
+            }
+            discard(prefetched.get(fileId));
+            return true;
+        });
+
+        orderIndex.clear();
+        orderIndex.putAll(newIndex);
+        this.order = newOrder;
+        nextToPrefetch.set(0);
+        schedule(prefetchDepth);
+    }
+
+    @Override
+    public InputStream readFile(SourceFile file) throws Exception {
+        String fileId = file.getFileId();
+        consumed.add(fileId);
+
+        // Slide the prefetch window past this file
+        Integer index = orderIndex.get(fileId);
+        if (index != null) {
+            schedule(index + 1 + prefetchDepth);
+        }
+
+        CompletableFuture<PrefetchedFile> future = prefetched.remove(fileId);
+        if (future != null) {
+            boolean ready = future.isDone();
+            try {
+                PrefetchedFile data = future.get();
+                if (data != null) {
+                    (ready ? hits : lateHits).incrementAndGet();
+                    return data.open();
+                }
+            } catch (ExecutionException e) {
+                log.debug("Prefetch failed for {}, reading directly", fileId, e.getCause());
+            }
+        }
+
+        misses.incrementAndGet();
+        return delegate.readFile(file);
+    }
+
+    @Override
+    public Path getLocalPath(SourceFile file) {
+        return delegate.getLocalPath(file);
+    }
+
+    private void schedule(int upToExclusive) {
+        List<SourceFile> current = this.order;
+        int limit = Math.min(upToExclusive, current.size());
+        while (true) {
+            int i = nextToPrefetch.get();
+            if (i >= limit) {
+                return;
+            }
+            if (!nextToPrefetch.compareAndSet(i, i + 1)) {
+                continue;
+            }
+            SourceFile file = current.get(i);
+            if (consumed.contains(file.getFileId()) || prefetched.containsKey(file.getFileId())) {
+                continue;
+            }
+            CompletableFuture<PrefetchedFile> future = new CompletableFuture<>();
+            prefetched.put(file.getFileId(), future);
+            prefetchExecutor.execute(() -> {
+                if (future.isDone()) {
+                    return; // Discarded before it started
+                }
+                try {
+                    PrefetchedFile data = fetch(file);
+                    if (!future.complete(data)) {
+                        data.release();
+                    }
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+    }
+
+    private PrefetchedFile fetch(SourceFile file) throws Exception {
+        // The memory budget is charged with the bytes actually read, as sizes may be unknown (0)
+        long charged = 0;
+        try (InputStream in = delegate.readFile(file)) {
+            if (file.getFileSize() > memoryBudgetBytes - bufferedBytes.get()) {
+                return spill(null, in);
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream((int) Math.min(
+                    Math.max(file.getFileSize(), CHUNK_SIZE), Integer.MAX_VALUE - 8));
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = in.read(chunk)) >= 0) {
+                if (!reserve(read)) {
+                    // Memory budget exhausted: spill what was read and the rest to disk
+                    buffer.write(chunk, 0, read);
+                    bufferedBytes.addAndGet(-charged);
+                    charged = 0;
+                    return spill(buffer, in);
+                }
+                charged += read;
+                buffer.write(chunk, 0, read);
+            }
+            return new PrefetchedFile(buffer.toByteArray(), null, charged);
+        } catch (Exception e) {
+            bufferedBytes.addAndGet(-charged);
+            throw e;
+        }
+    }
+
+    /**
+     * Write the content read so far and the rest of the stream to a spill file
+     */
+    private PrefetchedFile spill(ByteArrayOutputStream head, InputStream rest) throws IOException {
+        Path spillFile = Files.createTempFile(getSpillDirectory(), "prefetch-", ".tmp");
+        try (OutputStream out = Files.newOutputStream(spillFile)) {
+            long size = 0;
+            if (head != null) {
+                head.writeTo(out);
+                size += head.size();
+            }
+            size += rest.transferTo(out);
+            spilledBytes.addAndGet(size);
+            return new PrefetchedFile(null, spillFile, size);
+        } catch (IOException e) {
+            Files.deleteIfExists(spillFile);
+            throw e;
+        }
+    }
+
+    private boolean reserve(long bytes) {
+        while (true) {
+            long current = bufferedBytes.get();
+            if (current + bytes > memoryBudgetBytes) {
+                return false;
+            }
+            if (bufferedBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized Path getSpillDirectory() throws IOException {
+        if (spillDirectory == null) {
+            spillDirectory = Files.createTempDirectory("ai-reviewer-prefetch-");
+            log.debug("Created prefetch spill directory: {}", spillDirectory);
+        }
+        return spillDirectory;
+    }
+
+    private void discard(CompletableFuture<PrefetchedFile> future) {
+        if (future == null) {
+            return;
+        }
+        // Not started or still running: the prefetch task releases the data itself
+        if (!future.complete(null)) {
+            PrefetchedFile data = future.getNow(null);
+            if (data != null) {
+                data.release();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        prefetchExecutor.shutdownNow();
+        prefetched.values().forEach(this::discard);
+        prefetched.clear();
+
+        synchronized (this) {
+            if (spillDirectory != null) {
+                try (var stream = Files.list(spillDirectory)) {
+                    stream.forEach(p -> {
+                        try {
+                            Files.deleteIfExists(p);
+                        } catch (IOException e) {
+                            log.warn("Failed to delete spill file: {}", p, e);
+                        }
+                    });
+                }
+                Files.deleteIfExists(spillDirectory);
+                spillDirectory = null;
+            }
+        }
+
+        log.info("Prefetching file source closed: {}", getPrefetchStats());
+        delegate.close();
+    }
+
+    @Override
+    public int getPriority() {
+        return delegate.getPriority();
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return delegate.isInitialized();
+    }
+
+    /**
+     * Get the wrapped file source
+     */
+    public IFileSource getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Get prefetch statistics
+     * hitRate counts reads served from prefetched data, including those that had to wait for it
+     */
+    public Map<String, Object> getPrefetchStats() {
+        long hitCount = hits.get();
+        long lateHitCount = lateHits.get();
+        long missCount = misses.get();
+        long total = hitCount + lateHitCount + missCount;
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("lateHits", lateHitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) (hitCount + lateHitCount) / total);
+        stats.put("bytesBuffered", bufferedBytes.get());
+        stats.put("bytesSpilled", spilledBytes.get());
+        stats.put("pending", prefetched.size());
+        return stats;
+    }
+
+    /**
+     * Prefetched file content, either in memory or spilled to disk
+     */
+    private final class PrefetchedFile {
+        private final byte[] data;
+        private final Path spillFile;
+        private final long size;
+
+        private PrefetchedFile(byte[] data, Path spillFile, long size) {
+            this.data = data;
+            this.spillFile = spillFile;
+            this.size = size;
+        }
+
+        /**
+         * Hand the content to a reader; the buffer no longer counts against the budget
+         */
+        InputStream open() throws IOException {
+            if (data != null) {
+                bufferedBytes.addAndGet(-size);
+                return new ByteArrayInputStream(data);
+            }
+            spilledBytes.addAndGet(-size);
+            return Files.newInputStream(spillFile, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+
+        void release() {
+            if (data != null) {
+                bufferedBytes.addAndGet(-size);
+                return;
+            }
+            spilledBytes.addAndGet(-size);
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                log.warn("Failed to delete spill file: {}", spillFile, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package top.yumbo.ai.core.ai;
+
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.api.model.AIResponse;
+import top.yumbo.ai.api.model.PreProcessedData;
+import top.yumbo.ai.common.exception.AIServiceException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Escalation criteria and tiers of {@link CascadeAIService}
+ */
+class CascadeAIServiceTest {
+
+    private final PreProcessedData data = PreProcessedData.builder().content("class A {}").build();
+    private final AIConfig fastConfig = AIConfig.builder().provider("fake").model("fast").build();
+    private final AIConfig config = AIConfig.builder().provider("fake").model("deep").build();
+    private final Predicate<AIResponse> criterion =
+            CascadeAIService.criterion(70.0, List.of("SQL injection"), CascadeAIService.DEFAULT_FLAG_FIELD);
+
+    @Test
+    void highScoreStaysOnTheFastTier() throws Exception {
+        FakeService fast = new FakeService("【Total Score】: 85/100");
+        FakeService deep = new FakeService("deep review");
+        CascadeAIService cascade = new CascadeAIService(fast, fastConfig, deep, criterion);
+
+        AIResponse response = cascade.invoke(data, config);
+
+        assertEquals(CascadeAIService.TIER_FAST, response.getMetadata().get(CascadeAIService.TIER_KEY));
+        assertSame(fastConfig, fast.lastConfig);
+        assertEquals(0, deep.calls.get());
+        assertEquals(0L, cascade.getCascadeStats().get("escalations"));
+    }
+
+    @Test
+    void lowScoreEscalates() throws Exception {
+        FakeService fast = new FakeService("总分：55");
+        FakeService deep = new FakeService("deep review");
+        CascadeAIService cascade = new CascadeAIService(fast, fastConfig, deep, criterion);
+
+        AIResponse response = cascade.invoke(data, config);
+
+        assertEquals("deep review", response.getContent());
+        assertEquals(CascadeAIService.TIER_DEEP, response.getMetadata().get(CascadeAIService.TIER_KEY));
+        assertEquals(120L, response.getMetadata().get(CascadeAIService.FAST_TOKENS_KEY));
+        assertSame(config, deep.lastConfig);
+        assertEquals(1L, cascade.getCascadeStats().get("escalations"));
+    }
+
+    @Test
+    void keywordEscalates() throws Exception {
+        FakeService fast = new FakeService("\"total_score\": 90. Possible sql Injection in the query builder.");
+        FakeService deep = new FakeService("deep review");
+        CascadeAIService cascade = new CascadeAIService(fast, fastConfig, deep, criterion);
+
+        AIResponse response = cascade.invoke(data, config);
+
+        assertEquals(CascadeAIService.TIER_DEEP, response.getMetadata().get(CascadeAIService.TIER_KEY));
+        assertEquals(1, deep.calls.get());
+    }
+
+    @Test
+    void flagEscalates() {
+        assertTrue(criterion.test(response("{\"total_score\": 92, \"needs_deep_review\": true}")));
+        assertFalse(criterion.test(response("{\"total_score\": 92, \"needs_deep_review\": false}")));
+        assertFalse(CascadeAIService.criterion(null, null, null).test(response("needs_deep_review: true")));
+    }
+
+    @Test
+    void customScorePattern() {
+        Predicate<AIResponse> custom = CascadeAIService.criterion(60.0, "Score (\\d+)", null, null);
+
+        assertTrue(custom.test(response("Score 40 of 100")));
+        assertFalse(custom.test(response("Score 75 of 100")));
+        // No score reported: nothing to escalate on
+        assertFalse(custom.test(response("Looks fine")));
+    }
+
+    @Test
+    void fastFailureEscalatesAsynchronously() throws Exception {
+        FakeService fast = new FakeService(null);
+        fast.failure = new AIServiceException("unavailable", 503, -1);
+        FakeService deep = new FakeService("deep review");
+        CascadeAIService cascade = new CascadeAIService(fast, fastConfig, deep, criterion);
+
+        AIResponse response = cascade.invokeAsync(data, config).get();
+
+        assertEquals("deep review", response.getContent());
+        assertEquals(CascadeAIService.TIER_DEEP, response.getMetadata().get(CascadeAIService.TIER_KEY));
+        assertFalse(response.getMetadata().containsKey(CascadeAIService.FAST_TOKENS_KEY));
+        assertEquals(1L, cascade.getCascadeStats().get("fastFailures"));
+        assertEquals(1.0, cascade.getCascadeStats().get("escalationRate"));
+    }
+
+    private static AIResponse response(String content) {
+        return AIResponse.builder().content(content).build();
+    }
+
+    /**
+     * Service answering with fixed content and token usage, or failing
+     */
+    private static final class FakeService implements IAIService {
+        private final String content;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile Exception failure;
+        private volatile AIConfig lastConfig;
+
+        private FakeService(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public AIResponse invoke(PreProcessedData data, AIConfig config) throws Exception {
+            calls.incrementAndGet();
+            lastConfig = config;
+            if (failure != null) {
+                throw failure;
+            }
+            return AIResponse.builder()
+                    .content(content)
+                    .tokenUsage(AIResponse.TokenUsage.builder().totalTokens(120).build())
+                    .build();
+        }
+
+        @Override
+        public boolean supportsAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "fake";
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package top.yumbo.ai.core.ai;
+
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.api.model.AIResponse;
+import top.yumbo.ai.api.model.PreProcessedData;
+import top.yumbo.ai.common.exception.AIServiceException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * State transitions of {@link CircuitBreakerAIService}
+ */
+class CircuitBreakerAIServiceTest {
+
+    private static final long OPEN_DURATION_MS = 50;
+
+    private final PreProcessedData data = PreProcessedData.builder().content("class A {}").build();
+    private final AIConfig config = AIConfig.builder().provider("fake").model("m").build();
+    private final FakeService service = new FakeService();
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreakerAIService breaker = new CircuitBreakerAIService(service, "test", 3, 20, 1.0, OPEN_DURATION_MS);
+        service.failure = new AIServiceException("unavailable", 503, -1);
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(AIServiceException.class, () -> breaker.invoke(data, config));
+            assertEquals(CircuitBreakerAIService.State.CLOSED, breaker.getState());
+        }
+        assertThrows(AIServiceException.class, () -> breaker.invoke(data, config));
+        assertEquals(CircuitBreakerAIService.State.OPEN, breaker.getState());
+
+        // Open: failing fast without calling the provider
+        assertThrows(AIServiceException.class, () -> breaker.invoke(data, config));
+        assertEquals(3, service.calls.get());
+        assertEquals(1L, breaker.getStats().get("rejectedCount"));
+    }
+
+    @Test
+    void opensWhenFailureRateIsReached() throws Exception {
+        CircuitBreakerAIService breaker = new CircuitBreakerAIService(service, "test", 10, 4, 0.5, OPEN_DURATION_MS);
+        for (int i = 0; i < 3; i++) {
+            service.failure = i % 2 == 0 ? new AIServiceException("unavailable", 503, -1) : null;
+            call(breaker);
+            assertEquals(CircuitBreakerAIService.State.CLOSED, breaker.getState());
+        }
+        service.failure = null;
+        breaker.invoke(data, config);
+
+        // Window of 4 full with 2 failures
+        assertEquals(CircuitBreakerAIService.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void successfulTrialClosesTheCircuit() throws Exception {
+        CircuitBreakerAIService breaker = openBreaker();
+        Thread.sleep(OPEN_DURATION_MS + 20);
+
+        service.failure = null;
+        breaker.invoke(data, config);
+
+        assertEquals(CircuitBreakerAIService.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getStats().get("consecutiveFailures"));
+    }
+
+    @Test
+    void failedTrialOpensTheCircuitAgain() throws Exception {
+        CircuitBreakerAIService breaker = openBreaker();
+        Thread.sleep(OPEN_DURATION_MS + 20);
+
+        assertThrows(AIServiceException.class, () -> breaker.invoke(data, config));
+
+        assertEquals(CircuitBreakerAIService.State.OPEN, breaker.getState());
+        assertEquals(2L, breaker.getStats().get("openedCount"));
+    }
+
+    @Test
+    void clientErrorsDoNotCount() {
+        CircuitBreakerAIService breaker = new CircuitBreakerAIService(service, "test", 2, 20, 0.5, OPEN_DURATION_MS);
+        service.failure = new AIServiceException("bad request", 400, -1);
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(AIServiceException.class, () -> breaker.invoke(data, config));
+        }
+
+        assertEquals(CircuitBreakerAIService.State.CLOSED, breaker.getState());
+        assertEquals(5, service.calls.get());
+    }
+
+    @Test
+    void throttlingCounts() {
+        CircuitBreakerAIService breaker = new CircuitBreakerAIService(service, "test", 2, 20, 1.0, OPEN_DURATION_MS);
+        service.failure = new AIServiceException("too many requests", 429, 1000);
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(AIServiceException.class, () -> breaker.invoke(data, config));
+        }
+
+        assertEquals(CircuitBreakerAIService.State.OPEN, breaker.getState());
+    }
+
+    private CircuitBreakerAIService openBreaker() {
+        CircuitBreakerAIService breaker = new CircuitBreakerAIService(service, "test", 1, 20, 1.0, OPEN_DURATION_MS);
+        service.failure = new AIServiceException("unavailable", 503, -1);
+        assertThrows(AIServiceException.class, () -> breaker.invoke(data, config));
+        assertEquals(CircuitBreakerAIService.State.OPEN, breaker.getState());
+        return breaker;
+    }
+
+    private void call(CircuitBreakerAIService breaker) {
+        try {
+            breaker.invoke(data, config);
+        } catch (Exception e) {
+            // Outcome recorded by the breaker
+        }
+    }
+
+    /**
+     * Service answering or failing on demand
+     */
+    private static final class FakeService implements IAIService {
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile Exception failure;
+
+        @Override
+        public AIResponse invoke(PreProcessedData data, AIConfig config) throws Exception {
+            calls.incrementAndGet();
+            if (failure != null) {
+                throw failure;
+            }
+            return AIResponse.builder().content("ok").build();
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getProviderName() {
+            return "fake";
+        }
+    }
+}
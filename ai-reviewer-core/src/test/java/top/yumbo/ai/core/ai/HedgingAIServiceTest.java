@@ -0,0 +1,200 @@
+package top.yumbo.ai.core.ai;
+
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.api.model.AIResponse;
+import top.yumbo.ai.api.model.PreProcessedData;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hedge trigger, cancellation and configuration of {@link HedgingAIService}
+ */
+class HedgingAIServiceTest {
+
+    private static final long HEDGE_DELAY_MS = 30;
+
+    private final PreProcessedData data = PreProcessedData.builder().content("class A {}").build();
+    private final AIConfig config = AIConfig.builder().provider("fake").model("m").sysPrompt("review")
+            .customParams(Map.of("promptCaching", true)).build();
+
+    @Test
+    void noHedgeBeforeEnoughSamples() throws Exception {
+        FakeService primary = new FakeService("primary");
+        FakeService hedge = new FakeService("hedge");
+        primary.pending = new CompletableFuture<>();
+        try (HedgingAIService hedging = new HedgingAIService(primary, hedge, null, 1.0, 5, HEDGE_DELAY_MS)) {
+            CompletableFuture<AIResponse> call = hedging.invokeAsync(data, config);
+            Thread.sleep(HEDGE_DELAY_MS * 3);
+
+            assertFalse(call.isDone());
+            assertEquals(0, hedge.calls.get());
+            call.cancel(true);
+        }
+    }
+
+    @Test
+    void slowAsyncCallIsHedgedAndTheLoserCancelled() throws Exception {
+        FakeService primary = new FakeService("primary");
+        FakeService hedge = new FakeService("hedge");
+        try (HedgingAIService hedging = new HedgingAIService(primary, hedge, null, 1.0, 1, HEDGE_DELAY_MS)) {
+            hedging.invoke(data, config);
+            CompletableFuture<AIResponse> slow = new CompletableFuture<>();
+            primary.pending = slow;
+
+            AIResponse response = hedging.invoke(data, config);
+
+            assertEquals("hedge", response.getContent());
+            assertEquals(true, response.getMetadata().get(HedgingAIService.HEDGED_KEY));
+            assertTrue(slow.isCancelled());
+            assertEquals(1L, hedging.getHedgeStats().get("hedges"));
+        }
+    }
+
+    @Test
+    void fastCallIsNotHedged() throws Exception {
+        FakeService primary = new FakeService("primary");
+        FakeService hedge = new FakeService("hedge");
+        try (HedgingAIService hedging = new HedgingAIService(primary, hedge, null, 1.0, 1, HEDGE_DELAY_MS)) {
+            for (int i = 0; i < 5; i++) {
+                assertEquals("primary", hedging.invoke(data, config).getContent());
+            }
+            Thread.sleep(HEDGE_DELAY_MS * 2);
+
+            assertEquals(0, hedge.calls.get());
+            assertEquals(0L, hedging.getHedgeStats().get("hedges"));
+        }
+    }
+
+    @Test
+    void hedgesAreCappedByRatio() throws Exception {
+        FakeService primary = new FakeService("primary");
+        FakeService hedge = new FakeService("hedge");
+        try (HedgingAIService hedging = new HedgingAIService(primary, hedge, null, 0.0, 1, HEDGE_DELAY_MS)) {
+            hedging.invoke(data, config);
+            CompletableFuture<AIResponse> slow = new CompletableFuture<>();
+            primary.pending = slow;
+
+            CompletableFuture<AIResponse> call = hedging.invokeAsync(data, config);
+            Thread.sleep(HEDGE_DELAY_MS * 3);
+
+            assertFalse(call.isDone());
+            assertEquals(0, hedge.calls.get());
+            call.cancel(true);
+            assertTrue(slow.isCancelled());
+        }
+    }
+
+    @Test
+    void blockingPrimaryRunsOnTheCallerAndIsInterruptedWhenTheHedgeWins() throws Exception {
+        FakeService primary = new FakeService("primary");
+        primary.async = false;
+        FakeService hedge = new FakeService("hedge");
+        try (HedgingAIService hedging = new HedgingAIService(primary, hedge, null, 1.0, 1, HEDGE_DELAY_MS)) {
+            hedging.invoke(data, config);
+            assertEquals(Thread.currentThread(), primary.lastThread);
+            primary.block = new CountDownLatch(1);
+
+            long start = System.nanoTime();
+            AIResponse response = hedging.invoke(data, config);
+
+            assertEquals("hedge", response.getContent());
+            assertTrue(primary.interrupted);
+            assertFalse(Thread.currentThread().isInterrupted());
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        }
+    }
+
+    @Test
+    void hedgeConfigIsMergedOverTheCallersConfig() throws Exception {
+        FakeService primary = new FakeService("primary");
+        FakeService hedge = new FakeService("hedge");
+        AIConfig hedgeConfig = AIConfig.builder().provider("secondary").model("m2")
+                .customParams(Map.of("requestsPerMinute", 60)).build();
+        try (HedgingAIService hedging = new HedgingAIService(primary, hedge, hedgeConfig, 1.0, 1, HEDGE_DELAY_MS)) {
+            hedging.invoke(data, config);
+            primary.pending = new CompletableFuture<>();
+
+            hedging.invoke(data, config);
+
+            AIConfig sent = hedge.lastConfig;
+            assertEquals("secondary", sent.getProvider());
+            assertEquals("m2", sent.getModel());
+            assertEquals("review", sent.getSysPrompt());
+            assertEquals(60, sent.getCustomParams().get("requestsPerMinute"));
+            assertEquals(true, sent.getCustomParams().get("promptCaching"));
+            assertNull(config.getCustomParams().get("requestsPerMinute"));
+        }
+    }
+
+    /**
+     * Service answering with its name, optionally through a pending future or a blocking wait
+     */
+    private static final class FakeService implements IAIService {
+        private final String name;
+        private final AtomicInteger calls = new AtomicInteger();
+        private volatile boolean async = true;
+        private volatile CompletableFuture<AIResponse> pending;
+        private volatile CountDownLatch block;
+        private volatile boolean interrupted;
+        private volatile Thread lastThread;
+        private volatile AIConfig lastConfig;
+
+        private FakeService(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public AIResponse invoke(PreProcessedData data, AIConfig config) throws Exception {
+            calls.incrementAndGet();
+            lastThread = Thread.currentThread();
+            lastConfig = config;
+            CountDownLatch latch = block;
+            if (latch != null) {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    throw e;
+                }
+            }
+            return AIResponse.builder().content(name).build();
+        }
+
+        @Override
+        public CompletableFuture<AIResponse> invokeAsync(PreProcessedData data, AIConfig config) {
+            CompletableFuture<AIResponse> future = pending;
+            if (future == null) {
+                return IAIService.super.invokeAsync(data, config);
+            }
+            calls.incrementAndGet();
+            lastConfig = config;
+            return future;
+        }
+
+        @Override
+        public boolean supportsAsync() {
+            return async;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getProviderName() {
+            return name;
+        }
+    }
+}
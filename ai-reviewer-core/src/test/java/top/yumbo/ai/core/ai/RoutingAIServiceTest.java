@@ -0,0 +1,176 @@
+package top.yumbo.ai.core.ai;
+
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.api.ai.IAIService;
+import top.yumbo.ai.api.model.AIConfig;
+import top.yumbo.ai.api.model.AIResponse;
+import top.yumbo.ai.api.model.PreProcessedData;
+import top.yumbo.ai.common.exception.AIServiceException;
+import top.yumbo.ai.core.limit.TokenBucketRateLimiter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Failover and per-route configuration of {@link RoutingAIService}
+ */
+class RoutingAIServiceTest {
+
+    private final PreProcessedData data = PreProcessedData.builder().content("class A {}").build();
+    private final AIConfig config = AIConfig.builder().provider("router").model("m")
+            .customParams(Map.of("requestsPerMinute", 600, "promptCaching", true)).build();
+    private final List<String> called = new CopyOnWriteArrayList<>();
+
+    @Test
+    void failsOverInRouteOrder() throws Exception {
+        FakeService a = new FakeService("a", new AIServiceException("unavailable", 503, -1));
+        FakeService b = new FakeService("b", new AIServiceException("too many requests", 429, 1000));
+        FakeService c = new FakeService("c", null);
+        RoutingAIService router = router(a, b, c);
+
+        AIResponse response = router.invoke(data, config);
+
+        assertEquals(List.of("a", "b", "c"), called);
+        assertEquals("c#2", response.getMetadata().get(RoutingAIService.ROUTE_KEY));
+    }
+
+    @Test
+    void failsOverAsynchronously() throws Exception {
+        RoutingAIService router = router(new FakeService("a", new AIServiceException("unavailable", 503, -1)),
+                new FakeService("b", null));
+
+        AIResponse response = router.invokeAsync(data, config).get();
+
+        assertEquals(List.of("a", "b"), called);
+        assertEquals("b#1", response.getMetadata().get(RoutingAIService.ROUTE_KEY));
+    }
+
+    @Test
+    void badRequestDoesNotFailOver() {
+        RoutingAIService router = router(new FakeService("a", new AIServiceException("bad request", 400, -1)),
+                new FakeService("b", null));
+
+        assertThrows(AIServiceException.class, () -> router.invoke(data, config));
+
+        assertEquals(List.of("a"), called);
+    }
+
+    @Test
+    void failsWhenEveryRouteFailed() {
+        RoutingAIService router = router(new FakeService("a", new AIServiceException("unavailable", 503, -1)),
+                new FakeService("b", new AIServiceException("unavailable", 503, -1)));
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> router.invokeAsync(data, config).get());
+
+        assertEquals(AIServiceException.class, error.getCause().getClass());
+        assertEquals(List.of("a", "b"), called);
+    }
+
+    @Test
+    void synchronousThrowIsAFailedAttempt() throws Exception {
+        FakeService a = new FakeService("a", null);
+        a.throwOnDispatch = true;
+        RoutingAIService router = router(a, new FakeService("b", null));
+
+        AIResponse response = router.invokeAsync(data, config).get();
+
+        assertEquals("b#1", response.getMetadata().get(RoutingAIService.ROUTE_KEY));
+        Map<?, ?> stats = (Map<?, ?>) router.getRoutingStats().get("a#0");
+        assertEquals(0, stats.get("outstanding"));
+        assertEquals(1L, stats.get("failures"));
+    }
+
+    @Test
+    void routesGetTheirOwnProviderAndCustomParams() throws Exception {
+        FakeService a = new FakeService("a", null);
+        FakeService b = new FakeService("b", null);
+        RoutingAIService router = new RoutingAIService("router", RoutingAIService.Strategy.LEAST_OUTSTANDING, List.of(
+                new RoutingAIService.Route("a", a, AIConfig.builder().provider("provider-a")
+                        .customParams(Map.of("requestsPerMinute", 60)).build(), 1),
+                new RoutingAIService.Route("b", b, AIConfig.builder().provider("provider-b")
+                        .customParams(Map.of("requestsPerMinute", 120, "maxConcurrency", 8)).build(), 1)));
+
+        AIConfig configA = router.getRoutes().get(0).configFor(config);
+        AIConfig configB = router.getRoutes().get(1).configFor(config);
+
+        assertEquals("provider-a", configA.getProvider());
+        assertEquals("m", configA.getModel());
+        assertEquals(60, configA.getCustomParams().get("requestsPerMinute"));
+        assertEquals(true, configA.getCustomParams().get("promptCaching"));
+        assertEquals(8, configB.getCustomParams().get("maxConcurrency"));
+        TokenBucketRateLimiter limiterA = TokenBucketRateLimiter.forConfig(configA);
+        TokenBucketRateLimiter limiterB = TokenBucketRateLimiter.forConfig(configB);
+        assertNotSame(limiterA, limiterB);
+        assertEquals(60L, limiterA.getStats().get("requestsPerMinute"));
+        assertEquals(120L, limiterB.getStats().get("requestsPerMinute"));
+
+        // The route's service is called with the route's configuration
+        router.invoke(data, config);
+        assertEquals("provider-a", a.lastConfig.getProvider());
+    }
+
+    private RoutingAIService router(FakeService... services) {
+        List<RoutingAIService.Route> routes = new ArrayList<>();
+        for (int i = 0; i < services.length; i++) {
+            routes.add(new RoutingAIService.Route(services[i].name + "#" + i, services[i], null, 1));
+        }
+        return new RoutingAIService("router", RoutingAIService.Strategy.LEAST_OUTSTANDING, routes);
+    }
+
+    /**
+     * Service recording its calls in order and answering or failing as configured
+     */
+    private final class FakeService implements IAIService {
+        private final String name;
+        private final Exception failure;
+        private volatile boolean throwOnDispatch;
+        private volatile AIConfig lastConfig;
+
+        private FakeService(String name, Exception failure) {
+            this.name = name;
+            this.failure = failure;
+        }
+
+        @Override
+        public AIResponse invoke(PreProcessedData data, AIConfig config) throws Exception {
+            called.add(name);
+            lastConfig = config;
+            if (failure != null) {
+                throw failure;
+            }
+            return AIResponse.builder().content(name).build();
+        }
+
+        @Override
+        public CompletableFuture<AIResponse> invokeAsync(PreProcessedData data, AIConfig config) {
+            if (throwOnDispatch) {
+                throw new IllegalStateException("dispatch failed");
+            }
+            return IAIService.super.invokeAsync(data, config);
+        }
+
+        @Override
+        public boolean supportsAsync() {
+            return true;
+        }
+
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public String getProviderName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package top.yumbo.ai.core.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Additive increase and multiplicative decrease of {@link AdaptiveConcurrencyLimiter}
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void growsWhileTheLimitIsUsed() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 10, 0.5, 0);
+
+        runRounds(limiter, 5);
+
+        assertTrue(limiter.getLimit() > 2, "limit " + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void doesNotGrowBeyondTheMaximum() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 10, 0.5, 0);
+
+        runRounds(limiter, 200);
+
+        assertEquals(10, limiter.getLimit());
+        assertEquals(10, limiter.getStats().get("peakLimit"));
+    }
+
+    @Test
+    void doesNotGrowWhenMostlyIdle() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 1, 10, 0.5, 0);
+
+        // One call at a time never uses half of the limit
+        for (int i = 0; i < 100; i++) {
+            limiter.onSuccess(limiter.acquire());
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void backsOffOnDrop() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 1, 10, 0.5, 0);
+
+        limiter.onDropped(limiter.acquire());
+
+        assertEquals(4, limiter.getLimit());
+        assertEquals(1L, limiter.getStats().get("dropCount"));
+    }
+
+    @Test
+    void burstOfDropsFromEarlierCallsCountsOnce() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 1, 10, 0.5, 0);
+        long first = limiter.acquire();
+        long second = limiter.acquire();
+        long third = limiter.acquire();
+
+        limiter.onDropped(first);
+        limiter.onDropped(second);
+        limiter.onDropped(third);
+        assertEquals(4, limiter.getLimit());
+
+        // A call started after the cut can cut again
+        limiter.onDropped(limiter.acquire());
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void doesNotShrinkBelowTheMinimum() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 2, 10, 0.5, 0);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.onDropped(limiter.acquire());
+        }
+
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    void ignoredFailuresKeepTheLimit() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 1, 10, 0.5, 0);
+
+        limiter.acquire();
+        limiter.onIgnore();
+
+        assertEquals(8, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void slowCallsBackOffWithLatencyTolerance() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 1, 10, 0.5, 2.0);
+        limiter.onSuccess(limiter.acquire());
+
+        long slow = limiter.acquire();
+        Thread.sleep(20);
+        limiter.onSuccess(slow);
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void callsOverTheLimitWait() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 1, 0.5, 0);
+        long permit = limiter.acquire();
+        CountDownLatch acquired = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try {
+                limiter.acquire();
+                acquired.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+
+        assertEquals(false, acquired.await(50, TimeUnit.MILLISECONDS));
+        limiter.onSuccess(permit);
+        assertTrue(acquired.await(1, TimeUnit.SECONDS));
+        waiter.join();
+
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1L, limiter.getStats().get("waitCount"));
+        assertTrue((Long) limiter.getStats().get("totalWaitMs") >= 40);
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter("test", 5, 1, 4, 0.5, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveConcurrencyLimiter("test", 2, 1, 4, 1.0, 0));
+    }
+
+    /**
+     * Fill the limit, then complete every call successfully
+     */
+    private static void runRounds(AdaptiveConcurrencyLimiter limiter, int rounds) throws InterruptedException {
+        for (int round = 0; round < rounds; round++) {
+            int limit = limiter.getLimit();
+            long[] permits = new long[limit];
+            for (int i = 0; i < limit; i++) {
+                permits[i] = limiter.acquire();
+            }
+            for (long permit : permits) {
+                limiter.onSuccess(permit);
+            }
+        }
+    }
+}
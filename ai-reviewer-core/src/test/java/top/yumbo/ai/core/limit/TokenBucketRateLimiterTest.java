@@ -0,0 +1,129 @@
+package top.yumbo.ai.core.limit;
+
+import org.junit.jupiter.api.Test;
+import top.yumbo.ai.api.model.AIConfig;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reservation, refill and reconciliation of {@link TokenBucketRateLimiter}
+ */
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void burstWithinQuotaIsNotDelayed() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test", 60, 0);
+        for (int i = 0; i < 60; i++) {
+            assertEquals(0L, limiter.reserve(0));
+        }
+
+        // One request refills every second: the next caller waits for it, the one after for two
+        long delay = limiter.reserve(0);
+        assertTrue(delay > TimeUnit.MILLISECONDS.toNanos(900) && delay <= TimeUnit.SECONDS.toNanos(1),
+                "delay " + delay);
+        assertTrue(limiter.reserve(0) > TimeUnit.MILLISECONDS.toNanos(1900));
+        assertEquals(2L, limiter.getStats().get("delayedReservations"));
+    }
+
+    @Test
+    void tokenDeficitDelaysInProportion() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test", 0, 60_000);
+        assertEquals(0L, limiter.reserve(60_000));
+
+        // 1000 tokens refill per second
+        long delay = limiter.reserve(500);
+        assertTrue(delay > TimeUnit.MILLISECONDS.toNanos(400) && delay <= TimeUnit.MILLISECONDS.toNanos(500),
+                "delay " + delay);
+    }
+
+    @Test
+    void bucketsRefillOverTime() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test", 6000, 0);
+        for (int i = 0; i < 6000; i++) {
+            limiter.reserve(0);
+        }
+        assertEquals(-1L, limiter.tryAcquire(0));
+
+        // 100 requests refill per second
+        Thread.sleep(100);
+        assertEquals(0L, limiter.tryAcquire(0));
+        assertEquals(1L, limiter.getStats().get("declinedReservations"));
+    }
+
+    @Test
+    void bucketsHoldAtMostOneMinuteOfQuota() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test", 6000, 6000);
+        Thread.sleep(50);
+
+        assertEquals(6000L, limiter.getStats().get("availableRequests"));
+        assertEquals(6000L, limiter.getStats().get("availableTokens"));
+    }
+
+    @Test
+    void reconcileReturnsOverReservedTokens() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test", 0, 1000);
+        long reserved = limiter.tryAcquire(1000);
+        assertEquals(1000L, reserved);
+        assertEquals(-1L, limiter.tryAcquire(500));
+
+        limiter.reconcile(reserved, 200);
+
+        assertEquals(500L, limiter.tryAcquire(500));
+        assertEquals(800L, limiter.getStats().get("reconciledTokens"));
+    }
+
+    @Test
+    void reconcileTakesTheShortfall() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test", 0, 1000);
+        long reserved = limiter.tryAcquire(100);
+
+        limiter.reconcile(reserved, 700);
+
+        assertEquals(-1L, limiter.tryAcquire(500));
+        assertEquals(-600L, limiter.getStats().get("reconciledTokens"));
+    }
+
+    @Test
+    void estimatesAreCappedAtTheTokenQuota() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test", 0, 1000);
+
+        // A call larger than the quota could never be granted otherwise
+        assertEquals(1000L, limiter.acquire(5000));
+    }
+
+    @Test
+    void acquireAsyncCompletesOnceTheQuotaAllows() throws Exception {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test", 600, 0);
+        for (int i = 0; i < 600; i++) {
+            limiter.reserve(0);
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Long> delayed = limiter.acquireAsync(10);
+        assertFalse(delayed.isDone());
+        assertEquals(10L, delayed.get(1, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+    }
+
+    @Test
+    void sharedLimiterPerProviderAndModel() {
+        AIConfig config = AIConfig.builder().provider("limiter-test").model("m")
+                .customParams(Map.of("requestsPerMinute", 60, "tokensPerMinute", "1000")).build();
+
+        TokenBucketRateLimiter limiter = TokenBucketRateLimiter.forConfig(config);
+
+        assertSame(limiter, TokenBucketRateLimiter.forConfig(config));
+        assertEquals(1000L, limiter.getStats().get("tokensPerMinute"));
+        assertNotSame(limiter, TokenBucketRateLimiter.forModel("limiter-test", "m", 120, 1000));
+        assertNull(TokenBucketRateLimiter.forConfig(AIConfig.builder().provider("limiter-test").model("m").build()));
+    }
+}
@@ -0,0 +1,56 @@
+package top.yumbo.ai.core.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Reservation and reconciliation of {@link TokenBudget}
+ */
+class TokenBudgetTest {
+
+    @Test
+    void reservationsInFlightCannotOvershoot() throws Exception {
+        TokenBudget budget = new TokenBudget(1000);
+        assertEquals(600L, budget.reserve(600));
+
+        CompletableFuture<Long> second = CompletableFuture.supplyAsync(() -> reserve(budget, 600));
+        Thread.sleep(50);
+        assertFalse(second.isDone());
+
+        // The first call used less than it reserved, which makes room for the second
+        budget.reconcile(600, 300);
+        assertEquals(600L, second.get(1, TimeUnit.SECONDS));
+        assertEquals(300L, budget.getUsedTokens());
+        assertEquals(1L, budget.getStats().get("waits"));
+    }
+
+    @Test
+    void lastCallGetsWhatIsLeftWhenNothingIsInFlight() throws Exception {
+        TokenBudget budget = new TokenBudget(1000);
+        budget.reconcile(budget.reserve(500), 800);
+
+        assertEquals(200L, budget.reserve(500));
+    }
+
+    @Test
+    void refusesOnceUsedUp() throws Exception {
+        TokenBudget budget = new TokenBudget(1000);
+        budget.reconcile(budget.reserve(1000), 1200);
+
+        assertEquals(-1L, budget.reserve(10));
+        assertEquals(1L, budget.getStats().get("refusals"));
+    }
+
+    private static long reserve(TokenBudget budget, long tokens) {
+        try {
+            return budget.reserve(tokens);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package top.yumbo.ai.starter.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -12,6 +13,7 @@ import top.yumbo.ai.adaptor.parser.JavaScriptFileParser;
 import top.yumbo.ai.adaptor.parser.PlainTextFileParser;
 import top.yumbo.ai.adaptor.parser.PythonFileParser;
 import top.yumbo.ai.adaptor.processor.CodeReviewProcessor;
+import top.yumbo.ai.api.ai.IAIService;
 import top.yumbo.ai.api.model.AIConfig;
 import top.yumbo.ai.core.AIEngine;
 import top.yumbo.ai.core.registry.AdapterRegistry;
@@ -44,6 +46,15 @@ public class AIReviewerAutoConfiguration {
         return registry;
     }
 
+    /**
+     * Warm the connections of the registered AI services (ai.custom-params.warmConnections) once every
+     * configuration has registered its adapters, before the application starts serving reviews
+     */
+    @Bean
+    public SmartInitializingSingleton aiConnectionWarmer(AdapterRegistry registry) {
+        return () -> registry.getAllAIServices().forEach(IAIService::warmUp);
+    }
+
     @Bean
     public AIEngine aiEngine(AdapterRegistry registry) {
         log.info("Initializing AIEngine");
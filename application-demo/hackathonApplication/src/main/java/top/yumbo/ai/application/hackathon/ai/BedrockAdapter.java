@@ -1,24 +1,63 @@
 package top.yumbo.ai.application.hackathon.ai;
 
 
-import com.alibaba.fastjson2.JSONArray;
-import com.alibaba.fastjson2.JSONObject;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
 import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeAsyncClient;
 import software.amazon.awssdk.services.bedrockruntime.BedrockRuntimeClient;
 import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelRequest;
 import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelResponse;
+import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelWithResponseStreamRequest;
+import software.amazon.awssdk.services.bedrockruntime.model.InvokeModelWithResponseStreamResponseHandler;
+import top.yumbo.ai.adaptor.ai.ConnectionWarmer;
+import top.yumbo.ai.adaptor.ai.HttpClientPool;
+import top.yumbo.ai.adaptor.ai.RetryPolicy;
+import top.yumbo.ai.adaptor.ai.codec.AICodec;
+import top.yumbo.ai.adaptor.ai.codec.AICodecs;
+import top.yumbo.ai.adaptor.ai.codec.CodecRequest;
+import top.yumbo.ai.adaptor.ai.codec.DecodedResponse;
+import top.yumbo.ai.adaptor.ai.codec.PromptTemplate;
+import top.yumbo.ai.adaptor.ai.codec.PromptText;
+import top.yumbo.ai.adaptor.ai.codec.StreamAccumulator;
+import top.yumbo.ai.api.ai.AIStreamListener;
 import top.yumbo.ai.api.ai.IAIService;
 import top.yumbo.ai.api.model.AIConfig;
 import top.yumbo.ai.api.model.AIResponse;
 import top.yumbo.ai.api.model.PreProcessedData;
+import top.yumbo.ai.common.exception.AIServiceException;
+import top.yumbo.ai.core.limit.TokenBucketRateLimiter;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * AWS Bedrock AI服务适配器
@@ -31,11 +70,40 @@ import java.time.LocalDateTime;
 @Slf4j
 public class BedrockAdapter implements IAIService {
 
+    /**
+     * 每个模型默认的最大并发请求数，可通过 customParams.maxConcurrency 覆盖
+     */
+    public static final int DEFAULT_MAX_CONCURRENCY = 64;
+    /**
+     * 异步客户端空闲连接的默认保留时间（秒，与 SDK 默认值一致），可通过 customParams.keepAliveSeconds 覆盖
+     */
+    public static final long DEFAULT_KEEP_ALIVE_SECONDS = 60;
+    /**
+     * 健康检查的超时时间（秒）
+     */
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 5;
+
     private final BedrockRuntimeClient bedrockClient;
+    private final BedrockRuntimeAsyncClient bedrockAsyncClient;
+    private final int maxConcurrency;
+    /**
+     * 空闲连接保留时间（秒）
+     */
+    private final long keepAliveSeconds;
+    /**
+     * 按模型划分的并发窗口
+     */
+    private final Map<String, ModelWindow> modelWindows = new ConcurrentHashMap<>();
     private AIConfig config;
     private String modelId;
-    private Integer maxTokens;
-    private double temperature;
+    /**
+     * 构造时按模型系列解析的编解码器，负责构建请求体和解析响应
+     */
+    private final AICodec codec;
+    /**
+     * 构造时编译的用户提示词模板
+     */
+    private final PromptTemplate promptTemplate;
 
     /**
      * 构造函数
@@ -44,10 +112,11 @@ public class BedrockAdapter implements IAIService {
      */
     public BedrockAdapter(AIConfig config) {
         this.config = config;
-        this.maxTokens = config.getMaxTokens();
-        this.temperature = config.getTemperature();
 
         this.modelId = extractModelId(config.getModel());
+        this.codec = AICodecs.forModel(config.getModel());
+        this.promptTemplate = compilePrompt(config.getUserPrompt());
+        log.info("Bedrock 模型 {} 使用编解码器: {}", modelId, codec.getName());
 
         // 配置 HTTP 客户端，设置 socket 超时
         ApacheHttpClient.Builder httpClientBuilder =
@@ -62,15 +131,66 @@ public class BedrockAdapter implements IAIService {
                 .httpClient(httpClientBuilder.build());
 
         // 配置超时时间（解决 Read timeout 问题）
-        clientBuilder.overrideConfiguration(builder -> builder
-                .apiCallTimeout(java.time.Duration.ofSeconds(config.getTimeoutSeconds()))
-                .apiCallAttemptTimeout(java.time.Duration.ofSeconds(config.getTimeoutSeconds()))
+        TokenBucketRateLimiter rateLimiter = TokenBucketRateLimiter.forConfig(config);
+        clientBuilder.overrideConfiguration(builder -> configureCalls(builder, config, rateLimiter));
+
+        // 指定 endpoint 时（例如本地 HTTP 模拟服务）覆盖默认地址
+        if (StringUtils.isNotBlank(config.getEndpoint())) {
+            clientBuilder.endpointOverride(URI.create(config.getEndpoint()));
+        }
+
+        this.bedrockClient = clientBuilder.build();
+
+        // 异步客户端：基于 Netty NIO，请求在途期间不占用线程
+        this.maxConcurrency = resolveMaxConcurrency(config);
+        this.keepAliveSeconds = resolveKeepAliveSeconds(config);
+        NettyNioAsyncHttpClient.Builder asyncHttpClientBuilder = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConcurrency)
+                .connectionTimeout(Duration.ofSeconds(30))
+                .readTimeout(Duration.ofSeconds(config.getTimeoutSeconds()))
+                .connectionMaxIdleTime(Duration.ofSeconds(keepAliveSeconds))
+                .tcpKeepAlive(true);
+
+        var asyncClientBuilder = BedrockRuntimeAsyncClient.builder()
+                .region(Region.of(config.getRegion()))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .httpClientBuilder(asyncHttpClientBuilder)
+                .overrideConfiguration(builder -> configureCalls(builder, config, rateLimiter));
+        if (StringUtils.isNotBlank(config.getEndpoint())) {
+            asyncClientBuilder.endpointOverride(URI.create(config.getEndpoint()));
+        }
+        this.bedrockAsyncClient = asyncClientBuilder.build();
+    }
+
+    /**
+     * 超时与重试配置；配置了速率限制时，SDK 的每次重试都计入共享的请求配额
+     */
+    private static void configureCalls(ClientOverrideConfiguration.Builder builder, AIConfig config,
+                                       TokenBucketRateLimiter rateLimiter) {
+        builder.apiCallTimeout(Duration.ofSeconds(config.getTimeoutSeconds()))
+                .apiCallAttemptTimeout(Duration.ofSeconds(config.getTimeoutSeconds()))
                 .retryPolicy(retry -> retry
                         .numRetries(config.getMaxRetries())
-                )
-        );
+                );
+        if (rateLimiter != null) {
+            builder.addExecutionInterceptor(new RetryChargingInterceptor(rateLimiter));
+        }
+    }
 
-        this.bedrockClient = clientBuilder.build();
+    private static int resolveMaxConcurrency(AIConfig config) {
+        Object value = config.getCustomParams() != null ? config.getCustomParams().get("maxConcurrency") : null;
+        if (value == null) {
+            return DEFAULT_MAX_CONCURRENCY;
+        }
+        int parsed = value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString());
+        return parsed > 0 ? parsed : DEFAULT_MAX_CONCURRENCY;
+    }
+
+    private static long resolveKeepAliveSeconds(AIConfig config) {
+        Object value = config.getCustomParams() != null
+                ? config.getCustomParams().get(HttpClientPool.KEEP_ALIVE_SECONDS_PARAM)
+                : null;
+        return value != null ? Long.parseLong(value.toString()) : DEFAULT_KEEP_ALIVE_SECONDS;
     }
 
     /**
@@ -91,146 +211,34 @@ public class BedrockAdapter implements IAIService {
 
     /**
      * 构建请求体（根据模型类型）
-     * 支持 AWS Bedrock 平台上的所有主流模型
+     * 由模型系列对应的编解码器直接写出 UTF-8 JSON，提示词与文件内容在写出时拼接，不生成中间字符串
+     * 默认开启提示词缓存（customParams.promptCaching=false 可关闭）：Claude 模型的系统提示词和用户提示词中
+     * 文件内容之前的固定部分会标记为可缓存，文件内容放在最后
      */
-    private String buildRequestBody(String prompt) {
-        JSONObject requestBody = new JSONObject();
-
-        // 提取实际的模型名称（处理 ARN 格式）
-        String actualModelId = extractModelId(config.getModel());
-
-        // Anthropic Claude 模型系列
-        if (actualModelId.contains("anthropic.claude") || actualModelId.contains("claude-")) {
-
-            // 检测是否为 Claude 3+ 模型（需要使用 Messages API）
-            // 包括 Claude 3, Claude 4 及以上版本
-            boolean isClaude3Plus = actualModelId.contains("claude-3") ||
-                    actualModelId.contains("claude-4") ||
-                    actualModelId.contains("claude-sonnet") ||
-                    actualModelId.contains("claude-haiku") ||
-                    actualModelId.contains("claude-opus");
-
-            if (isClaude3Plus) {
-                // Claude 3+ Messages API 格式
-                JSONObject message = new JSONObject();
-                message.put("role", "user");
-                message.put("content", prompt);
-
-                requestBody.put("anthropic_version", "bedrock-2023-05-31");
-                requestBody.put("max_tokens", maxTokens);
-                requestBody.put("messages", new Object[]{message});
-                requestBody.put("temperature", temperature);
-
-            } else {
-                // Claude 2 及以下版本（旧的文本补全格式）
-                requestBody.put("prompt", "\n\nHuman: " + prompt + "\n\nAssistant:");
-                requestBody.put("max_tokens_to_sample", maxTokens);
-                requestBody.put("temperature", temperature);
-                requestBody.put("top_p", 0.9);
-                requestBody.put("stop_sequences", new String[]{"\n\nHuman:"});
-            }
-
-            // Amazon Titan 模型系列
-        } else if (actualModelId.contains("amazon.titan")) {
-            JSONObject textGenerationConfig = new JSONObject();
-            textGenerationConfig.put("maxTokenCount", maxTokens);
-            textGenerationConfig.put("temperature", temperature);
-            textGenerationConfig.put("topP", 0.9);
-
-            requestBody.put("inputText", prompt);
-            requestBody.put("textGenerationConfig", textGenerationConfig);
-
-            // Amazon Nova 模型系列（新增）
-        } else if (actualModelId.contains("amazon.nova")) {
-            // Nova 使用 Messages API 格式（类似 Claude 3+）
-            JSONObject message = new JSONObject();
-            message.put("role", "user");
-
-            // Nova 支持多模态，这里简化为文本
-            JSONObject contentItem = new JSONObject();
-            contentItem.put("text", prompt);
-            message.put("content", new Object[]{contentItem});
-
-            requestBody.put("messages", new Object[]{message});
-            requestBody.put("max_tokens", maxTokens);
-            requestBody.put("temperature", temperature);
-
-            // Nova 特定配置
-            JSONObject inferenceConfig = new JSONObject();
-            inferenceConfig.put("max_new_tokens", maxTokens);
-            inferenceConfig.put("temperature", temperature);
-            inferenceConfig.put("top_p", 0.9);
-            requestBody.put("inferenceConfig", inferenceConfig);
-
-            // Meta Llama 模型系列（包括 Llama 2, Llama 3, Llama 3.1, Llama 3.2）
-        } else if (actualModelId.contains("meta.llama")) {
-            // Llama 3+ 使用新的 Converse API 格式
-            if (actualModelId.contains("llama3") || actualModelId.contains("llama-3")) {
-                // Llama 3 系列使用 Messages 格式
-                JSONObject message = new JSONObject();
-                message.put("role", "user");
-                message.put("content", prompt);
-
-                requestBody.put("messages", new Object[]{message});
-                requestBody.put("max_tokens", maxTokens);
-            } else {
-                // Llama 2 使用旧格式
-                requestBody.put("prompt", prompt);
-                requestBody.put("max_gen_len", maxTokens);
-            }
-            requestBody.put("temperature", temperature);
-            requestBody.put("top_p", 0.9);
-
-            // Mistral AI 模型系列（新增）
-        } else if (actualModelId.contains("mistral")) {
-            // Mistral 使用标准的对话格式
-            requestBody.put("prompt", "<s>[INST] " + prompt + " [/INST]");
-            requestBody.put("max_tokens", maxTokens);
-            requestBody.put("temperature", temperature);
-            requestBody.put("top_p", 0.9);
-            requestBody.put("top_k", 50);
-
-            // Cohere Command 模型系列
-        } else if (actualModelId.contains("cohere.command")) {
-            requestBody.put("prompt", prompt);
-            requestBody.put("max_tokens", maxTokens);
-            requestBody.put("temperature", temperature);
-            requestBody.put("p", 0.9);
-            requestBody.put("k", 0);
-            requestBody.put("return_likelihoods", "NONE");
-
-            // AI21 Jurassic 模型系列
-        } else if (actualModelId.contains("ai21.j2") || actualModelId.contains("ai21.jamba")) {
-            requestBody.put("prompt", prompt);
-            requestBody.put("maxTokens", maxTokens);
-            requestBody.put("temperature", temperature);
-            requestBody.put("topP", 0.9);
-            requestBody.put("stopSequences", new String[]{});
-            requestBody.put("countPenalty", new JSONObject().fluentPut("scale", 0));
-            requestBody.put("presencePenalty", new JSONObject().fluentPut("scale", 0));
-            requestBody.put("frequencyPenalty", new JSONObject().fluentPut("scale", 0));
-
-            // Stability AI 模型系列（新增 - 图像生成，但也支持文本）
-        } else if (actualModelId.contains("stability")) {
-            // 如果是文本到图像模型，需要特殊处理
-            // 这里假设是文本生成场景
-            requestBody.put("text_prompts", new Object[]{
-                    new JSONObject().fluentPut("text", prompt).fluentPut("weight", 1)
-            });
-            requestBody.put("cfg_scale", 7);
-            requestBody.put("steps", 30);
-            requestBody.put("seed", 0);
-
-        } else {
-            // 默认格式（通用，适用于未知模型）
-            log.warn("使用默认请求格式，模型ID: {}", actualModelId);
-            requestBody.put("prompt", prompt);
-            requestBody.put("max_tokens", maxTokens);
-            requestBody.put("temperature", temperature);
-            requestBody.put("top_p", 0.9);
+    private SdkBytes buildRequestBody(PreProcessedData data, AIConfig config, boolean stream) {
+        CodecRequest request = CodecRequest.builder()
+                .temperature(config.getTemperature())
+                .maxTokens(config.getMaxTokens())
+                .systemPrompt(StringUtils.isNotBlank(config.getSysPrompt()) ? config.getSysPrompt() : null)
+                .userMessage(buildPrompt(data, config))
+                .stream(stream)
+                .promptCaching(CodecRequest.isPromptCaching(config, true))
+                .build();
+        try {
+            byte[] body = AICodecs.encode(resolveCodec(config), request);
+            log.debug("请求体大小: {} 字节", body.length);
+            return SdkBytes.fromByteArrayUnsafe(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("构建 Bedrock 请求体失败", e);
         }
+    }
 
-        return requestBody.toJSONString();
+    /**
+     * 获取调用所用模型的编解码器；与构造时配置的模型相同时直接使用预先解析的编解码器
+     */
+    private AICodec resolveCodec(AIConfig config) {
+        String model = config.getModel();
+        return model == null || model.equals(this.config.getModel()) ? codec : AICodecs.forModel(model);
     }
 
     @Override
@@ -244,64 +252,373 @@ public class BedrockAdapter implements IAIService {
             if (data == null || StringUtils.isEmpty(data.getContent())) {
                 return AIResponse.builder().build();
             }
-            String userPrompt = config.getUserPrompt();
-            if (StringUtils.isEmpty(userPrompt)) {
-                log.warn("userPrompt 为空,使用默认提示词");
-                userPrompt = "please analyze:\n%s";
-            }
-
-            // 构建请求体（根据不同模型格式会有所不同）
-            log.info(config.toString());
-            String requestBody = buildRequestBody(String.format(userPrompt, data.getContent()));
+            long startTime = System.currentTimeMillis();
+            SdkBytes requestBody = buildRequestBody(data, config, false);
 
             log.debug("调用 Bedrock 模型 - Model ID: {}, Region: {}", modelId, config.getRegion());
-            log.debug("请求体: {}", requestBody);
 
             // 调用模型
             InvokeModelRequest request = InvokeModelRequest.builder()
                     .modelId(config.getModel())
                     .contentType("application/json")
-                    .body(SdkBytes.fromString(requestBody, StandardCharsets.UTF_8))
+                    .body(requestBody)
                     .build();
 
             InvokeModelResponse response = bedrockClient.invokeModel(request);
+            return parseResponse(response.body(), config, startTime);
+
+        } catch (Exception e) {
+            throw wrapError(e);
+        }
+    }
 
-            // 解析响应
-            JSONObject responseBody = JSONObject.parseObject(response.body().asUtf8String());
-            log.debug("响应体: {}", responseBody);
-            // Parse response
-            JSONArray contentArray = responseBody.getJSONArray("content");
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < contentArray.size(); i++) {
-                JSONObject contentObj = contentArray.getJSONObject(i);
-                String type = contentObj.getString("type");
-                String content = contentObj.getString(type);
-                sb.append(content).append("\n");
+    /**
+     * 异步调用模型
+     * 请求经 Netty NIO 客户端发送，不占用线程；该模型的并发窗口已满时请求排队，同样不阻塞调用方
+     */
+    @Override
+    public CompletableFuture<AIResponse> invokeAsync(PreProcessedData data, AIConfig config) {
+        if (data == null || StringUtils.isEmpty(data.getContent())) {
+            return CompletableFuture.completedFuture(AIResponse.builder().build());
+        }
+        long startTime = System.currentTimeMillis();
+        InvokeModelRequest request = InvokeModelRequest.builder()
+                .modelId(config.getModel())
+                .contentType("application/json")
+                .body(buildRequestBody(data, config, false))
+                .build();
+
+        CompletableFuture<InvokeModelResponse> call = withinWindow(config.getModel(),
+                () -> bedrockAsyncClient.invokeModel(request));
+        CompletableFuture<AIResponse> future = call.handle((response, error) -> {
+            if (error != null) {
+                throw wrapError(unwrap(error));
             }
+            return parseResponse(response.body(), config, startTime);
+        });
+        future.whenComplete((response, error) -> call.cancel(true));
+        return future;
+    }
 
-            JSONObject usage = responseBody.getJSONObject("usage");
-            AIResponse.TokenUsage tokenUsage = AIResponse.TokenUsage.builder()
-                    .inputTokens(usage.getInteger("input_tokens"))
-                    .outputTokens(usage.getInteger("output_tokens"))
-                    .build();
+    @Override
+    public boolean supportsAsync() {
+        return true;
+    }
+
+    /**
+     * 流式调用模型（InvokeModelWithResponseStream），阻塞直到响应结束
+     */
+    @Override
+    public AIResponse invokeStreaming(PreProcessedData data, AIConfig config, AIStreamListener listener) throws Exception {
+        try {
+            return invokeStreamingAsync(data, config, listener).join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return true;
+    }
+
+    /**
+     * 异步流式调用模型
+     * 每个文本片段到达时即回调 listener，返回的 future 在流结束后完成并包含完整内容和 token 用量
+     *
+     * @param data     预处理数据
+     * @param config   AI 配置
+     * @param listener 片段回调
+     * @return 完整响应的 future
+     */
+    public CompletableFuture<AIResponse> invokeStreamingAsync(PreProcessedData data, AIConfig config,
+                                                              AIStreamListener listener) {
+        if (data == null || StringUtils.isEmpty(data.getContent())) {
+            AIResponse empty = AIResponse.builder().build();
+            listener.onComplete(empty);
+            return CompletableFuture.completedFuture(empty);
+        }
+        long startTime = System.currentTimeMillis();
+        InvokeModelWithResponseStreamRequest request = InvokeModelWithResponseStreamRequest.builder()
+                .modelId(config.getModel())
+                .contentType("application/json")
+                .body(buildRequestBody(data, config, true))
+                .build();
+
+        StreamCollector collector = new StreamCollector(resolveCodec(config), listener, startTime);
+        InvokeModelWithResponseStreamResponseHandler handler = InvokeModelWithResponseStreamResponseHandler.builder()
+                .subscriber(InvokeModelWithResponseStreamResponseHandler.Visitor.builder()
+                        .onChunk(chunk -> collector.accept(chunk.bytes()))
+                        .build())
+                .build();
+
+        CompletableFuture<Void> stream = withinWindow(config.getModel(),
+                () -> bedrockAsyncClient.invokeModelWithResponseStream(request, handler));
+        CompletableFuture<AIResponse> future = stream.handle((ignored, error) -> {
+            if (error != null) {
+                RuntimeException wrapped = wrapError(unwrap(error));
+                listener.onError(wrapped);
+                throw wrapped;
+            }
+            AIResponse response = collector.toResponse(config);
+            listener.onComplete(response);
+            return response;
+        });
+        future.whenComplete((response, error) -> stream.cancel(true));
+        return future;
+    }
+
+    private PromptText buildPrompt(PreProcessedData data, AIConfig config) {
+        // 模板在构造时编译一次，之后每次调用只填充 {{content}}、{{path}}、{{language}} 等占位符；
+        // 仅当调用配置的提示词与构造时不同时才重新编译
+        PromptTemplate template = Objects.equals(config.getUserPrompt(), this.config.getUserPrompt())
+                ? promptTemplate
+                : compilePrompt(config.getUserPrompt());
+        return template.render(data);
+    }
+
+    private static PromptTemplate compilePrompt(String userPrompt) {
+        if (StringUtils.isEmpty(userPrompt)) {
+            log.warn("userPrompt 为空,使用默认提示词");
+            userPrompt = "please analyze:\n%s";
+        }
+        return PromptTemplate.compile(userPrompt);
+    }
+
+    /**
+     * 解析响应
+     * 由模型系列对应的编解码器直接从响应字节逐个读取 token，只提取文本、token 用量和停止原因
+     */
+    private AIResponse parseResponse(SdkBytes body, AIConfig config, long startTime) {
+        DecodedResponse decoded;
+        try {
+            decoded = AICodecs.decode(resolveCodec(config), body.asByteArrayUnsafe());
+        } catch (IOException e) {
+            throw new UncheckedIOException("解析 Bedrock 响应失败", e);
+        }
+        log.debug("响应解析完成 - 内容长度: {}, stopReason: {}",
+                decoded.getText() != null ? decoded.getText().length() : 0, decoded.getStopReason());
+        return AIResponse.builder()
+                .content(decoded.getText())
+                .model(config.getModel())
+                .provider(getProviderName())
+                .processingTimeMs(System.currentTimeMillis() - startTime)
+                .timestamp(LocalDateTime.now())
+                .tokenUsage(decoded.toTokenUsage())
+                .stopReason(decoded.getStopReason())
+                .build();
+    }
+
+    /**
+     * 在模型的并发窗口内发送请求
+     * 窗口已满时请求排队，由完成的请求释放许可时发送，调用线程（可能是 Netty I/O 线程）从不阻塞；
+     * 取消返回的 future 会取消排队中或在途的请求
+     */
+    private <T> CompletableFuture<T> withinWindow(String model, Supplier<CompletableFuture<T>> call) {
+        ModelWindow window = modelWindows.computeIfAbsent(model, key -> new ModelWindow(maxConcurrency));
+        CompletableFuture<T> result = new CompletableFuture<>();
+        window.submit(() -> {
+            if (result.isDone()) {
+                // 排队期间已被取消
+                window.release();
+                return;
+            }
+            CompletableFuture<T> future;
+            try {
+                future = call.get();
+            } catch (RuntimeException e) {
+                window.release();
+                result.completeExceptionally(e);
+                return;
+            }
+            future.whenComplete((value, error) -> {
+                window.release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+            result.whenComplete((value, error) -> future.cancel(true));
+        });
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * 将调用失败转换为 AIServiceException
+     * 服务端错误携带 HTTP 状态码和 Retry-After，熔断、重试和路由据此区分请求错误（4xx，如 ValidationException）
+     * 与服务故障（429、5xx）
+     */
+    private static AIServiceException wrapError(Throwable error) {
+        log.error("调用 Bedrock 模型失败: {}", error.getMessage(), error);
+        String message = "Bedrock 模型调用失败: " + error.getMessage();
+        if (error instanceof SdkServiceException) {
+            AIServiceException mapped = new AIServiceException(message,
+                    ((SdkServiceException) error).statusCode(), retryAfterMs(error));
+            mapped.initCause(error);
+            return mapped;
+        }
+        if (error instanceof AIServiceException) {
+            return (AIServiceException) error;
+        }
+        return new AIServiceException(message, error);
+    }
+
+    /**
+     * 服务端响应的 Retry-After（毫秒），没有时返回 -1
+     */
+    private static long retryAfterMs(Throwable error) {
+        if (!(error instanceof AwsServiceException)) {
+            return -1;
+        }
+        AwsErrorDetails details = ((AwsServiceException) error).awsErrorDetails();
+        if (details == null || details.sdkHttpResponse() == null) {
+            return -1;
+        }
+        return RetryPolicy.parseRetryAfter(details.sdkHttpResponse().firstMatchingHeader("Retry-After").orElse(null));
+    }
+
+    /**
+     * 单个模型的并发窗口：许可用尽时请求进入队列，释放的许可直接交给队首请求
+     */
+    private static final class ModelWindow {
+        private final Queue<Runnable> pending = new ArrayDeque<>();
+        private int available;
+
+        private ModelWindow(int permits) {
+            this.available = permits;
+        }
+
+        void submit(Runnable send) {
+            synchronized (this) {
+                if (available == 0) {
+                    pending.add(send);
+                    return;
+                }
+                available--;
+            }
+            send.run();
+        }
+
+        void release() {
+            Runnable next;
+            synchronized (this) {
+                next = pending.poll();
+                if (next == null) {
+                    available++;
+                    return;
+                }
+            }
+            next.run();
+        }
+    }
+
+    /**
+     * 汇总流式响应片段
+     * 每个事件由模型系列对应的编解码器解析，支持 Claude Messages API 事件以及 Titan、Nova、Llama、Mistral、Cohere 等格式
+     */
+    private final class StreamCollector {
+        private final AICodec codec;
+        private final AIStreamListener listener;
+        private final long startTime;
+        private final StreamAccumulator accumulator = new StreamAccumulator();
+        private long firstTokenTime = -1;
+
+        private StreamCollector(AICodec codec, AIStreamListener listener, long startTime) {
+            this.codec = codec;
+            this.listener = listener;
+            this.startTime = startTime;
+        }
+
+        void accept(SdkBytes payload) {
+            String text;
+            try {
+                text = accumulator.accept(AICodecs.decodeStreamEvent(codec, payload.asByteArrayUnsafe()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("解析 Bedrock 流式事件失败", e);
+            }
+            if (text != null) {
+                if (firstTokenTime < 0) {
+                    firstTokenTime = System.currentTimeMillis() - startTime;
+                }
+                listener.onChunk(text);
+            }
+        }
+
+        AIResponse toResponse(AIConfig config) {
+            Map<String, Object> metadata = new HashMap<>();
+            metadata.put("timeToFirstTokenMs", firstTokenTime);
             return AIResponse.builder()
-                    .content(sb.toString())
+                    .content(accumulator.getContent())
                     .model(config.getModel())
                     .provider(getProviderName())
-                    .processingTimeMs(0L)
+                    .processingTimeMs(System.currentTimeMillis() - startTime)
                     .timestamp(LocalDateTime.now())
-                    .tokenUsage(tokenUsage)
+                    .tokenUsage(accumulator.getUsage().toTokenUsage())
+                    .stopReason(accumulator.getStopReason())
+                    .metadata(metadata)
                     .build();
-
-        } catch (Exception e) {
-            log.error("调用 Bedrock 模型失败: {}", e.getMessage(), e);
-            throw new RuntimeException("Bedrock 模型调用失败: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * 预热异步客户端的连接（customParams.warmConnections 个），提前完成 DNS 解析、TLS 握手和凭证加载
+     * 预热请求使用空请求体，Bedrock 以校验错误拒绝，不产生模型调用；收到任何服务端响应即视为连接已建立
+     */
+    @Override
+    public int warmUp() {
+        return ConnectionWarmer.keepWarm("Bedrock " + config.getRegion(), config, keepAliveSeconds, () ->
+                bedrockAsyncClient.invokeModel(InvokeModelRequest.builder()
+                                .modelId(config.getModel())
+                                .contentType("application/json")
+                                .body(SdkBytes.fromUtf8String("{}"))
+                                .build())
+                        .handle((response, error) -> {
+                            if (error != null && !(unwrap(error) instanceof SdkServiceException)) {
+                                throw new CompletionException(unwrap(error));
+                            }
+                            return true;
+                        })).getWarmed();
+    }
+
+    /**
+     * 健康检查：发送与预热相同的空请求体调用，Bedrock 以校验错误拒绝，不产生模型调用
+     * 收到 5xx 以下的服务端响应视为可用；超时、网络错误或凭证错误视为不可用
+     */
     @Override
     public boolean isAvailable() {
-        return true;
+        CompletableFuture<InvokeModelResponse> check = bedrockAsyncClient.invokeModel(InvokeModelRequest.builder()
+                .modelId(config.getModel())
+                .contentType("application/json")
+                .body(SdkBytes.fromUtf8String("{}"))
+                .build());
+        try {
+            check.get(HEALTH_CHECK_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            check.cancel(true);
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            log.warn("Bedrock 健康检查超时 ({}s)", HEALTH_CHECK_TIMEOUT_SECONDS);
+            return false;
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof SdkServiceException) {
+                return ((SdkServiceException) cause).statusCode() < 500;
+            }
+            log.warn("Bedrock 健康检查失败: {}", cause.getMessage());
+            return false;
+        }
     }
 
     @Override
@@ -310,4 +627,30 @@ public class BedrockAdapter implements IAIService {
     }
 
 
+
+    /**
+     * 每次重试向速率限制预留一个请求；重试的等待交给 SDK 的退避策略，这里只记账不阻塞
+     */
+    private static final class RetryChargingInterceptor implements ExecutionInterceptor {
+        private static final ExecutionAttribute<AtomicInteger> ATTEMPTS = new ExecutionAttribute<>("aiReviewerAttempts");
+
+        private final TokenBucketRateLimiter rateLimiter;
+
+        RetryChargingInterceptor(TokenBucketRateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+        }
+
+        @Override
+        public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+            executionAttributes.putAttribute(ATTEMPTS, new AtomicInteger());
+        }
+
+        @Override
+        public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+            AtomicInteger attempts = executionAttributes.getAttribute(ATTEMPTS);
+            if (attempts != null && attempts.incrementAndGet() > 1) {
+                rateLimiter.reserve(0);
+            }
+        }
+    }
 }
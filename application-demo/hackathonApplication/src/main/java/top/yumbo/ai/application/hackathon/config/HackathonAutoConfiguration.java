@@ -6,6 +6,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import top.yumbo.ai.adaptor.ai.ConnectionWarmer;
 import top.yumbo.ai.api.model.AIConfig;
 import top.yumbo.ai.api.model.ProcessResult;
 import top.yumbo.ai.api.model.ProcessorConfig;
@@ -57,6 +58,7 @@ public class HackathonAutoConfiguration {
         log.info("MaxTokens: {}", aiConfig.getMaxTokens());
         log.info("TimeoutSeconds: {}", aiConfig.getTimeoutSeconds());
         log.info("MaxRetries: {}", aiConfig.getMaxRetries());
+        log.info("WarmConnections: {}", ConnectionWarmer.getWarmConnections(aiConfig));
         log.info("SysPrompt: {}", aiConfig.getSysPrompt() != null ?
                 aiConfig.getSysPrompt().substring(0, Math.min(50, aiConfig.getSysPrompt().length())) : "null");
         log.info("UserPrompt: {}", aiConfig.getUserPrompt() != null ?
@@ -68,6 +70,7 @@ public class HackathonAutoConfiguration {
         registry.clearAIServices();
         registry.clearProcessors();
         registry.registerParser(new HackathonFileParser());
+        // Bedrock 连接由 starter 在所有适配器注册完成后预热（customParams.warmConnections）
         registry.registerAIService(new BedrockAdapter(aiConfig));
         registry.registerProcessor(new HackathonCodeReviewProcessor());
         registry.loadAdaptersFromSPI();
@@ -9,6 +9,8 @@ import top.yumbo.ai.common.exception.ParseException;
 import top.yumbo.ai.common.util.FileUtil;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.stream.Stream;
 
 /**
@@ -41,7 +43,8 @@ public class HackathonFileParser implements IFileParser {
             return PreProcessedData.builder()
                     .metadata(metadata)
                     .content(content)
-//                    .context(context)
+                    // Language for the {{language}} prompt placeholder
+                    .context(new HashMap<>(Map.of("language", languageOf(file.getName()))))
                     .parserName(getParserName())
                     .build();
         } catch (Exception e) {
@@ -50,6 +53,13 @@ public class HackathonFileParser implements IFileParser {
         }
     }
 
+    private static String languageOf(String fileName) {
+        if (fileName.endsWith(Constants.PYTHON_FILE_EXTENSION)) {
+            return "Python";
+        }
+        return fileName.endsWith(Constants.JS_FILE_EXTENSION) ? "JavaScript" : "Java";
+    }
+
     @Override
     public int getPriority() {
         return 10; // Higher priority for Java files